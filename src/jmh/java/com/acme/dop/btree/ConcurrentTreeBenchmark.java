@@ -0,0 +1,96 @@
+package com.acme.dop.btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Contention between readers and writers of a shared tree: a {@link ConcurrentTree} against an {@link OrderedTree}
+ * guarded by one global lock for every access. Each group runs three readers, looking up random keys, and one
+ * writer, inserting even keys and deleting the even key below odd ones, in a tree of about 64K elements. Vary the
+ * number of threads with {@code -tg}, e.g., {@code -tg 1,1} or {@code -tg 15,1} for more readers, or
+ * {@code -tg 4,4} for more writers.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ConcurrentTreeBenchmark {
+
+    private static final int KEYS = 1 << 17;
+
+    private ConcurrentTree<Integer> concurrent;
+    private OrderedTree<Integer> locked;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    @Setup
+    public void setUp() {
+        OrderedTree<Integer> tree = OrderedTree.empty();
+        for (var key = 0; key < KEYS; key += 2) {
+            tree = tree.insert(key);
+        }
+        concurrent = ConcurrentTree.of(tree);
+        locked = tree;
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(3)
+    public boolean lockFreeRead() {
+        return concurrent.contains(randomKey());
+    }
+
+    @Benchmark
+    @Group("lockFree")
+    @GroupThreads(1)
+    public OrderedTree<Integer> lockFreeWrite() {
+        var key = randomKey();
+        return (key & 1) == 0 ? concurrent.insert(key) : concurrent.delete(key - 1);
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(3)
+    public boolean lockedRead() {
+        var key = randomKey();
+        lock.lock();
+        try {
+            return locked.contains(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public OrderedTree<Integer> lockedWrite() {
+        var key = randomKey();
+        lock.lock();
+        try {
+            locked = (key & 1) == 0 ? locked.insert(key) : locked.delete(key - 1);
+            return locked;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static int randomKey() {
+        return ThreadLocalRandom.current().nextInt(KEYS);
+    }
+}
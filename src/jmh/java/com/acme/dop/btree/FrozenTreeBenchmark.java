@@ -0,0 +1,84 @@
+package com.acme.dop.btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares lookups in a {@link FrozenIntTree} with an {@link OrderedTree} of boxed values and a binary search of a
+ * sorted array. Each operation looks up a batch of random keys, half of them present, so the larger sizes measure
+ * cache misses rather than a single hot path.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class FrozenTreeBenchmark {
+
+    private static final int LOOKUPS = 1024;
+
+    @Param({ "1024", "65536", "1048576" })
+    int size;
+
+    private int[] sorted;
+    private FrozenIntTree frozen;
+    private OrderedTree<Integer> ordered;
+    private int[] lookups;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        sorted = new int[size];
+        for (var i = 0; i < size; i++) {
+            sorted[i] = 2 * i;
+        }
+        frozen = FrozenIntTree.of(sorted);
+        OrderedTree<Integer> built = OrderedTree.empty();
+        for (var key : sorted) {
+            built = built.insert(key);
+        }
+        ordered = built;
+        lookups = random.ints(LOOKUPS, 0, 2 * size).toArray();
+    }
+
+    @Benchmark
+    public int frozen() {
+        var found = 0;
+        for (var key : lookups) {
+            found += frozen.contains(key) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int ordered() {
+        var found = 0;
+        for (var key : lookups) {
+            found += ordered.contains(key) ? 1 : 0;
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int binarySearch() {
+        var found = 0;
+        for (var key : lookups) {
+            found += Arrays.binarySearch(sorted, key) >= 0 ? 1 : 0;
+        }
+        return found;
+    }
+}
@@ -0,0 +1,75 @@
+package com.acme.dop.btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares building an {@link OrderedTree} and merging two of them element by element with the bulk operations,
+ * {@link OrderedTree#fromSorted} and {@link OrderedTree#union}, which also use other cores for large trees.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OrderedTreeBenchmark {
+
+    @Param({ "1024", "1048576" })
+    int size;
+
+    private List<Integer> evens;
+    private List<Integer> threes;
+    private OrderedTree<Integer> a;
+    private OrderedTree<Integer> b;
+
+    @Setup
+    public void setUp() {
+        evens = IntStream.range(0, size).map(i -> 2 * i).boxed().toList();
+        threes = IntStream.range(0, size).map(i -> 3 * i).boxed().toList();
+        a = OrderedTree.fromSorted(evens, Comparator.naturalOrder());
+        b = OrderedTree.fromSorted(threes, Comparator.naturalOrder());
+    }
+
+    @Benchmark
+    public OrderedTree<Integer> buildByInsert() {
+        OrderedTree<Integer> tree = OrderedTree.empty();
+        for (var value : evens) {
+            tree = tree.insert(value);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public OrderedTree<Integer> buildFromSorted() {
+        return OrderedTree.fromSorted(evens, Comparator.naturalOrder());
+    }
+
+    @Benchmark
+    public OrderedTree<Integer> unionByInsert() {
+        var tree = a;
+        for (var value : threes) {
+            tree = tree.insert(value);
+        }
+        return tree;
+    }
+
+    @Benchmark
+    public OrderedTree<Integer> union() {
+        return a.union(b);
+    }
+}
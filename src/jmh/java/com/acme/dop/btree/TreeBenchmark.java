@@ -0,0 +1,85 @@
+package com.acme.dop.btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for {@link Tree#contains(Object)} and {@link Tree#inorder(java.util.function.Consumer)} on random
+ * binary search trees of varying size, built by inserting shuffled keys so their depth is logarithmic on average.
+ * {@code contains} searches the whole tree, so looking up a missing key is the worst case. Run with
+ * {@code -prof gc} to see the allocation rate, e.g., from boxing in the consumer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeBenchmark {
+
+    @Param({ "16", "1024", "65536", "1048576" })
+    int size;
+
+    private Tree<Integer> tree;
+    private Integer present;
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        var keys = new int[size];
+        for (var i = 0; i < size; i++) {
+            keys[i] = 2 * i;
+        }
+        for (var i = size - 1; i > 0; i--) {
+            var j = random.nextInt(i + 1);
+            var swap = keys[i];
+            keys[i] = keys[j];
+            keys[j] = swap;
+        }
+
+        Tree<Integer> built = Tree.nil();
+        for (var key : keys) {
+            built = insert(built, key);
+        }
+        tree = built;
+        present = keys[size / 2];
+    }
+
+    @Benchmark
+    public boolean containsPresent() {
+        return tree.contains(present);
+    }
+
+    @Benchmark
+    public boolean containsMissing() {
+        return tree.contains(-1);
+    }
+
+    @Benchmark
+    public void inorder(Blackhole bh) {
+        tree.inorder(bh::consume);
+    }
+
+    // A persistent insert, copying the path to the new leaf.
+    private static Tree<Integer> insert(Tree<Integer> tree, int key) {
+        return switch (tree) {
+            case Tree.Nil<Integer>() -> Tree.leaf(key);
+            case Tree.Node<Integer>(var left, var val, var right) -> key < val
+                    ? Tree.full(insert(left, key), val, right)
+                    : Tree.full(left, val, insert(right, key));
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package com.acme.dop.btree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the recursive {@link Tree} operations with {@link TreeWalker} on left-deep chains, where the depth
+ * equals the size of the tree. The forked JVM gets a large thread stack so that the recursive versions can reach
+ * the deepest chains.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m")
+@State(Scope.Thread)
+public class TreeTraversalBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    int depth;
+
+    private Tree<Integer> chain;
+    private final TreeWalker<Integer> walker = new TreeWalker<>();
+
+    @Setup
+    public void setUp() {
+        Tree<Integer> tree = Tree.nil();
+        for (var i = 0; i < depth; i++) {
+            tree = Tree.left(tree, i);
+        }
+        chain = tree;
+    }
+
+    @Benchmark
+    public boolean recursiveContainsMissing() {
+        return chain.contains(-1);
+    }
+
+    @Benchmark
+    public boolean iterativeContainsMissing() {
+        return walker.contains(chain, -1);
+    }
+
+    @Benchmark
+    public void recursiveInorder(Blackhole bh) {
+        chain.inorder(bh::consume);
+    }
+
+    @Benchmark
+    public void iterativeInorder(Blackhole bh) {
+        walker.inorder(chain, bh::consume);
+    }
+}
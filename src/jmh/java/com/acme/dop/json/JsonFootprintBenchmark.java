@@ -0,0 +1,172 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+
+import java.lang.ref.Reference;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the compact objects and arrays that {@link JsonParser} builds with {@link LinkedHashMap}s and
+ * {@link ArrayList}s of boxed values, as it used to build them. The {@code orders} documents are those of
+ * {@link JsonParserBenchmark}; the {@code series} documents are arrays of small objects, each with an array of 16
+ * numbers. The {@code retainedBytesPerRecord} counter is the heap that one parsed record keeps alive, measured
+ * around full collections; run with {@code -prof gc} for the bytes allocated while parsing.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonFootprintBenchmark {
+
+    @Param({ "orders", "series" })
+    String document;
+
+    @Param({ "compact", "maps" })
+    String representation;
+
+    @Param({ "10000" })
+    int records;
+
+    private byte[] bytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Footprint {
+        public double retainedBytesPerRecord;
+        // JMH clears the counter after setup, so the benchmark copies it, and sums it over the iterations, so this is
+        // divided by their number
+        private double measured;
+
+        @Setup(Level.Iteration)
+        public void measure(JsonFootprintBenchmark benchmark, BenchmarkParams params) {
+            var before = usedAfterCollection();
+            var value = benchmark.parse();
+            var after = usedAfterCollection();
+            Reference.reachabilityFence(value);
+            measured = (double) (after - before) / benchmark.records / params.getMeasurement().getCount();
+        }
+
+        private static long usedAfterCollection() {
+            var runtime = Runtime.getRuntime();
+            for (var i = 0; i < 3; i++) {
+                System.gc();
+            }
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        bytes = switch (document) {
+            case "orders" -> JsonParserBenchmark.orders(records);
+            case "series" -> series(records);
+            default -> throw new IllegalArgumentException(document);
+        };
+    }
+
+    @Benchmark
+    public JsonValue parse(Footprint footprint) {
+        footprint.retainedBytesPerRecord = footprint.measured;
+        return parse();
+    }
+
+    private JsonValue parse() {
+        return representation.equals("compact") ? JsonParser.parse(bytes) : parseToMaps(bytes);
+    }
+
+    private static byte[] series(int records) {
+        var random = new Random(42);
+        var json = new StringBuilder("[");
+        for (var id = 0; id < records; id++) {
+            json.append(id == 0 ? "" : ",").append("{\"sensor\":\"s-").append(random.nextInt(100))
+                    .append("\",\"unit\":\"C\",\"readings\":[");
+            for (var i = 0; i < 16; i++) {
+                json.append(i == 0 ? "" : ",").append(Math.round(random.nextGaussian() * 500 + 2000) / 100.0);
+            }
+            json.append("]}");
+        }
+        return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    // How JsonParser built values before they were compact.
+    private static JsonValue parseToMaps(byte[] json) {
+        var reader = JsonReader.of(json);
+        var stack = new ArrayDeque<Object>();
+        var names = new ArrayDeque<String>();
+        for (var event = reader.next(); ; event = reader.next()) {
+            JsonValue value;
+            switch (event) {
+                case null -> throw new IllegalStateException("not at a value");
+                case START_OBJECT -> {
+                    stack.push(new LinkedHashMap<String, JsonValue>());
+                    continue;
+                }
+                case START_ARRAY -> {
+                    stack.push(new ArrayList<JsonValue>());
+                    continue;
+                }
+                case NAME -> {
+                    names.push(reader.string());
+                    continue;
+                }
+                case END_OBJECT -> {
+                    @SuppressWarnings("unchecked")
+                    var pairs = (Map<String, JsonValue>) stack.pop();
+                    value = new JsonObject(pairs);
+                }
+                case END_ARRAY -> {
+                    @SuppressWarnings("unchecked")
+                    var values = (List<JsonValue>) stack.pop();
+                    value = new JsonArray(values);
+                }
+                case STRING -> value = new JsonString(reader.string());
+                case NUMBER -> value = new JsonNumber(reader.number());
+                case TRUE -> value = new JsonBoolean(true);
+                case FALSE -> value = new JsonBoolean(false);
+                case NULL -> value = new JsonNull();
+            }
+            var parent = stack.peek();
+            if (parent == null) {
+                return value;
+            }
+            if (parent instanceof Map<?, ?> map) {
+                @SuppressWarnings("unchecked")
+                var pairs = (Map<String, JsonValue>) map;
+                pairs.put(names.pop(), value);
+            } else {
+                @SuppressWarnings("unchecked")
+                var values = (List<JsonValue>) parent;
+                values.add(value);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonParser} and {@link JsonReader} throughput on generated arrays of order records, like those of
+ * {@link JsonValueBenchmark}. {@code parse} builds the whole tree from a byte array, {@code parseDirect} from a
+ * direct buffer, and {@code sumNumbers} only pulls events. {@code sumIds} and {@code sumIdsLazily} read one member
+ * of every order, from a tree built by {@link JsonParser} and from a {@link JsonTape}, and {@code sumPrices} streams
+ * the prices of all items through a {@link JsonPath}. The {@code megabytes} counter reports input consumed per
+ * second, in MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonParserBenchmark {
+
+    private static final JsonPath PRICES = JsonPath.compile("$[*].items[*].price");
+
+    @Param({ "10", "1000", "100000" })
+    int orders;
+
+    private byte[] bytes;
+    private ByteBuffer direct;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Input {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        bytes = orders(orders);
+        direct = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+    }
+
+    // a compact JSON array of generated order records
+    static byte[] orders(int orders) {
+        var random = new Random(42);
+        var json = new StringBuilder("[");
+        for (var id = 0; id < orders; id++) {
+            json.append(id == 0 ? "" : ",").append("{\"id\":").append(id)
+                    .append(",\"customer\":{\"name\":\"customer-").append(random.nextInt(10_000))
+                    .append("\",\"email\":").append(random.nextInt(5) == 0 ? "null" : "\"c" + id + "@example.com\"")
+                    .append(",\"vip\":").append(random.nextBoolean()).append("},\"items\":[");
+            var count = 1 + random.nextInt(5);
+            for (var i = 0; i < count; i++) {
+                json.append(i == 0 ? "" : ",").append("{\"sku\":\"SKU-").append(random.nextInt(100_000))
+                        .append("\",\"quantity\":").append(1 + random.nextInt(10))
+                        .append(",\"price\":").append(Math.round(random.nextDouble() * 10_000) / 100.0).append("}");
+            }
+            json.append("],\"shipped\":").append(random.nextBoolean()).append("}");
+        }
+        return json.append("]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public JsonValue parse(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        return JsonParser.parse(bytes);
+    }
+
+    @Benchmark
+    public JsonValue parseDirect(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        return JsonParser.parse(direct);
+    }
+
+    @Benchmark
+    public double sumNumbers(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        var reader = JsonReader.of(bytes);
+        var sum = 0.0;
+        for (var event = reader.next(); event != null; event = reader.next()) {
+            if (event == JsonEvent.NUMBER) {
+                sum += reader.number();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public double sumIds(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        return sumIds(JsonParser.parse(bytes));
+    }
+
+    @Benchmark
+    public double sumIdsLazily(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        return sumIds(JsonTape.parse(bytes));
+    }
+
+    @Benchmark
+    public double sumPrices(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        var sum = new double[1];
+        PRICES.select(bytes, price -> sum[0] += ((JsonNumber) price).d());
+        return sum[0];
+    }
+
+    private static double sumIds(JsonValue orders) {
+        var sum = 0.0;
+        if (orders instanceof JsonArray(var values)) {
+            for (var order : values) {
+                if (order instanceof JsonObject(var pairs) && pairs.get("id") instanceof JsonNumber(var id)) {
+                    sum += id;
+                }
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,126 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Baseline for building and walking {@link JsonValue} documents with pattern matching. The generated documents
+ * are arrays of order records, each with a customer object, line items and a few scalar fields. Run with
+ * {@code -prof gc} to see the allocation rate of building.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonValueBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int orders;
+
+    private JsonValue document;
+
+    @Setup
+    public void setUp() {
+        document = build();
+    }
+
+    @Benchmark
+    public JsonValue build() {
+        var random = new Random(42);
+        var values = new ArrayList<JsonValue>(orders);
+        for (var i = 0; i < orders; i++) {
+            values.add(order(random, i));
+        }
+        return new JsonArray(values);
+    }
+
+    @Benchmark
+    public double sumNumbers() {
+        return sumNumbers(document);
+    }
+
+    @Benchmark
+    public int countNodes() {
+        return countNodes(document);
+    }
+
+    private static double sumNumbers(JsonValue value) {
+        return switch (value) {
+            case JsonNumber(double d) -> d;
+            case JsonArray(List<JsonValue> values) -> {
+                var sum = 0.0;
+                for (var v : values) {
+                    sum += sumNumbers(v);
+                }
+                yield sum;
+            }
+            case JsonObject(var pairs) -> {
+                var sum = 0.0;
+                for (var v : pairs.values()) {
+                    sum += sumNumbers(v);
+                }
+                yield sum;
+            }
+            case JsonString ignored -> 0.0;
+            case JsonBoolean ignored -> 0.0;
+            case JsonNull ignored -> 0.0;
+        };
+    }
+
+    private static int countNodes(JsonValue value) {
+        return switch (value) {
+            case JsonArray(List<JsonValue> values) ->
+                    1 + values.stream().mapToInt(JsonValueBenchmark::countNodes).sum();
+            case JsonObject(var pairs) -> 1 + pairs.values().stream().mapToInt(JsonValueBenchmark::countNodes).sum();
+            default -> 1;
+        };
+    }
+
+    private static JsonValue order(Random random, int id) {
+        var customer = new LinkedHashMap<String, JsonValue>();
+        customer.put("name", new JsonString("customer-" + random.nextInt(10_000)));
+        customer.put("email", random.nextInt(5) == 0 ? new JsonNull() : new JsonString("c" + id + "@example.com"));
+        customer.put("vip", new JsonBoolean(random.nextBoolean()));
+
+        var items = new ArrayList<JsonValue>();
+        var count = 1 + random.nextInt(5);
+        for (var i = 0; i < count; i++) {
+            var item = new LinkedHashMap<String, JsonValue>();
+            item.put("sku", new JsonString("SKU-" + random.nextInt(100_000)));
+            item.put("quantity", new JsonNumber(1 + random.nextInt(10)));
+            item.put("price", new JsonNumber(Math.round(random.nextDouble() * 10_000) / 100.0));
+            items.add(new JsonObject(item));
+        }
+
+        var order = new LinkedHashMap<String, JsonValue>();
+        order.put("id", new JsonNumber(id));
+        order.put("customer", new JsonObject(customer));
+        order.put("items", new JsonArray(items));
+        order.put("shipped", new JsonBoolean(random.nextBoolean()));
+        return new JsonObject(order);
+    }
+}
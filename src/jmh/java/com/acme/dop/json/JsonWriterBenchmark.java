@@ -0,0 +1,83 @@
+package com.acme.dop.json;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link JsonWriter} throughput on the documents of {@link JsonParserBenchmark}. {@code compact} and
+ * {@code pretty} write into a reused heap buffer, and {@code stream} writes compact output to a stream that
+ * discards it. The {@code megabytes} counter reports output produced per second, in MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class JsonWriterBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int orders;
+
+    private JsonValue document;
+    private ByteBuffer buffer;
+    private OutputStream discard;
+    private int compactSize;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Output {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        document = JsonParser.parse(JsonParserBenchmark.orders(orders));
+        buffer = ByteBuffer.allocate(JsonWriter.PRETTY.toBytes(document).length);
+        discard = OutputStream.nullOutputStream();
+        compactSize = JsonWriter.COMPACT.toBytes(document).length;
+    }
+
+    @Benchmark
+    public int compact(Output output) {
+        return write(JsonWriter.COMPACT, output);
+    }
+
+    @Benchmark
+    public int pretty(Output output) {
+        return write(JsonWriter.PRETTY, output);
+    }
+
+    @Benchmark
+    public void stream(Output output) throws IOException {
+        JsonWriter.COMPACT.write(document, discard);
+        output.megabytes += compactSize / 1e6;
+    }
+
+    private int write(JsonWriter writer, Output output) {
+        var written = writer.write(document, buffer.clear()).position();
+        output.megabytes += written / 1e6;
+        return written;
+    }
+}
@@ -0,0 +1,82 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+
+import java.util.Random;
+
+/**
+ * Generated expressions for benchmarks. The same seed always gives the same expression.
+ */
+public class ExpressionDatasets {
+
+    public enum Shape {
+
+        /**
+         * A polynomial in two variables with about 25 nodes, typical of hand-written expressions.
+         */
+        SMALL,
+
+        /**
+         * A left-deep chain of 2000 {@code (e * c) + c} steps, like the result of repeatedly extending an expression.
+         */
+        DEEP,
+
+        /**
+         * A balanced sum of 1024 monomials over 16 variables, about 5600 nodes but only about 15 levels deep.
+         */
+        WIDE
+    }
+
+    private ExpressionDatasets() {
+    }
+
+    static Node generate(Shape shape, long seed) {
+        var random = new Random(seed);
+        return switch (shape) {
+            case SMALL -> {
+                Node expr = monomial(random, 2);
+                for (var i = 0; i < 4; i++) {
+                    expr = add(expr, monomial(random, 2));
+                }
+                yield expr;
+            }
+            case DEEP -> {
+                Node expr = variable("x");
+                for (var i = 0; i < 2000; i++) {
+                    expr = add(mul(expr, val(coefficient(random))), val(coefficient(random)));
+                }
+                yield expr;
+            }
+            case WIDE -> balancedSum(random, 1024, 16);
+        };
+    }
+
+    private static Node balancedSum(Random random, int terms, int variables) {
+        if (terms == 1) {
+            return monomial(random, variables);
+        }
+        return add(balancedSum(random, terms / 2, variables), balancedSum(random, terms - terms / 2, variables));
+    }
+
+    // c * x^k * -y, with the power and negation only sometimes present
+    private static Node monomial(Random random, int variables) {
+        Node term = variable("x" + random.nextInt(variables));
+        var power = random.nextInt(4);
+        if (power > 1) {
+            term = exp(term, power);
+        }
+        if (random.nextInt(3) == 0) {
+            term = mul(term, neg(variable("x" + random.nextInt(variables))));
+        }
+        return mul(val(coefficient(random)), term);
+    }
+
+    private static double coefficient(Random random) {
+        return Math.round(random.nextGaussian() * 1000) / 100.0;
+    }
+}
@@ -0,0 +1,55 @@
+package com.acme.dop.math;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Baseline for the recursive {@link NodeMath} operations on small, deep and wide generated expressions. Run with
+ * {@code -prof gc} to see the allocation rate alongside the time.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss64m")
+@State(Scope.Thread)
+public class NodeMathBenchmark {
+
+    @Param
+    ExpressionDatasets.Shape shape;
+
+    private Node expr;
+    private final Function<String, Double> vars = name -> 0.75;
+
+    @Setup
+    public void setUp() {
+        expr = ExpressionDatasets.generate(shape, 42);
+    }
+
+    @Benchmark
+    public double eval() {
+        return NodeMath.eval(expr, vars);
+    }
+
+    @Benchmark
+    public Node diff() {
+        return NodeMath.diff(expr, "x0");
+    }
+
+    @Benchmark
+    public String format() {
+        return NodeMath.format(expr);
+    }
+}
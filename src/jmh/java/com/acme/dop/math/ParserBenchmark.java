@@ -0,0 +1,88 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link NodeParser} throughput on generated polynomials of the given number of terms, written with full
+ * or minimal parentheses. The {@code megabytes} counter reports input consumed per second, in MB/s.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ParserBenchmark {
+
+    @Param({ "10", "1000", "100000" })
+    int terms;
+
+    @Param({ "FULL", "MINIMAL" })
+    NodeFormatter.Parentheses parentheses;
+
+    private String text;
+    private byte[] bytes;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Input {
+        public double megabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            megabytes = 0;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        var random = new Random(42);
+        Node expr = val(random.nextInt(100));
+        for (var i = 1; i < terms; i++) {
+            var x = variable("x" + (i % 8));
+            Node term = switch (i % 3) {
+                case 0 -> mul(val(random.nextInt(1000) / 8.0), exp(x, 1 + random.nextInt(4)));
+                case 1 -> mul(val(-random.nextInt(100)), x);
+                default -> neg(mul(x, variable("y")));
+            };
+            expr = add(expr, term);
+        }
+        text = NodeFormatter.of(parentheses).format(expr);
+        bytes = text.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public Node parseString(Input input) {
+        input.megabytes += text.length() / 1e6;
+        return NodeParser.parse(text);
+    }
+
+    @Benchmark
+    public Node parseBytes(Input input) {
+        input.megabytes += bytes.length / 1e6;
+        return NodeParser.parse(bytes);
+    }
+}
@@ -0,0 +1,81 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares the recursive {@link NodeMath} operations with {@link IterativeNodeMath} on left-deep chains of
+ * {@code (x * 2.0) + 1.0} terms. The forked JVM gets a large thread stack so that the recursive versions can
+ * reach the deepest chains; with the default stack they overflow somewhere in the low thousands.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xss256m")
+@State(Scope.Thread)
+public class TraversalBenchmark {
+
+    @Param({ "10", "100", "1000", "10000" })
+    int depth;
+
+    private Node chain;
+    private final IterativeNodeMath iterative = new IterativeNodeMath();
+    private final Function<String, Double> vars = name -> 1.5;
+
+    @Setup
+    public void setUp() {
+        Node expr = variable("x");
+        for (var i = 0; i < depth; i++) {
+            expr = add(mul(expr, val(2.0)), val(1.0));
+        }
+        chain = expr;
+    }
+
+    @Benchmark
+    public double recursiveEval() {
+        return NodeMath.eval(chain, vars);
+    }
+
+    @Benchmark
+    public double iterativeEval() {
+        return iterative.eval(chain, vars);
+    }
+
+    @Benchmark
+    public String recursiveFormat() {
+        return NodeMath.format(chain);
+    }
+
+    @Benchmark
+    public String iterativeFormat() {
+        return iterative.format(chain);
+    }
+
+    @Benchmark
+    public Node recursiveDiff() {
+        return NodeMath.diff(chain, "x");
+    }
+
+    @Benchmark
+    public Node iterativeDiff() {
+        return iterative.diff(chain, "x");
+    }
+}
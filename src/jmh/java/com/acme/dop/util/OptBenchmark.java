@@ -0,0 +1,64 @@
+package com.acme.dop.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Compares chains of {@link Opt#map(Function)} with the same chains on {@link Optional}, for present and empty
+ * values. Run with {@code -prof gc} to see whether escape analysis removes the intermediate wrappers.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class OptBenchmark {
+
+    @Param({ "1", "4", "16" })
+    int length;
+
+    @Param({ "true", "false" })
+    boolean present;
+
+    private Opt<Integer> opt;
+    private Optional<Integer> optional;
+    private final Function<Integer, Integer> step = i -> i * 31 + 7;
+
+    @Setup
+    public void setUp() {
+        opt = present ? Opt.of(42) : Opt.empty();
+        optional = present ? Optional.of(42) : Optional.empty();
+    }
+
+    @Benchmark
+    public Opt<Integer> optMapChain() {
+        var result = opt;
+        for (var i = 0; i < length; i++) {
+            result = result.map(step);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Optional<Integer> optionalMapChain() {
+        var result = optional;
+        for (var i = 0; i < length; i++) {
+            result = result.map(step);
+        }
+        return result;
+    }
+}
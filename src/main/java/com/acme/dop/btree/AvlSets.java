@@ -0,0 +1,186 @@
+package com.acme.dop.btree;
+
+import static com.acme.dop.btree.AvlTree.height;
+
+import com.acme.dop.btree.AvlTree.Nil;
+import com.acme.dop.btree.AvlTree.Node;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * Bulk construction and set operations on {@link AvlTree}s, built from two primitives: {@code join}, which
+ * combines two trees and a value between them in time proportional to the difference of their heights, and
+ * {@code split}, which divides a tree around a value in O(log n) time.
+ * <p>
+ * Union, intersection and difference split one tree around the root of the other and recurse on the two halves,
+ * which takes O(m log(n / m + 1)) time for trees of sizes m &le; n, so combining a small tree with a large one
+ * is cheap, and the halves are independent. Once both trees are tall enough to make it worthwhile, one half is
+ * forked onto the {@link ForkJoinPool} the caller is running in, or onto the common pool, unless the pool has a
+ * single thread, in which forking only adds overhead. All recursion is O(log n) deep.
+ * <p>
+ * The set operations also count the elements of the first tree that have an equal element in the second, from
+ * which the caller can derive the size of the result from the sizes of the inputs without walking it.
+ */
+final class AvlSets {
+
+    /**
+     * AVL trees of this height have at least 986 elements.
+     */
+    static final int PARALLEL_HEIGHT = 14;
+
+    /**
+     * The result of a set operation, and the number of elements of its first tree that are also in the second.
+     */
+    record Combined<T>(AvlTree<T> tree, int common) { }
+
+    private record Split<T>(AvlTree<T> left, boolean found, AvlTree<T> right) { }
+
+    private record Halves<T>(Combined<T> left, Combined<T> right) {
+
+        int common(boolean found) {
+            return left.common() + right.common() + (found ? 1 : 0);
+        }
+    }
+
+    private AvlSets() {
+    }
+
+    /**
+     * Build a tree of exactly {@code size} values, which must be in ascending order without duplicates, in linear
+     * time. The subtrees of every node differ in size by at most one.
+     *
+     * @throws java.util.NoSuchElementException if there are fewer values than {@code size}
+     */
+    static <T> AvlTree<T> build(Iterator<? extends T> values, int size) {
+        if (size == 0) {
+            return AvlTree.nil();
+        }
+        var leftSize = (size - 1) / 2;
+        AvlTree<T> left = build(values, leftSize);
+        T val = values.next();
+        AvlTree<T> right = build(values, size - 1 - leftSize);
+        return AvlTree.node(left, val, right);
+    }
+
+    static <T> int size(AvlTree<T> tree) {
+        return switch (tree) {
+            case Nil<T>() -> 0;
+            case Node<T>(var left, var val, var right, int ignored) -> size(left) + 1 + size(right);
+        };
+    }
+
+    /**
+     * @return a tree of the elements of {@code left}, then {@code val}, then those of {@code right}, which must
+     *         all be in ascending order
+     */
+    static <T> AvlTree<T> join(AvlTree<T> left, T val, AvlTree<T> right) {
+        var leftHeight = height(left);
+        var rightHeight = height(right);
+
+        // descend the spine of the taller tree to a subtree as tall as the other one, then rebalance on the way up
+        if (leftHeight > rightHeight + 1) {
+            var l = (Node<T>) left;
+            return AvlTree.balance(l.left(), l.val(), join(l.right(), val, right));
+        }
+        if (rightHeight > leftHeight + 1) {
+            var r = (Node<T>) right;
+            return AvlTree.balance(join(left, val, r.left()), r.val(), r.right());
+        }
+        return AvlTree.node(left, val, right);
+    }
+
+    /**
+     * @return the elements of both trees, keeping those of {@code a} where the trees have equal elements
+     */
+    static <T> Combined<T> union(AvlTree<T> a, AvlTree<T> b, Comparator<? super T> comparator) {
+        if (b instanceof Nil<T>) {
+            return new Combined<>(a, 0);
+        }
+        if (!(a instanceof Node<T>(var left, var val, var right, int ignored))) {
+            return new Combined<>(b, 0);
+        }
+        var split = split(b, val, comparator);
+        var halves = both(a, b,
+                () -> union(left, split.left(), comparator),
+                () -> union(right, split.right(), comparator));
+        return new Combined<>(join(halves.left().tree(), val, halves.right().tree()), halves.common(split.found()));
+    }
+
+    /**
+     * @return the elements of {@code a} that are also in {@code b}
+     */
+    static <T> Combined<T> intersection(AvlTree<T> a, AvlTree<T> b, Comparator<? super T> comparator) {
+        if (!(a instanceof Node<T>(var left, var val, var right, int ignored)) || b instanceof Nil<T>) {
+            return new Combined<>(AvlTree.nil(), 0);
+        }
+        var split = split(b, val, comparator);
+        var halves = both(a, b,
+                () -> intersection(left, split.left(), comparator),
+                () -> intersection(right, split.right(), comparator));
+        var tree = split.found()
+                ? join(halves.left().tree(), val, halves.right().tree())
+                : join(halves.left().tree(), halves.right().tree(), comparator);
+        return new Combined<>(tree, halves.common(split.found()));
+    }
+
+    /**
+     * @return the elements of {@code a} that are not in {@code b}
+     */
+    static <T> Combined<T> difference(AvlTree<T> a, AvlTree<T> b, Comparator<? super T> comparator) {
+        if (a instanceof Nil<T> || !(b instanceof Node<T>(var left, var val, var right, int ignored))) {
+            return new Combined<>(a, 0);
+        }
+        var split = split(a, val, comparator);
+        var halves = both(a, b,
+                () -> difference(split.left(), left, comparator),
+                () -> difference(split.right(), right, comparator));
+        return new Combined<>(join(halves.left().tree(), halves.right().tree(), comparator),
+                halves.common(split.found()));
+    }
+
+    private static <T> Split<T> split(AvlTree<T> tree, T key, Comparator<? super T> comparator) {
+        return switch (tree) {
+            case Nil<T>() -> new Split<>(tree, false, tree);
+            case Node<T>(var left, var val, var right, int ignored) -> {
+                var c = comparator.compare(key, val);
+                if (c == 0) {
+                    yield new Split<>(left, true, right);
+                }
+                if (c < 0) {
+                    var split = split(left, key, comparator);
+                    yield new Split<>(split.left(), split.found(), join(split.right(), val, right));
+                }
+                var split = split(right, key, comparator);
+                yield new Split<>(join(left, val, split.left()), split.found(), split.right());
+            }
+        };
+    }
+
+    // join without a value in between, taking the smallest element of the right tree
+    private static <T> AvlTree<T> join(AvlTree<T> left, AvlTree<T> right, Comparator<? super T> comparator) {
+        if (right instanceof Nil<T>) {
+            return left;
+        }
+        var min = AvlTree.min(right);
+        return join(left, min, AvlTree.delete(right, min, comparator));
+    }
+
+    private static <T> Halves<T> both(AvlTree<T> a, AvlTree<T> b, Supplier<Combined<T>> left,
+            Supplier<Combined<T>> right) {
+        if (Math.min(height(a), height(b)) < PARALLEL_HEIGHT || parallelism() < 2) {
+            return new Halves<>(left.get(), right.get());
+        }
+        var forked = ForkJoinTask.adapt(left::get).fork();
+        var r = right.get();
+        return new Halves<>(forked.join(), r);
+    }
+
+    private static int parallelism() {
+        var pool = ForkJoinTask.getPool();
+        return pool == null ? ForkJoinPool.getCommonPoolParallelism() : pool.getParallelism();
+    }
+}
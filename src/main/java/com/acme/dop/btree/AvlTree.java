@@ -0,0 +1,196 @@
+package com.acme.dop.btree;
+
+import static java.util.Objects.isNull;
+
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * A persistent AVL tree: a binary search tree, ordered by a {@link Comparator} passed to each operation, in which
+ * the heights of the two subtrees of every node differ by at most one. Lookups, inserts and deletes therefore take
+ * O(log n) time.
+ * <p>
+ * Trees are immutable. Inserts and deletes copy only the path from the root to the change, sharing everything
+ * else with the original, which stays valid, so readers of an old version never need to coordinate with writers.
+ * Operations that change nothing return the tree they were given. Equal elements, according to the comparator,
+ * are stored once.
+ * <p>
+ * The same comparator must be used for every operation on a tree; {@link OrderedTree} takes care of that.
+ */
+public sealed interface AvlTree<T> {
+
+    record Nil<T>() implements AvlTree<T> { }
+
+    record Node<T>(AvlTree<T> left, T val, AvlTree<T> right, int height) implements AvlTree<T> {
+
+        public Node {
+            if (isNull(left) || isNull(right)) {
+                throw new IllegalArgumentException("left and right must not be null");
+            }
+        }
+    }
+
+    static <T> Nil<T> nil() {
+        return new Nil<>();
+    }
+
+    static <T> Node<T> node(AvlTree<T> left, T val, AvlTree<T> right) {
+        return new Node<>(left, val, right, 1 + Math.max(height(left), height(right)));
+    }
+
+    static <T> int height(AvlTree<T> tree) {
+        return switch (tree) {
+            case Nil<T>() -> 0;
+            case Node<T> node -> node.height();
+        };
+    }
+
+    static <T> boolean contains(AvlTree<T> tree, T target, Comparator<? super T> comparator) {
+        var current = tree;
+        while (current instanceof Node<T>(var left, var val, var right, int ignored)) {
+            var c = comparator.compare(target, val);
+            if (c == 0) {
+                return true;
+            }
+            current = c < 0 ? left : right;
+        }
+        return false;
+    }
+
+    static <T> AvlTree<T> insert(AvlTree<T> tree, T value, Comparator<? super T> comparator) {
+        return switch (tree) {
+            case Nil<T>() -> node(tree, value, tree);
+            case Node<T>(var left, var val, var right, int ignored) -> {
+                var c = comparator.compare(value, val);
+                if (c == 0) {
+                    yield tree;
+                }
+                if (c < 0) {
+                    var newLeft = insert(left, value, comparator);
+                    yield newLeft == left ? tree : balance(newLeft, val, right);
+                }
+                var newRight = insert(right, value, comparator);
+                yield newRight == right ? tree : balance(left, val, newRight);
+            }
+        };
+    }
+
+    static <T> AvlTree<T> delete(AvlTree<T> tree, T value, Comparator<? super T> comparator) {
+        return switch (tree) {
+            case Nil<T>() -> tree;
+            case Node<T>(var left, var val, var right, int ignored) -> {
+                var c = comparator.compare(value, val);
+                if (c < 0) {
+                    var newLeft = delete(left, value, comparator);
+                    yield newLeft == left ? tree : balance(newLeft, val, right);
+                }
+                if (c > 0) {
+                    var newRight = delete(right, value, comparator);
+                    yield newRight == right ? tree : balance(left, val, newRight);
+                }
+                if (left instanceof Nil<T>) {
+                    yield right;
+                }
+                if (right instanceof Nil<T>) {
+                    yield left;
+                }
+                // replace the deleted element with its successor, the smallest element on the right
+                var successor = min(right);
+                yield balance(left, successor, deleteMin(right));
+            }
+        };
+    }
+
+    /**
+     * @throws NoSuchElementException if the tree is empty
+     */
+    static <T> T min(AvlTree<T> tree) {
+        var node = nonEmpty(tree);
+        while (node.left() instanceof Node<T> left) {
+            node = left;
+        }
+        return node.val();
+    }
+
+    /**
+     * @throws NoSuchElementException if the tree is empty
+     */
+    static <T> T max(AvlTree<T> tree) {
+        var node = nonEmpty(tree);
+        while (node.right() instanceof Node<T> right) {
+            node = right;
+        }
+        return node.val();
+    }
+
+    private static <T> Node<T> nonEmpty(AvlTree<T> tree) {
+        if (tree instanceof Node<T> node) {
+            return node;
+        }
+        throw new NoSuchElementException("tree is empty");
+    }
+
+    private static <T> AvlTree<T> deleteMin(AvlTree<T> tree) {
+        return switch (tree) {
+            case Nil<T>() -> tree;
+            case Node<T>(Nil<T> ignored, var ignoredVal, var right, int ignoredHeight) -> right;
+            case Node<T>(var left, var val, var right, int ignored) -> balance(deleteMin(left), val, right);
+        };
+    }
+
+    /**
+     * Build a node from subtrees whose heights differ by at most two, rotating to restore the AVL invariant.
+     */
+    static <T> AvlTree<T> balance(AvlTree<T> left, T val, AvlTree<T> right) {
+        var leftHeight = height(left);
+        var rightHeight = height(right);
+
+        if (leftHeight > rightHeight + 1) {
+            var l = (Node<T>) left;
+            if (height(l.left()) >= height(l.right())) {
+                return node(l.left(), l.val(), node(l.right(), val, right));
+            }
+            var lr = (Node<T>) l.right();
+            return node(node(l.left(), l.val(), lr.left()), lr.val(), node(lr.right(), val, right));
+        }
+
+        if (rightHeight > leftHeight + 1) {
+            var r = (Node<T>) right;
+            if (height(r.right()) >= height(r.left())) {
+                return node(node(left, val, r.left()), r.val(), r.right());
+            }
+            var rl = (Node<T>) r.left();
+            return node(node(left, val, rl.left()), rl.val(), node(rl.right(), r.val(), r.right()));
+        }
+
+        return node(left, val, right);
+    }
+
+    default void inorder(Consumer<T> c) {
+        inorder(this, c);
+    }
+
+    static <T> void inorder(AvlTree<T> tree, Consumer<T> c) {
+        switch (tree) {
+            case Nil():
+                break;
+
+            case Node(var left, var val, var right, int ignored):
+                inorder(left, c);
+                c.accept(val);
+                inorder(right, c);
+                break;
+        }
+    }
+
+    /**
+     * @return a {@link Tree} with the same shape and elements
+     */
+    static <T> Tree<T> toTree(AvlTree<T> tree) {
+        return switch (tree) {
+            case Nil<T>() -> Tree.nil();
+            case Node<T>(var left, var val, var right, int ignored) -> Tree.full(toTree(left), val, toTree(right));
+        };
+    }
+}
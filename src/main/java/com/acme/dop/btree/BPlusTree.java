@@ -0,0 +1,510 @@
+package com.acme.dop.btree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongConsumer;
+
+/**
+ * A persistent set of {@code long} keys in a B+tree stored in a local file, for key sets that do not fit in the
+ * heap.
+ * <p>
+ * The file is a sequence of fixed-size pages, read and written through memory mappings. Page 0 is the header
+ * (magic, version, page size, root page, page count, height and size). Every other page is a leaf, holding up to
+ * {@code (pageSize - 16) / 8} sorted keys and the number of the next leaf, or an internal node, holding up to
+ * {@code (pageSize - 20) / 12} separator keys and one more child page numbers, so a 4 KB page has a fanout of 340
+ * and a tree of a billion keys is four levels deep. A page starts with its type, its key count and, for leaves,
+ * the next leaf. All numbers are little-endian.
+ * <p>
+ * {@link #contains(long)} reads one page per level. {@link #inorder(LongConsumer)} and
+ * {@link #range(long, long, LongConsumer)} find the first leaf and then follow the links between leaves, reading
+ * each page once. Mapped pages are kept in a bounded cache that evicts the least recently used page; an evicted
+ * mapping is released when it is garbage collected. Forcing the channel does not write the changes made through a
+ * mapping, so the tree tracks the pages it writes, and forces a written page before it is evicted.
+ * <p>
+ * Writes become durable when the tree is {@linkplain #flush() flushed} or {@linkplain #close() closed}. A tree is
+ * not thread-safe, and a file must only be opened by one tree at a time. Failures to map a page during a query or
+ * insert are thrown as {@link UncheckedIOException}s.
+ */
+public final class BPlusTree implements Closeable {
+
+    static final int MAGIC = 0x42505452; // "BPTR"
+    static final int VERSION = 1;
+    static final int DEFAULT_PAGE_SIZE = 4096;
+    static final int DEFAULT_CACHED_PAGES = 1024;
+    static final int MIN_PAGE_SIZE = 64;
+    static final int MAX_PAGE_SIZE = 1 << 24;
+
+    static final int LEAF = 1;
+    static final int INTERNAL = 2;
+
+    // file header, in page 0
+    private static final int PAGE_SIZE_AT = 8;
+    private static final int ROOT_AT = 12;
+    private static final int PAGE_COUNT_AT = 16;
+    private static final int HEIGHT_AT = 20;
+    private static final int SIZE_AT = 24;
+    private static final int FILE_HEADER_SIZE = 32;
+
+    // page header
+    private static final int TYPE_AT = 0;
+    private static final int COUNT_AT = 4;
+    private static final int NEXT_AT = 8;
+    private static final int PAGE_HEADER_SIZE = 16;
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int leafCapacity;
+    private final int internalCapacity;
+    private final Map<Integer, MappedByteBuffer> cache;
+
+    private int root;
+    private int pageCount;
+    private int height;
+    private long size;
+    private long pageMisses;
+    // the pages written since they were last forced, which must be forced before they are evicted
+    private final BitSet dirty = new BitSet();
+
+    // the separator key of the page split off by the last call of insert(int, int, long)
+    private long splitKey;
+    private boolean added;
+
+    private BPlusTree(FileChannel channel, int pageSize, int cachedPages) {
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.leafCapacity = (pageSize - PAGE_HEADER_SIZE) / Long.BYTES;
+        this.internalCapacity = (pageSize - PAGE_HEADER_SIZE - Integer.BYTES) / (Long.BYTES + Integer.BYTES);
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, MappedByteBuffer> eldest) {
+                if (size() <= cachedPages) {
+                    return false;
+                }
+                if (dirty.get(eldest.getKey())) {
+                    eldest.getValue().force();
+                    dirty.clear(eldest.getKey());
+                }
+                return true;
+            }
+        };
+    }
+
+    /**
+     * Open the tree in a file, creating it with 4 KB pages if the file does not exist or is empty.
+     *
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the file is not a B+tree
+     */
+    public static BPlusTree open(Path path) throws IOException {
+        return open(path, DEFAULT_PAGE_SIZE, DEFAULT_CACHED_PAGES);
+    }
+
+    /**
+     * Open the tree in a file, creating it if the file does not exist or is empty.
+     *
+     * @param pageSize the size of the pages of a new file, a multiple of 8 from 64 bytes to 16 MB; existing files
+     *        keep the page size they were created with
+     * @param cachedPages how many mapped pages to keep
+     * @throws IOException if the file cannot be opened
+     * @throws IllegalArgumentException if the file is not a B+tree
+     */
+    public static BPlusTree open(Path path, int pageSize, int cachedPages) throws IOException {
+        if (!isValidPageSize(pageSize)) {
+            throw new IllegalArgumentException("page size must be a multiple of 8 from 64 to 16 MB: " + pageSize);
+        }
+        if (cachedPages < 1) {
+            throw new IllegalArgumentException("at least one page must be cached: " + cachedPages);
+        }
+
+        var channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            if (channel.size() == 0) {
+                return create(channel, pageSize, cachedPages);
+            }
+            return load(channel, cachedPages);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static BPlusTree create(FileChannel channel, int pageSize, int cachedPages) {
+        var tree = new BPlusTree(channel, pageSize, cachedPages);
+        tree.pageCount = 1;
+        tree.root = tree.allocate(LEAF);
+        tree.height = 1;
+        tree.writablePage(0).putInt(0, MAGIC).putInt(4, VERSION).putInt(PAGE_SIZE_AT, pageSize);
+        tree.writeHeader();
+        return tree;
+    }
+
+    private static BPlusTree load(FileChannel channel, int cachedPages) throws IOException {
+        var header = ByteBuffer.allocate(FILE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(header, 0);
+        if (header.position() < FILE_HEADER_SIZE || header.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a B+tree file");
+        }
+        if (header.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("unsupported B+tree version " + header.getInt(4));
+        }
+        var pageSize = header.getInt(PAGE_SIZE_AT);
+        if (!isValidPageSize(pageSize)) {
+            throw new IllegalArgumentException("corrupt B+tree header");
+        }
+        var tree = new BPlusTree(channel, pageSize, cachedPages);
+        tree.root = header.getInt(ROOT_AT);
+        tree.pageCount = header.getInt(PAGE_COUNT_AT);
+        tree.height = header.getInt(HEIGHT_AT);
+        tree.size = header.getLong(SIZE_AT);
+        if (tree.root <= 0 || tree.root >= tree.pageCount || tree.height < 1
+                || channel.size() < (long) tree.pageCount * pageSize) {
+            throw new IllegalArgumentException("corrupt B+tree header");
+        }
+        return tree;
+    }
+
+    private static boolean isValidPageSize(int pageSize) {
+        return pageSize >= MIN_PAGE_SIZE && pageSize <= MAX_PAGE_SIZE && pageSize % Long.BYTES == 0;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int height() {
+        return height;
+    }
+
+    /**
+     * @return the maximum number of children of an internal page
+     */
+    public int fanout() {
+        return internalCapacity + 1;
+    }
+
+    public boolean contains(long key) {
+        var leaf = page(leafFor(key));
+        return search(leaf, leaf.getInt(COUNT_AT), key) >= 0;
+    }
+
+    /**
+     * @return {@code true} if the key was added, {@code false} if the tree already contained it
+     */
+    public boolean insert(long key) {
+        added = false;
+        var newPage = insert(root, height, key);
+        if (newPage != 0) {
+            var newRoot = allocate(INTERNAL);
+            writablePage(newRoot)
+                    .putInt(COUNT_AT, 1)
+                    .putLong(PAGE_HEADER_SIZE, splitKey)
+                    .putInt(childAt(0), root)
+                    .putInt(childAt(1), newPage);
+            root = newRoot;
+            height++;
+        }
+        if (added) {
+            size++;
+            writeHeader();
+        }
+        return added;
+    }
+
+    /**
+     * Visit the keys in ascending order.
+     */
+    public void inorder(LongConsumer c) {
+        range(Long.MIN_VALUE, c, false, 0);
+    }
+
+    /**
+     * Visit the keys from {@code from}, inclusive, to {@code to}, exclusive, in ascending order.
+     */
+    public void range(long from, long to, LongConsumer c) {
+        range(from, c, true, to);
+    }
+
+    /**
+     * Write all changes to the storage device.
+     *
+     * @throws IOException if the file cannot be written
+     */
+    public void flush() throws IOException {
+        checkOpen();
+        // every dirty page is cached, as evicted pages are forced
+        for (var pageNumber = dirty.nextSetBit(0); pageNumber >= 0; pageNumber = dirty.nextSetBit(pageNumber + 1)) {
+            cache.get(pageNumber).force();
+        }
+        dirty.clear();
+        channel.force(false);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel.isOpen()) {
+            try {
+                flush();
+            } finally {
+                cache.clear();
+                channel.close();
+            }
+        }
+    }
+
+    int pageCount() {
+        return pageCount;
+    }
+
+    long pageMisses() {
+        return pageMisses;
+    }
+
+    int cachedPages() {
+        return cache.size();
+    }
+
+    private void range(long from, LongConsumer c, boolean bounded, long to) {
+        var leaf = page(leafFor(from));
+        var count = leaf.getInt(COUNT_AT);
+        var i = search(leaf, count, from);
+        i = i < 0 ? -i - 1 : i;
+        while (true) {
+            for (; i < count; i++) {
+                var key = leaf.getLong(keyAt(i));
+                if (bounded && key >= to) {
+                    return;
+                }
+                c.accept(key);
+            }
+            var next = leaf.getInt(NEXT_AT);
+            if (next == 0) {
+                return;
+            }
+            leaf = page(next);
+            count = leaf.getInt(COUNT_AT);
+            i = 0;
+        }
+    }
+
+    private int leafFor(long key) {
+        var pageNumber = root;
+        for (var level = height; level > 1; level--) {
+            var page = page(pageNumber);
+            pageNumber = page.getInt(childAt(upperBound(page, page.getInt(COUNT_AT), key)));
+        }
+        return pageNumber;
+    }
+
+    /**
+     * Insert the key below the given page.
+     *
+     * @return the number of a new page split off to the right of the given one, whose separator key is left in
+     *         {@link #splitKey}, or 0 if the page was not split
+     */
+    private int insert(int pageNumber, int level, long key) {
+        var page = page(pageNumber);
+        var count = page.getInt(COUNT_AT);
+        if (level == 1) {
+            var i = search(page, count, key);
+            if (i >= 0) {
+                return 0;
+            }
+            added = true;
+            return insertIntoLeaf(pageNumber, count, -i - 1, key);
+        }
+
+        var i = upperBound(page, count, key);
+        var newChild = insert(page.getInt(childAt(i)), level - 1, key);
+        if (newChild == 0) {
+            return 0;
+        }
+        return insertIntoInternal(pageNumber, count, i, splitKey, newChild);
+    }
+
+    // Mapping a page may evict and force another, so a buffer is only written until the next page is mapped:
+    // writes to an evicted mapping would never be forced. The split pages are written one after the other.
+
+    private int insertIntoLeaf(int pageNumber, int count, int i, long key) {
+        var page = writablePage(pageNumber);
+        if (count < leafCapacity) {
+            for (var j = count; j > i; j--) {
+                page.putLong(keyAt(j), page.getLong(keyAt(j - 1)));
+            }
+            page.putLong(keyAt(i), key).putInt(COUNT_AT, count + 1);
+            return 0;
+        }
+
+        var keys = new long[count + 1];
+        for (var j = 0; j < count; j++) {
+            keys[j < i ? j : j + 1] = page.getLong(keyAt(j));
+        }
+        keys[i] = key;
+        // appending to the last leaf, as when loading sorted keys, leaves it full instead of half empty
+        var next = page.getInt(NEXT_AT);
+        var leftCount = i == count && next == 0 ? count : keys.length / 2;
+
+        var rightNumber = allocate(LEAF);
+        var right = writablePage(rightNumber);
+        for (var j = leftCount; j < keys.length; j++) {
+            right.putLong(keyAt(j - leftCount), keys[j]);
+        }
+        right.putInt(COUNT_AT, keys.length - leftCount).putInt(NEXT_AT, next);
+        page = writablePage(pageNumber);
+        for (var j = 0; j < leftCount; j++) {
+            page.putLong(keyAt(j), keys[j]);
+        }
+        page.putInt(COUNT_AT, leftCount).putInt(NEXT_AT, rightNumber);
+
+        splitKey = keys[leftCount];
+        return rightNumber;
+    }
+
+    private int insertIntoInternal(int pageNumber, int count, int i, long key, int child) {
+        var page = writablePage(pageNumber);
+        if (count < internalCapacity) {
+            for (var j = count; j > i; j--) {
+                page.putLong(keyAt(j), page.getLong(keyAt(j - 1)));
+                page.putInt(childAt(j + 1), page.getInt(childAt(j)));
+            }
+            page.putLong(keyAt(i), key).putInt(childAt(i + 1), child).putInt(COUNT_AT, count + 1);
+            return 0;
+        }
+
+        var keys = new long[count + 1];
+        var children = new int[count + 2];
+        for (var j = 0; j < count; j++) {
+            keys[j < i ? j : j + 1] = page.getLong(keyAt(j));
+        }
+        for (var j = 0; j <= count; j++) {
+            children[j <= i ? j : j + 1] = page.getInt(childAt(j));
+        }
+        keys[i] = key;
+        children[i + 1] = child;
+
+        // the middle key moves up to the parent
+        var middle = keys.length / 2;
+        var rightNumber = allocate(INTERNAL);
+        var right = writablePage(rightNumber);
+        for (var j = middle + 1; j < keys.length; j++) {
+            right.putLong(keyAt(j - middle - 1), keys[j]);
+        }
+        for (var j = middle + 1; j < children.length; j++) {
+            right.putInt(childAt(j - middle - 1), children[j]);
+        }
+        right.putInt(COUNT_AT, keys.length - middle - 1);
+        page = writablePage(pageNumber);
+        for (var j = 0; j < middle; j++) {
+            page.putLong(keyAt(j), keys[j]);
+        }
+        for (var j = 0; j <= middle; j++) {
+            page.putInt(childAt(j), children[j]);
+        }
+        page.putInt(COUNT_AT, middle);
+
+        splitKey = keys[middle];
+        return rightNumber;
+    }
+
+    /**
+     * @return the index of the key, or {@code -(insertion point) - 1} if the page does not contain it
+     */
+    private static int search(ByteBuffer page, int count, long key) {
+        var low = 0;
+        var high = count - 1;
+        while (low <= high) {
+            var mid = (low + high) >>> 1;
+            var midKey = page.getLong(keyAt(mid));
+            if (midKey < key) {
+                low = mid + 1;
+            } else if (midKey > key) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * @return the index of the first separator greater than the key, which is the index of the child to follow
+     */
+    private static int upperBound(ByteBuffer page, int count, long key) {
+        var low = 0;
+        var high = count;
+        while (low < high) {
+            var mid = (low + high) >>> 1;
+            if (page.getLong(keyAt(mid)) <= key) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int keyAt(int index) {
+        return PAGE_HEADER_SIZE + index * Long.BYTES;
+    }
+
+    private int childAt(int index) {
+        return PAGE_HEADER_SIZE + internalCapacity * Long.BYTES + index * Integer.BYTES;
+    }
+
+    private int allocate(int type) {
+        var pageNumber = pageCount++;
+        // mapping beyond the end of the file grows it, and the new page reads as zeros
+        writablePage(pageNumber).putInt(TYPE_AT, type).putInt(COUNT_AT, 0).putInt(NEXT_AT, 0);
+        return pageNumber;
+    }
+
+    private void writeHeader() {
+        writablePage(0)
+                .putInt(ROOT_AT, root)
+                .putInt(PAGE_COUNT_AT, pageCount)
+                .putInt(HEIGHT_AT, height)
+                .putLong(SIZE_AT, size);
+    }
+
+    private MappedByteBuffer writablePage(int pageNumber) {
+        var page = page(pageNumber);
+        dirty.set(pageNumber);
+        return page;
+    }
+
+    private MappedByteBuffer page(int pageNumber) {
+        var page = cache.get(pageNumber);
+        if (page == null) {
+            checkOpen();
+            try {
+                page = channel.map(FileChannel.MapMode.READ_WRITE, (long) pageNumber * pageSize, pageSize);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            page.order(ByteOrder.LITTLE_ENDIAN);
+            cache.put(pageNumber, page);
+            pageMisses++;
+        }
+        return page;
+    }
+
+    private void checkOpen() {
+        if (!channel.isOpen()) {
+            throw new IllegalStateException("tree is closed");
+        }
+    }
+}
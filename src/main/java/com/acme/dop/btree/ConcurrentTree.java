@@ -0,0 +1,154 @@
+package com.acme.dop.btree;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
+
+/**
+ * A sorted set shared by many threads without locks: the current {@link OrderedTree} is published in an atomic
+ * reference, and writers replace it with a compare-and-set.
+ * <p>
+ * Readers take a {@linkplain #snapshot() snapshot}, a single volatile read, so {@link #contains(Object)} and
+ * {@link #inorder(Consumer)} are wait-free and see one consistent version of the tree however long they take,
+ * while writers carry on.
+ * <p>
+ * A writer that finds no pending updates applies its own and publishes it directly. Otherwise, or if that fails,
+ * writers batch their updates. Each update is first pushed onto a list of pending updates; then the writer applies
+ * all pending updates, its own and those of other writers, in the order they were pushed, and publishes the result
+ * together with an empty list in one compare-and-set. If that fails, because another writer published first or
+ * pushed another update, it retries unless its update has been published in the meantime. Under contention one
+ * successful compare-and-set thus publishes many updates, instead of every writer retrying its own, and some writer
+ * always succeeds, so updates are lock-free.
+ * <p>
+ * Because any writer may apply any pending update, possibly more than once, functions passed to
+ * {@link #update(UnaryOperator)} must be free of side effects and must not throw.
+ */
+public final class ConcurrentTree<T> {
+
+    private record Pending<T>(UnaryOperator<OrderedTree<T>> update, Pending<T> next, long sequence) { }
+
+    // updates up to and including sequence number applied are in the tree; the pending ones follow them
+    private record State<T>(OrderedTree<T> tree, Pending<T> pending, long applied) {
+
+        long last() {
+            return pending == null ? applied : pending.sequence();
+        }
+    }
+
+    private final AtomicReference<State<T>> state;
+
+    private ConcurrentTree(OrderedTree<T> tree) {
+        this.state = new AtomicReference<>(new State<>(tree, null, 0));
+    }
+
+    public static <T extends Comparable<? super T>> ConcurrentTree<T> empty() {
+        return of(OrderedTree.<T>empty());
+    }
+
+    public static <T> ConcurrentTree<T> empty(Comparator<? super T> comparator) {
+        return of(OrderedTree.empty(comparator));
+    }
+
+    public static <T> ConcurrentTree<T> of(OrderedTree<T> tree) {
+        return new ConcurrentTree<>(requireNonNull(tree));
+    }
+
+    /**
+     * @return the current version of the tree, which never changes
+     */
+    public OrderedTree<T> snapshot() {
+        return state.get().tree();
+    }
+
+    public boolean contains(T target) {
+        return snapshot().contains(target);
+    }
+
+    /**
+     * Visit the elements of the current version in ascending order.
+     */
+    public void inorder(Consumer<T> c) {
+        snapshot().inorder(c);
+    }
+
+    public int size() {
+        return snapshot().size();
+    }
+
+    /**
+     * @return a version of the tree that contains the value
+     */
+    public OrderedTree<T> insert(T value) {
+        requireNonNull(value);
+        return update(tree -> tree.insert(value));
+    }
+
+    /**
+     * @return a version of the tree that does not contain the value
+     */
+    public OrderedTree<T> delete(T value) {
+        requireNonNull(value);
+        return update(tree -> tree.delete(value));
+    }
+
+    /**
+     * Apply a function to the tree, after all updates that were started before.
+     *
+     * @param update a function without side effects that does not throw
+     * @return the version in which the update was published, which may include later updates
+     */
+    public OrderedTree<T> update(UnaryOperator<OrderedTree<T>> update) {
+        requireNonNull(update);
+
+        // without contention, publish directly instead of going through the pending list
+        var initial = state.get();
+        if (initial.pending() == null) {
+            var tree = update.apply(initial.tree());
+            if (state.compareAndSet(initial, new State<>(tree, null, initial.applied() + 1))) {
+                return tree;
+            }
+        }
+
+        long sequence;
+        while (true) {
+            var current = state.get();
+            sequence = current.last() + 1;
+            var pending = new Pending<>(update, current.pending(), sequence);
+            if (state.compareAndSet(current, new State<>(current.tree(), pending, current.applied()))) {
+                break;
+            }
+        }
+
+        while (true) {
+            var current = state.get();
+            if (current.applied() >= sequence) {
+                return current.tree();
+            }
+            // the update is still pending, so the list is not empty
+            var tree = apply(current.tree(), current.pending());
+            if (state.compareAndSet(current, new State<>(tree, null, current.last()))) {
+                return tree;
+            }
+        }
+    }
+
+    private static <T> OrderedTree<T> apply(OrderedTree<T> tree, Pending<T> pending) {
+        if (pending.next() == null) {
+            return pending.update().apply(tree);
+        }
+        // the list is newest first
+        var updates = new ArrayList<UnaryOperator<OrderedTree<T>>>();
+        for (var p = pending; p != null; p = p.next()) {
+            updates.add(p.update());
+        }
+        var result = tree;
+        for (var i = updates.size() - 1; i >= 0; i--) {
+            result = updates.get(i).apply(result);
+        }
+        return result;
+    }
+}
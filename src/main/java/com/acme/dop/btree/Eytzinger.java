@@ -0,0 +1,118 @@
+package com.acme.dop.btree;
+
+/**
+ * The Eytzinger layout of a sorted array: a complete binary search tree stored breadth first, with the root at
+ * index 1 and the children of index {@code k} at {@code 2k} and {@code 2k + 1}. Index 0 is unused.
+ * <p>
+ * A search reads the first few levels from the same cache lines every time, and the only data-dependent choice in
+ * its loop, going left or right, is an addition rather than a branch, so it does not stall on mispredictions.
+ * Every search runs the same number of iterations for a given size.
+ */
+final class Eytzinger {
+
+    /**
+     * The largest number of elements, so that child indexes cannot overflow an {@code int}.
+     */
+    static final int MAX_SIZE = (1 << 30) - 1;
+
+    private Eytzinger() {
+    }
+
+    static int[] layout(int[] sorted) {
+        checkSize(sorted.length);
+        var keys = new int[sorted.length + 1];
+        fill(sorted, keys, 0, 1);
+        return keys;
+    }
+
+    static long[] layout(long[] sorted) {
+        checkSize(sorted.length);
+        var keys = new long[sorted.length + 1];
+        fill(sorted, keys, 0, 1);
+        return keys;
+    }
+
+    /**
+     * @return the index of the smallest key that is not less than the given one, or 0 if there is none
+     */
+    static int lowerBound(int[] keys, int key) {
+        var k = 1;
+        while (k < keys.length) {
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        return lastLeftTurn(k);
+    }
+
+    /**
+     * @return the index of the smallest key that is not less than the given one, or 0 if there is none
+     */
+    static int lowerBound(long[] keys, long key) {
+        var k = 1;
+        while (k < keys.length) {
+            k = 2 * k + (keys[k] < key ? 1 : 0);
+        }
+        return lastLeftTurn(k);
+    }
+
+    static int[] sorted(int[] keys) {
+        var sorted = new int[keys.length - 1];
+        collect(keys, sorted, 0, 1);
+        return sorted;
+    }
+
+    static long[] sorted(long[] keys) {
+        var sorted = new long[keys.length - 1];
+        collect(keys, sorted, 0, 1);
+        return sorted;
+    }
+
+    private static void checkSize(int size) {
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("at most " + MAX_SIZE + " elements can be frozen, got " + size);
+        }
+    }
+
+    // The search went right at every 1 bit in k and left at every 0; it stopped below the last node at which it
+    // went left, which is the answer. Shifting out the trailing 1 bits and that 0 bit leaves its index.
+    private static int lastLeftTurn(int k) {
+        return k >>> (Integer.numberOfTrailingZeros(~k) + 1);
+    }
+
+    // The recursion follows the implicit tree, so it is only log2(n) deep.
+
+    private static int fill(int[] sorted, int[] keys, int i, int k) {
+        if (k < keys.length) {
+            i = fill(sorted, keys, i, 2 * k);
+            keys[k] = sorted[i++];
+            i = fill(sorted, keys, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    private static int fill(long[] sorted, long[] keys, int i, int k) {
+        if (k < keys.length) {
+            i = fill(sorted, keys, i, 2 * k);
+            keys[k] = sorted[i++];
+            i = fill(sorted, keys, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    private static int collect(int[] keys, int[] sorted, int i, int k) {
+        if (k < keys.length) {
+            i = collect(keys, sorted, i, 2 * k);
+            sorted[i++] = keys[k];
+            i = collect(keys, sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+
+    private static int collect(long[] keys, long[] sorted, int i, int k) {
+        if (k < keys.length) {
+            i = collect(keys, sorted, i, 2 * k);
+            sorted[i++] = keys[k];
+            i = collect(keys, sorted, i, 2 * k + 1);
+        }
+        return i;
+    }
+}
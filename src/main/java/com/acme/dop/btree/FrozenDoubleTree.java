@@ -0,0 +1,79 @@
+package com.acme.dop.btree;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of {@code double}s for tables that are built once and then searched many times.
+ * <p>
+ * The values are stored as {@code long} keys in {@link Eytzinger} order, like a {@link FrozenLongTree}. The keys
+ * are the bits of the values, rearranged so that comparing keys orders the values as {@link Double#compare} does,
+ * so, as with {@link Tree#contains(Object)} on boxed values, {@code -0.0} and {@code 0.0} are different elements
+ * and {@code NaN} is found. {@link #toTree()} turns the set back into a balanced {@link Tree}.
+ */
+public final class FrozenDoubleTree {
+
+    private static final FrozenDoubleTree EMPTY = new FrozenDoubleTree(new long[1]);
+
+    private final long[] keys;
+
+    private FrozenDoubleTree(long[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Freeze the elements of a tree, in any order and of any depth. Duplicates are stored once.
+     *
+     * @throws NullPointerException if the tree contains {@code null}
+     */
+    public static FrozenDoubleTree freeze(Tree<Double> tree) {
+        return of(tree.stream().mapToDouble(Double::doubleValue).toArray());
+    }
+
+    public static FrozenDoubleTree of(double... values) {
+        var sorted = Arrays.stream(values).mapToLong(FrozenDoubleTree::key).sorted().distinct().toArray();
+        return sorted.length == 0 ? EMPTY : new FrozenDoubleTree(Eytzinger.layout(sorted));
+    }
+
+    public int size() {
+        return keys.length - 1;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 1;
+    }
+
+    public boolean contains(double value) {
+        var key = key(value);
+        var k = Eytzinger.lowerBound(keys, key);
+        return k != 0 && keys[k] == key;
+    }
+
+    /**
+     * @return the elements in ascending order
+     */
+    public double[] toArray() {
+        return Arrays.stream(Eytzinger.sorted(keys)).mapToDouble(FrozenDoubleTree::value).toArray();
+    }
+
+    /**
+     * @return a balanced binary search tree of the elements, which it visits in ascending order
+     */
+    public Tree<Double> toTree() {
+        return toTree(1);
+    }
+
+    private Tree<Double> toTree(int k) {
+        return k < keys.length ? Tree.full(toTree(2 * k), value(keys[k]), toTree(2 * k + 1)) : Tree.nil();
+    }
+
+    // Negative values have the sign bit set and would otherwise sort in reverse, so flip their other bits.
+    // doubleToLongBits maps every NaN to the same bits, which sort above positive infinity.
+    private static long key(double value) {
+        var bits = Double.doubleToLongBits(value);
+        return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+    }
+
+    private static double value(long key) {
+        return Double.longBitsToDouble(key ^ ((key >> 63) & Long.MAX_VALUE));
+    }
+}
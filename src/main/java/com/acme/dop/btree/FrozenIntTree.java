@@ -0,0 +1,66 @@
+package com.acme.dop.btree;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of {@code int}s for tables that are built once and then searched many times.
+ * <p>
+ * The values are unboxed and stored in a single array in {@link Eytzinger} order, so a lookup touches no object
+ * headers or pointers and finds the first levels of the tree in cache. {@link #toTree()} turns the set back into a
+ * balanced {@link Tree}, e.g., to use code written against {@code Tree}.
+ */
+public final class FrozenIntTree {
+
+    private static final FrozenIntTree EMPTY = new FrozenIntTree(new int[1]);
+
+    private final int[] keys;
+
+    private FrozenIntTree(int[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Freeze the elements of a tree, in any order and of any depth. Duplicates are stored once.
+     *
+     * @throws NullPointerException if the tree contains {@code null}
+     */
+    public static FrozenIntTree freeze(Tree<Integer> tree) {
+        return of(tree.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    public static FrozenIntTree of(int... values) {
+        var sorted = Arrays.stream(values).sorted().distinct().toArray();
+        return sorted.length == 0 ? EMPTY : new FrozenIntTree(Eytzinger.layout(sorted));
+    }
+
+    public int size() {
+        return keys.length - 1;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 1;
+    }
+
+    public boolean contains(int value) {
+        var k = Eytzinger.lowerBound(keys, value);
+        return k != 0 && keys[k] == value;
+    }
+
+    /**
+     * @return the elements in ascending order
+     */
+    public int[] toArray() {
+        return Eytzinger.sorted(keys);
+    }
+
+    /**
+     * @return a balanced binary search tree of the elements, which it visits in ascending order
+     */
+    public Tree<Integer> toTree() {
+        return toTree(1);
+    }
+
+    private Tree<Integer> toTree(int k) {
+        return k < keys.length ? Tree.full(toTree(2 * k), keys[k], toTree(2 * k + 1)) : Tree.nil();
+    }
+}
@@ -0,0 +1,66 @@
+package com.acme.dop.btree;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of {@code long}s for tables that are built once and then searched many times.
+ * <p>
+ * The values are unboxed and stored in a single array in {@link Eytzinger} order, so a lookup touches no object
+ * headers or pointers and finds the first levels of the tree in cache. {@link #toTree()} turns the set back into a
+ * balanced {@link Tree}, e.g., to use code written against {@code Tree}.
+ */
+public final class FrozenLongTree {
+
+    private static final FrozenLongTree EMPTY = new FrozenLongTree(new long[1]);
+
+    private final long[] keys;
+
+    private FrozenLongTree(long[] keys) {
+        this.keys = keys;
+    }
+
+    /**
+     * Freeze the elements of a tree, in any order and of any depth. Duplicates are stored once.
+     *
+     * @throws NullPointerException if the tree contains {@code null}
+     */
+    public static FrozenLongTree freeze(Tree<Long> tree) {
+        return of(tree.stream().mapToLong(Long::longValue).toArray());
+    }
+
+    public static FrozenLongTree of(long... values) {
+        var sorted = Arrays.stream(values).sorted().distinct().toArray();
+        return sorted.length == 0 ? EMPTY : new FrozenLongTree(Eytzinger.layout(sorted));
+    }
+
+    public int size() {
+        return keys.length - 1;
+    }
+
+    public boolean isEmpty() {
+        return keys.length == 1;
+    }
+
+    public boolean contains(long value) {
+        var k = Eytzinger.lowerBound(keys, value);
+        return k != 0 && keys[k] == value;
+    }
+
+    /**
+     * @return the elements in ascending order
+     */
+    public long[] toArray() {
+        return Eytzinger.sorted(keys);
+    }
+
+    /**
+     * @return a balanced binary search tree of the elements, which it visits in ascending order
+     */
+    public Tree<Long> toTree() {
+        return toTree(1);
+    }
+
+    private Tree<Long> toTree(int k) {
+        return k < keys.length ? Tree.full(toTree(2 * k), keys[k], toTree(2 * k + 1)) : Tree.nil();
+    }
+}
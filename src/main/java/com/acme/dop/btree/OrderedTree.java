@@ -0,0 +1,189 @@
+package com.acme.dop.btree;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.function.Consumer;
+
+/**
+ * An immutable sorted set backed by a persistent {@link AvlTree}, pairing the tree with the {@link Comparator}
+ * that orders it.
+ * <p>
+ * Unlike {@link Tree#contains(Object)}, which searches every node, {@link #contains(Object)} follows a single path,
+ * and {@link #insert(Object)} and {@link #delete(Object)} return new versions that share all but O(log n) nodes
+ * with this one. Every version stays valid, so an {@code OrderedTree} can be published to concurrent readers
+ * without locking.
+ * <p>
+ * {@link #fromSorted(Collection, Comparator)} builds a tree in linear time, and {@link #union(OrderedTree)},
+ * {@link #intersection(OrderedTree)} and {@link #difference(OrderedTree)} combine whole trees by splitting and
+ * joining them, in parallel for large trees, rather than element by element.
+ */
+public final class OrderedTree<T> {
+
+    private final Comparator<? super T> comparator;
+    private final AvlTree<T> root;
+    private final int size;
+
+    private OrderedTree(Comparator<? super T> comparator, AvlTree<T> root, int size) {
+        this.comparator = comparator;
+        this.root = root;
+        this.size = size;
+    }
+
+    public static <T extends Comparable<? super T>> OrderedTree<T> empty() {
+        return empty(Comparator.naturalOrder());
+    }
+
+    public static <T> OrderedTree<T> empty(Comparator<? super T> comparator) {
+        return new OrderedTree<>(requireNonNull(comparator), AvlTree.nil(), 0);
+    }
+
+    /**
+     * Collect the elements of any {@link Tree}, in any order and of any depth, into an ordered tree.
+     */
+    public static <T> OrderedTree<T> from(Tree<T> tree, Comparator<? super T> comparator) {
+        requireNonNull(comparator);
+        var values = new ArrayList<T>();
+        new TreeWalker<T>().inorder(tree, values::add);
+        // the sort is stable, so of equal elements the first one is kept, as if they were inserted in turn
+        values.sort(comparator);
+        var distinct = new ArrayList<T>(values.size());
+        for (var value : values) {
+            if (distinct.isEmpty() || comparator.compare(distinct.getLast(), value) != 0) {
+                distinct.add(requireNonNull(value));
+            }
+        }
+        return new OrderedTree<>(comparator, AvlSets.build(distinct.iterator(), distinct.size()), distinct.size());
+    }
+
+    /**
+     * Build a balanced tree from elements that are already in strictly ascending order in linear time.
+     *
+     * @throws IllegalArgumentException if the elements are not in strictly ascending order
+     */
+    public static <T> OrderedTree<T> fromSorted(Collection<? extends T> sorted, Comparator<? super T> comparator) {
+        requireNonNull(comparator);
+        T previous = null;
+        for (T value : sorted) {
+            if (previous != null && comparator.compare(previous, requireNonNull(value)) >= 0) {
+                throw new IllegalArgumentException("elements are not in strictly ascending order: " + previous
+                        + " is followed by " + value);
+            }
+            previous = requireNonNull(value);
+        }
+        return new OrderedTree<>(comparator, AvlSets.build(sorted.iterator(), sorted.size()), sorted.size());
+    }
+
+    public Comparator<? super T> comparator() {
+        return comparator;
+    }
+
+    public AvlTree<T> root() {
+        return root;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return root instanceof AvlTree.Nil<T>;
+    }
+
+    public int height() {
+        return AvlTree.height(root);
+    }
+
+    public boolean contains(T target) {
+        return AvlTree.contains(root, target, comparator);
+    }
+
+    /**
+     * @return a tree that also contains the value, or this tree if it already contains an equal value
+     */
+    public OrderedTree<T> insert(T value) {
+        requireNonNull(value);
+        var newRoot = AvlTree.insert(root, value, comparator);
+        if (newRoot == root) {
+            return this;
+        }
+        return new OrderedTree<>(comparator, newRoot, size + 1);
+    }
+
+    /**
+     * @return a tree without the value, or this tree if it does not contain it
+     */
+    public OrderedTree<T> delete(T value) {
+        var newRoot = AvlTree.delete(root, value, comparator);
+        if (newRoot == root) {
+            return this;
+        }
+        return new OrderedTree<>(comparator, newRoot, size - 1);
+    }
+
+    /**
+     * @return a tree of the elements of both trees, keeping those of this tree where the two have equal elements
+     * @throws IllegalArgumentException if the trees are ordered by different comparators
+     */
+    public OrderedTree<T> union(OrderedTree<T> other) {
+        var union = AvlSets.union(root, sameOrder(other).root, comparator);
+        return union.tree() == root ? this
+                : new OrderedTree<>(comparator, union.tree(), size + other.size - union.common());
+    }
+
+    /**
+     * @return a tree of the elements of this tree that are also in the other
+     * @throws IllegalArgumentException if the trees are ordered by different comparators
+     */
+    public OrderedTree<T> intersection(OrderedTree<T> other) {
+        var intersection = AvlSets.intersection(root, sameOrder(other).root, comparator);
+        return new OrderedTree<>(comparator, intersection.tree(), intersection.common());
+    }
+
+    /**
+     * @return a tree of the elements of this tree that are not in the other
+     * @throws IllegalArgumentException if the trees are ordered by different comparators
+     */
+    public OrderedTree<T> difference(OrderedTree<T> other) {
+        var difference = AvlSets.difference(root, sameOrder(other).root, comparator);
+        return difference.tree() == root ? this
+                : new OrderedTree<>(comparator, difference.tree(), size - difference.common());
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public T min() {
+        return AvlTree.min(root);
+    }
+
+    /**
+     * @throws java.util.NoSuchElementException if the tree is empty
+     */
+    public T max() {
+        return AvlTree.max(root);
+    }
+
+    /**
+     * Visit the elements in ascending order.
+     */
+    public void inorder(Consumer<T> c) {
+        AvlTree.inorder(root, c);
+    }
+
+    /**
+     * @return a {@link Tree} with the same shape and elements, e.g., to use code written against {@code Tree}
+     */
+    public Tree<T> toTree() {
+        return AvlTree.toTree(root);
+    }
+
+    private OrderedTree<T> sameOrder(OrderedTree<T> other) {
+        if (!comparator.equals(other.comparator)) {
+            throw new IllegalArgumentException("trees must be ordered by the same comparator");
+        }
+        return other;
+    }
+}
@@ -2,9 +2,15 @@ package com.acme.dop.btree;
 
 import static java.util.Objects.isNull;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Spliterator;
 import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public sealed interface Tree<T> {
+public sealed interface Tree<T> extends Iterable<T> {
 
     record Nil<T>() implements Tree<T> { }
 
@@ -37,6 +43,43 @@ public sealed interface Tree<T> {
         return new Node<>(left, val, right);
     }
 
+    /**
+     * Build a balanced tree that visits the values in the order of the collection, in linear time. A sorted
+     * collection therefore gives a balanced binary search tree.
+     */
+    static <T> Tree<T> balanced(Collection<? extends T> values) {
+        return balanced(values.iterator(), values.size());
+    }
+
+    /**
+     * Build a balanced tree that visits the values in the order of the iterator, in linear time.
+     */
+    static <T> Tree<T> balanced(Iterator<? extends T> values) {
+        var list = new ArrayList<T>();
+        values.forEachRemaining(list::add);
+        return balanced(list);
+    }
+
+    /**
+     * Build a balanced tree of the next {@code size} values of the iterator, which it visits in the same order,
+     * in linear time and without buffering them. The subtrees of every node differ in size by at most one.
+     *
+     * @throws java.util.NoSuchElementException if the iterator has fewer than {@code size} values
+     */
+    static <T> Tree<T> balanced(Iterator<? extends T> values, int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("size must not be negative: " + size);
+        }
+        if (size == 0) {
+            return nil();
+        }
+        var leftSize = (size - 1) / 2;
+        Tree<T> left = balanced(values, leftSize);
+        T val = values.next();
+        Tree<T> right = balanced(values, size - 1 - leftSize);
+        return full(left, val, right);
+    }
+
     default boolean contains(T target) {
         return contains(this, target);
     }
@@ -65,4 +108,28 @@ public sealed interface Tree<T> {
                 break;
         }
     }
+
+    /**
+     * @return a lazy in-order iterator, which works for trees of any depth
+     */
+    @Override
+    default Iterator<T> iterator() {
+        return new TreeIterator<>(this);
+    }
+
+    /**
+     * @return an in-order spliterator that splits at subtree boundaries
+     */
+    @Override
+    default Spliterator<T> spliterator() {
+        return new TreeSpliterator<>(this);
+    }
+
+    default Stream<T> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    default Stream<T> parallelStream() {
+        return StreamSupport.stream(spliterator(), true);
+    }
 }
@@ -0,0 +1,44 @@
+package com.acme.dop.btree;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A lazy in-order iterator over a {@link Tree}. It keeps the path to the next element on an explicit stack, so
+ * it works for trees of any depth and uses space proportional to the depth, not the size, of the tree.
+ */
+final class TreeIterator<T> implements Iterator<T> {
+
+    private final ArrayDeque<Tree.Node<T>> stack = new ArrayDeque<>();
+
+    TreeIterator(Tree<T> root) {
+        descend(root);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !stack.isEmpty();
+    }
+
+    @Override
+    public T next() {
+        if (stack.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        var node = stack.pop();
+        descend(node.right());
+        return node.val();
+    }
+
+    /**
+     * Continue with another subtree once this one is exhausted, or, if called earlier, before the rest of it.
+     */
+    void descend(Tree<T> tree) {
+        var current = tree;
+        while (current instanceof Tree.Node<T> node) {
+            stack.push(node);
+            current = node.left();
+        }
+    }
+}
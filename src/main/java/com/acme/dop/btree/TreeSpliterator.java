@@ -0,0 +1,109 @@
+package com.acme.dop.btree;
+
+import java.util.ArrayDeque;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * An in-order {@link Spliterator} over a {@link Tree} that splits at subtree boundaries.
+ * <p>
+ * The remaining work is a sequence of whole subtrees. Splitting a single subtree replaces it with its left
+ * subtree, its root value and its right subtree, and hands the first half of the sequence to the new spliterator,
+ * so no elements are copied. Splitting stops once traversal has begun.
+ * <p>
+ * A {@code Tree} does not know its size, so the spliterator counts the tree when it is created, which is cheap
+ * next to the work of a stream that splits it, and is {@link #SIZED} and {@link #SUBSIZED}: splitting a subtree
+ * counts its left subtree, and the size of the right one follows.
+ */
+final class TreeSpliterator<T> implements Spliterator<T> {
+
+    // a subtree that remains to be traversed, and its size
+    private record Part<T>(Tree<T> tree, long size) { }
+
+    private final ArrayDeque<Part<T>> pending;
+    private final TreeIterator<T> current;
+    private long size;
+
+    TreeSpliterator(Tree<T> root) {
+        this(new ArrayDeque<>(), count(root));
+        if (root instanceof Tree.Node<T>) {
+            pending.add(new Part<>(root, size));
+        }
+    }
+
+    private TreeSpliterator(ArrayDeque<Part<T>> pending, long size) {
+        this.pending = pending;
+        this.current = new TreeIterator<>(Tree.nil());
+        this.size = size;
+    }
+
+    private static long count(Tree<?> tree) {
+        var count = 0L;
+        for (var iterator = new TreeIterator<>(tree); iterator.hasNext(); iterator.next()) {
+            count++;
+        }
+        return count;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super T> action) {
+        while (!current.hasNext()) {
+            var next = pending.poll();
+            if (next == null) {
+                return false;
+            }
+            current.descend(next.tree());
+        }
+        size--;
+        action.accept(current.next());
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super T> action) {
+        while (tryAdvance(action)) {
+            // keep going
+        }
+    }
+
+    @Override
+    public Spliterator<T> trySplit() {
+        if (current.hasNext()) {
+            return null;
+        }
+        if (pending.size() == 1 && pending.peek().tree() instanceof Tree.Node<T>(var left, var val, var right)) {
+            var leftSize = count(left);
+            var rightSize = pending.poll().size() - leftSize - 1;
+            if (left instanceof Tree.Node<T>) {
+                pending.add(new Part<>(left, leftSize));
+            }
+            pending.add(new Part<>(Tree.leaf(val), 1));
+            if (right instanceof Tree.Node<T>) {
+                pending.add(new Part<>(right, rightSize));
+            }
+        }
+        if (pending.size() < 2) {
+            return null;
+        }
+
+        var prefix = new ArrayDeque<Part<T>>();
+        var prefixSize = 0L;
+        for (var i = (pending.size() + 1) / 2; i > 0; i--) {
+            var part = pending.poll();
+            prefix.add(part);
+            prefixSize += part.size();
+        }
+        size -= prefixSize;
+        return new TreeSpliterator<>(prefix, prefixSize);
+    }
+
+    @Override
+    public long estimateSize() {
+        return size;
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | IMMUTABLE | SIZED | SUBSIZED;
+    }
+}
@@ -0,0 +1,63 @@
+package com.acme.dop.btree;
+
+import com.acme.dop.btree.Tree.Nil;
+import com.acme.dop.btree.Tree.Node;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Stack-safe versions of {@link Tree#contains(Tree, Object)} and {@link Tree#inorder(Tree, Consumer)} that use an
+ * explicit stack instead of Java recursion, so trees of any depth can be traversed. The results, and the order in
+ * which values are visited, are identical to those of the recursive versions.
+ * <p>
+ * A walker keeps its stack between calls, so once it has grown to the depth of the trees being walked, traversal
+ * does not allocate. Instances are not thread-safe; use one per thread.
+ *
+ * @param <T> the type of values in the trees
+ */
+public final class TreeWalker<T> {
+
+    private final ArrayDeque<Node<T>> stack = new ArrayDeque<>();
+
+    public boolean contains(Tree<T> tree, T target) {
+        stack.clear();
+        if (tree instanceof Node<T> root) {
+            stack.push(root);
+        }
+
+        // pre-order, so values are compared in the same order as the recursive version
+        while (!stack.isEmpty()) {
+            var node = stack.pop();
+            if (target.equals(node.val())) {
+                stack.clear();
+                return true;
+            }
+            if (node.right() instanceof Node<T> right) {
+                stack.push(right);
+            }
+            if (node.left() instanceof Node<T> left) {
+                stack.push(left);
+            }
+        }
+        return false;
+    }
+
+    public void inorder(Tree<T> tree, Consumer<T> c) {
+        stack.clear();
+        var current = tree;
+        while (current instanceof Node<T> || !stack.isEmpty()) {
+            switch (current) {
+                case Node<T> node -> {
+                    stack.push(node);
+                    current = node.left();
+                }
+                case Nil<T>() -> {
+                    var node = stack.pop();
+                    c.accept(node.val());
+                    current = node.right();
+                }
+            }
+        }
+    }
+}
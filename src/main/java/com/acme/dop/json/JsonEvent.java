@@ -0,0 +1,18 @@
+package com.acme.dop.json;
+
+/**
+ * The events of a {@link JsonReader}: the tokens of a JSON document, with object names told apart from string
+ * values.
+ */
+enum JsonEvent {
+    START_OBJECT,
+    END_OBJECT,
+    START_ARRAY,
+    END_ARRAY,
+    NAME,
+    STRING,
+    NUMBER,
+    TRUE,
+    FALSE,
+    NULL
+}
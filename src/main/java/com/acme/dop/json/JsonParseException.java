@@ -0,0 +1,26 @@
+package com.acme.dop.json;
+
+import java.io.Serial;
+
+/**
+ * Thrown by {@link JsonReader} and {@link JsonParser} when input is not valid JSON.
+ */
+class JsonParseException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long position;
+
+    JsonParseException(String message, long position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * @return the offset of the offending byte from the start of the input
+     */
+    long position() {
+        return position;
+    }
+}
@@ -0,0 +1,211 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds {@link JsonValue} trees from UTF-8 encoded JSON, using a {@link JsonReader}.
+ * <p>
+ * {@link #parse(byte[])} and its overloads read a whole document. To process a document too large to hold as one
+ * tree, such as a huge array of records, pull events from a reader and call {@link #value(JsonReader)} for each
+ * part that is needed, e.g., each element of the array, and {@link JsonReader#skipValue()} for the others.
+ * <p>
+ * Objects keep the order of their members, and the last of several members with the same name wins. Values are
+ * built with an explicit stack, so documents of any nesting depth are accepted.
+ * <p>
+ * Objects and arrays are read-only, and stored compactly. Objects with up to 32 members are a {@link ShapedMap}: an
+ * array of values and a {@link JsonShape} with their names, which objects with the same names, from the same
+ * reader, share. Larger objects, and objects whose names would need a shape after a reader has created as many
+ * as it may, are a {@link LinkedHashMap}. Arrays of numbers only are a {@link NumberList},
+ * backed by a {@code double[]}; other arrays are arrays of values, as by {@link List#copyOf}.
+ */
+final class JsonParser {
+
+    private static final JsonValue NULL = new JsonNull();
+    private static final JsonValue TRUE = new JsonBoolean(true);
+    private static final JsonValue FALSE = new JsonBoolean(false);
+
+    // an object or array that is being built, reused for the following ones at the same depth
+    private static final class Container {
+        private final List<String> names = new ArrayList<>();
+        private final List<JsonValue> values = new ArrayList<>();
+        private boolean object;
+        private String name;
+
+        void reset(boolean object) {
+            this.object = object;
+            names.clear();
+            values.clear();
+        }
+
+        void add(JsonValue value) {
+            if (object) {
+                names.add(name);
+            }
+            values.add(value);
+        }
+
+        JsonValue build(JsonShape shapes) {
+            return object ? new JsonObject(pairs(shapes)) : new JsonArray(values());
+        }
+
+        private Map<String, JsonValue> pairs(JsonShape shapes) {
+            if (names.isEmpty()) {
+                return Map.of();
+            }
+            if (names.size() > JsonShape.MAX_SIZE) {
+                return unshaped();
+            }
+            var shape = shapes;
+            var shaped = new JsonValue[names.size()];
+            for (var i = 0; i < names.size(); i++) {
+                var index = shape.indexOf(names.get(i));
+                if (index < 0) {
+                    index = shape.size();
+                    shape = shape.with(names.get(i));
+                    if (shape == null) {
+                        return unshaped();
+                    }
+                }
+                shaped[index] = values.get(i);
+            }
+            return new ShapedMap(shape, shape.size() == shaped.length ? shaped : Arrays.copyOf(shaped, shape.size()));
+        }
+
+        private Map<String, JsonValue> unshaped() {
+            var pairs = new LinkedHashMap<String, JsonValue>();
+            for (var i = 0; i < names.size(); i++) {
+                pairs.put(names.get(i), values.get(i));
+            }
+            return Collections.unmodifiableMap(pairs);
+        }
+
+        private List<JsonValue> values() {
+            if (values.isEmpty()) {
+                return List.of();
+            }
+            for (var value : values) {
+                if (!(value instanceof JsonNumber)) {
+                    return List.copyOf(values);
+                }
+            }
+            var numbers = new double[values.size()];
+            for (var i = 0; i < numbers.length; i++) {
+                numbers[i] = ((JsonNumber) values.get(i)).d();
+            }
+            return new NumberList(numbers);
+        }
+    }
+
+    private JsonParser() {
+    }
+
+    /**
+     * @throws JsonParseException if the input is not a valid JSON document
+     */
+    static JsonValue parse(byte[] json) {
+        return parse(JsonReader.of(json));
+    }
+
+    /**
+     * Parse the bytes between the position and the limit of the buffer.
+     *
+     * @throws JsonParseException if the input is not a valid JSON document
+     */
+    static JsonValue parse(ByteBuffer json) {
+        return parse(JsonReader.of(json));
+    }
+
+    /**
+     * Parse a memory-mapped file.
+     *
+     * @throws IOException if the file cannot be read
+     * @throws JsonParseException if the file is not a valid JSON document
+     */
+    static JsonValue parse(Path path) throws IOException {
+        try (var reader = JsonReader.open(path)) {
+            return parse(reader);
+        }
+    }
+
+    /**
+     * Read the rest of a document.
+     *
+     * @throws JsonParseException if the rest of the input is not a single valid JSON value
+     * @throws IllegalStateException if the reader is inside an object or array
+     */
+    static JsonValue parse(JsonReader reader) {
+        if (reader.depth() != 0) {
+            throw new IllegalStateException("reader is inside a value");
+        }
+        reader.next();
+        var value = value(reader);
+        reader.next();
+        return value;
+    }
+
+    /**
+     * Build the value that the event last returned by the reader starts, leaving the reader at its last event.
+     *
+     * @throws IllegalStateException if the reader is not at the start of a value
+     */
+    static JsonValue value(JsonReader reader) {
+        var event = reader.event();
+        var shapes = reader.shapes();
+        var stack = new ArrayList<Container>();
+        var depth = 0;
+        while (true) {
+            JsonValue value;
+            switch (event) {
+                case null -> throw new IllegalStateException("not at a value");
+                case START_OBJECT, START_ARRAY -> {
+                    if (depth == stack.size()) {
+                        stack.add(new Container());
+                    }
+                    stack.get(depth++).reset(event == JsonEvent.START_OBJECT);
+                    event = reader.next();
+                    continue;
+                }
+                case NAME -> {
+                    if (depth == 0) {
+                        throw new IllegalStateException("not at a value");
+                    }
+                    stack.get(depth - 1).name = reader.string();
+                    event = reader.next();
+                    continue;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    if (depth == 0) {
+                        throw new IllegalStateException("not at a value");
+                    }
+                    value = stack.get(--depth).build(shapes);
+                }
+                case STRING -> value = new JsonString(reader.string());
+                case NUMBER -> value = new JsonNumber(reader.number());
+                case TRUE -> value = TRUE;
+                case FALSE -> value = FALSE;
+                case NULL -> value = NULL;
+            }
+
+            if (depth == 0) {
+                return value;
+            }
+            stack.get(depth - 1).add(value);
+            event = reader.next();
+        }
+    }
+}
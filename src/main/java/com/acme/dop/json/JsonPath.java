@@ -0,0 +1,286 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static java.util.Objects.requireNonNull;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.function.Consumer;
+
+/**
+ * A compiled query that selects the values at a path from {@link JsonValue} trees, or directly from documents read
+ * by a {@link JsonReader}.
+ * <p>
+ * Two notations are accepted. A JSONPath expression starts with {@code $}, for the whole document, followed by any
+ * number of steps: {@code .name} or {@code ['name']} selects a member of an object, {@code [n]} an element of an
+ * array, and {@code .*} or {@code [*]} every member or element. Names in brackets may be quoted with {@code '} or
+ * {@code "}, and may escape a quote or a backslash with a backslash. Recursive descent, filters, slices and negative
+ * indexes are not supported. A JSON Pointer, as specified by RFC 6901, is empty, for the whole document, or starts
+ * with {@code /}; each of its tokens selects a member of an object, or, if it is a number, an element of an array.
+ * <p>
+ * Selected values are passed to a callback in document order. Reading a document, the query builds nothing but the
+ * selected values: members and elements that the next step does not select are skipped without decoding them, and
+ * names are compared with the step's as raw bytes. Of several members with the same name, a tree keeps only the
+ * last, but a document read as a stream selects all of them.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+final class JsonPath {
+
+    // a wildcard if it has neither a name nor an index; a JSON Pointer token that is a number has both
+    private record Step(String name, byte[] utf8, int index) {
+
+        static final Step WILDCARD = new Step(null, null, -1);
+
+        static Step name(String name) {
+            return new Step(name, name.getBytes(StandardCharsets.UTF_8), -1);
+        }
+
+        boolean wildcard() {
+            return name == null && index < 0;
+        }
+
+        boolean matches(JsonReader reader) {
+            return wildcard() || name != null && reader.stringEquals(name, utf8);
+        }
+
+        boolean matches(int i) {
+            return wildcard() || index == i;
+        }
+    }
+
+    // the largest index with at most this many digits fits in an int
+    private static final int MAX_INDEX_DIGITS = 9;
+
+    private final String expression;
+    private final Step[] steps;
+
+    private JsonPath(String expression, Step[] steps) {
+        this.expression = expression;
+        this.steps = steps;
+    }
+
+    /**
+     * @param expression a JSONPath expression or a JSON Pointer
+     * @throws IllegalArgumentException if the expression is neither, or uses unsupported features
+     */
+    static JsonPath compile(String expression) {
+        requireNonNull(expression);
+        if (expression.startsWith("$")) {
+            return new JsonPath(expression, path(expression));
+        }
+        if (expression.isEmpty() || expression.startsWith("/")) {
+            return new JsonPath(expression, pointer(expression));
+        }
+        throw new IllegalArgumentException("expected '$' or '/' at position 0 in " + expression);
+    }
+
+    /**
+     * Pass each value that the query selects from a tree to an action.
+     */
+    void select(JsonValue value, Consumer<? super JsonValue> action) {
+        select(requireNonNull(value), 0, requireNonNull(action));
+    }
+
+    /**
+     * Pass each value that the query selects from a document to an action.
+     *
+     * @throws JsonParseException if the input is not a valid JSON document
+     */
+    void select(byte[] json, Consumer<? super JsonValue> action) {
+        select(JsonReader.of(json), action);
+    }
+
+    /**
+     * Pass each value that the query selects from the rest of a document to an action.
+     *
+     * @throws JsonParseException if the rest of the input is not a single valid JSON value
+     * @throws IllegalStateException if the reader is inside an object or array
+     */
+    void select(JsonReader reader, Consumer<? super JsonValue> action) {
+        requireNonNull(action);
+        if (reader.depth() != 0) {
+            throw new IllegalStateException("reader is inside a value");
+        }
+        var event = reader.next();
+        // the index of the next element of each array that is entered, by level
+        var counters = new int[steps.length];
+        // the number of objects and arrays entered, and of steps that match the value the reader is at
+        var level = 0;
+        while (true) {
+            if (level == steps.length) {
+                action.accept(JsonParser.value(reader));
+            } else if (event == JsonEvent.START_OBJECT || event == JsonEvent.START_ARRAY) {
+                counters[level++] = 0;
+            }
+
+            // advance to the next member or element that the step of its level matches
+            while (true) {
+                if (level == 0) {
+                    reader.next();
+                    return;
+                }
+                event = reader.next();
+                if (event == JsonEvent.END_OBJECT || event == JsonEvent.END_ARRAY) {
+                    level--;
+                    continue;
+                }
+                var step = steps[level - 1];
+                boolean matched;
+                if (event == JsonEvent.NAME) {
+                    matched = step.matches(reader);
+                    event = reader.next();
+                } else {
+                    matched = step.matches(counters[level - 1]++);
+                }
+                if (matched) {
+                    break;
+                }
+                reader.skipValue();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+
+    // The recursion is as deep as the query is long.
+    private void select(JsonValue value, int i, Consumer<? super JsonValue> action) {
+        if (i == steps.length) {
+            action.accept(value);
+            return;
+        }
+        var step = steps[i];
+        switch (value) {
+            case JsonObject(var pairs) when step.wildcard() -> {
+                for (var member : pairs.values()) {
+                    select(member, i + 1, action);
+                }
+            }
+            case JsonObject(var pairs) when step.name() != null -> {
+                var member = pairs.get(step.name());
+                if (member != null) {
+                    select(member, i + 1, action);
+                }
+            }
+            case JsonArray(var values) when step.wildcard() -> {
+                for (var element : values) {
+                    select(element, i + 1, action);
+                }
+            }
+            case JsonArray(var values) when step.index() >= 0 && step.index() < values.size() ->
+                    select(values.get(step.index()), i + 1, action);
+            default -> { }
+        }
+    }
+
+    private static Step[] path(String expression) {
+        var steps = new ArrayList<Step>();
+        var length = expression.length();
+        var i = 1;
+        while (i < length) {
+            var c = expression.charAt(i);
+            if (c == '.') {
+                i++;
+                if (i < length && expression.charAt(i) == '*') {
+                    steps.add(Step.WILDCARD);
+                    i++;
+                    continue;
+                }
+                var start = i;
+                while (i < length && expression.charAt(i) != '.' && expression.charAt(i) != '[') {
+                    i++;
+                }
+                if (i == start) {
+                    throw error("expected a name", expression, i);
+                }
+                steps.add(Step.name(expression.substring(start, i)));
+            } else if (c == '[') {
+                i++;
+                c = i < length ? expression.charAt(i) : 0;
+                if (c == '*') {
+                    steps.add(Step.WILDCARD);
+                    i++;
+                } else if (c == '\'' || c == '"') {
+                    var name = new StringBuilder();
+                    i++;
+                    while (i < length && expression.charAt(i) != c) {
+                        if (expression.charAt(i) == '\\' && i + 1 < length) {
+                            i++;
+                        }
+                        name.append(expression.charAt(i++));
+                    }
+                    if (i == length) {
+                        throw error("unterminated name", expression, i);
+                    }
+                    steps.add(Step.name(name.toString()));
+                    i++;
+                } else if (c >= '0' && c <= '9') {
+                    var start = i;
+                    while (i < length && Character.isDigit(expression.charAt(i))) {
+                        i++;
+                    }
+                    steps.add(new Step(null, null, index(expression, start, i)));
+                } else {
+                    throw error("expected '*', a quoted name or an index", expression, i);
+                }
+                if (i == length || expression.charAt(i) != ']') {
+                    throw error("expected ']'", expression, i);
+                }
+                i++;
+            } else {
+                throw error("expected '.' or '['", expression, i);
+            }
+        }
+        return steps.toArray(Step[]::new);
+    }
+
+    private static Step[] pointer(String expression) {
+        var steps = new ArrayList<Step>();
+        var length = expression.length();
+        var i = 0;
+        while (i < length) {
+            // at the '/' before a token
+            i++;
+            var token = new StringBuilder();
+            while (i < length && expression.charAt(i) != '/') {
+                var c = expression.charAt(i++);
+                if (c == '~') {
+                    var escaped = i < length ? expression.charAt(i) : 0;
+                    if (escaped != '0' && escaped != '1') {
+                        throw error("expected '0' or '1' after '~'", expression, i);
+                    }
+                    c = escaped == '0' ? '~' : '/';
+                    i++;
+                }
+                token.append(c);
+            }
+            var name = token.toString();
+            var index = isIndex(name) ? index(name, 0, name.length()) : -1;
+            steps.add(new Step(name, name.getBytes(StandardCharsets.UTF_8), index));
+        }
+        return steps.toArray(Step[]::new);
+    }
+
+    // RFC 6901 array indexes have no leading zeros; longer ones cannot index an array, but may name a member
+    private static boolean isIndex(String token) {
+        if (token.isEmpty() || token.length() > MAX_INDEX_DIGITS || token.length() > 1 && token.charAt(0) == '0') {
+            return false;
+        }
+        return token.chars().allMatch(c -> c >= '0' && c <= '9');
+    }
+
+    private static int index(String s, int start, int end) {
+        if (end - start > MAX_INDEX_DIGITS) {
+            throw error("index too large", s, start);
+        }
+        return Integer.parseInt(s, start, end, 10);
+    }
+
+    private static IllegalArgumentException error(String message, String expression, int position) {
+        return new IllegalArgumentException(message + " at position " + position + " in " + expression);
+    }
+}
@@ -0,0 +1,624 @@
+package com.acme.dop.json;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * A pull parser for UTF-8 encoded JSON, as specified by RFC 8259, that reports a document as a sequence of
+ * {@link JsonEvent}s without building a tree, so documents of any size and nesting depth can be processed in
+ * constant memory. {@link JsonParser} builds {@link JsonValue}s from the events, for whole documents or for parts
+ * of them.
+ * <p>
+ * The input is scanned in place: a {@code byte[]}, a {@link ByteBuffer}, or a file, which is memory-mapped in
+ * windows of 64 MB that slide forward as the document is read, so files larger than a single mapping are supported.
+ * String values and names are only decoded when asked for with {@link #string()}, directly from the input into the
+ * {@code String}; short names are looked up in a small cache instead, so the keys of repeated objects are not
+ * decoded again. Numbers with up to 15 or so significant digits are converted without allocating. Invalid UTF-8 in
+ * strings decodes to U+FFFD rather than being reported, as do escaped surrogates without their other half.
+ * <p>
+ * A reader is not thread-safe.
+ */
+final class JsonReader implements Closeable {
+
+    static final int DEFAULT_WINDOW_SIZE = 64 << 20;
+
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+
+    private static final byte OBJECT = 1;
+    private static final byte ARRAY = 2;
+
+    // what the reader expects next
+    private static final int VALUE = 0;
+    private static final int FIRST_VALUE_OR_END = 1;
+    private static final int FIRST_NAME_OR_END = 2;
+    private static final int NAME = 3;
+    private static final int COMMA_OR_END = 4;
+    private static final int DONE = 5;
+
+    // 10^0 through 10^22 are exactly representable, which makes the fast path in scanNumber() exact
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private static final int NAME_CACHE_SIZE = 256;
+    private static final int MAX_CACHED_NAME_LENGTH = 32;
+
+    private final FileChannel channel;
+    private final long inputSize;
+    private int windowSize;
+
+    // the window of the input being read: byte i of the buffer is byte base + i of the input
+    private ByteBuffer buffer;
+    private long base;
+    private int limit;
+    private int pos;
+    // the start of the current token, which stays in the window when it moves
+    private int mark;
+
+    private byte[] containers = new byte[16];
+    private int depth;
+    private int state = VALUE;
+
+    private JsonEvent event;
+    private int stringLength;
+    private boolean escaped;
+    private double number;
+
+    private byte[] scratch = new byte[64];
+    private final byte[][] cachedNameBytes = new byte[NAME_CACHE_SIZE][];
+    private final String[] cachedNames = new String[NAME_CACHE_SIZE];
+    private JsonShape shapes;
+
+    private JsonReader(FileChannel channel, long inputSize, int windowSize, ByteBuffer buffer) {
+        this.channel = channel;
+        this.inputSize = inputSize;
+        this.windowSize = windowSize;
+        this.buffer = buffer;
+        this.limit = buffer.limit();
+    }
+
+    static JsonReader of(byte[] json) {
+        return of(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Read the bytes between the position and the limit of the buffer, which the reader does not change.
+     */
+    static JsonReader of(ByteBuffer json) {
+        var slice = json.slice();
+        return new JsonReader(null, slice.limit(), slice.limit(), slice);
+    }
+
+    /**
+     * @throws IOException if the file cannot be opened
+     */
+    static JsonReader open(Path path) throws IOException {
+        return open(path, DEFAULT_WINDOW_SIZE);
+    }
+
+    static JsonReader open(Path path, int windowSize) throws IOException {
+        if (windowSize < 1) {
+            throw new IllegalArgumentException("window size must be positive: " + windowSize);
+        }
+        var channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            var size = channel.size();
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(size, windowSize));
+            return new JsonReader(channel, size, windowSize, buffer);
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Advance to the next token.
+     *
+     * @return the event for the token, or {@code null} at the end of the document
+     * @throws JsonParseException if the input is not valid JSON
+     * @throws UncheckedIOException if a file cannot be read
+     */
+    JsonEvent next() {
+        while (true) {
+            skipWhitespace();
+            mark = pos;
+            var c = peek();
+            switch (state) {
+                case DONE -> {
+                    if (c != -1) {
+                        throw error("unexpected data after the document");
+                    }
+                    return event = null;
+                }
+                case COMMA_OR_END -> {
+                    if (c == ',') {
+                        pos++;
+                        state = containers[depth - 1] == OBJECT ? NAME : VALUE;
+                        continue;
+                    }
+                    return end(c);
+                }
+                case FIRST_NAME_OR_END -> {
+                    return c == '}' ? end(c) : name(c);
+                }
+                case NAME -> {
+                    return name(c);
+                }
+                case FIRST_VALUE_OR_END -> {
+                    return c == ']' ? end(c) : value(c);
+                }
+                default -> {
+                    return value(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the event last returned by {@link #next()}
+     */
+    JsonEvent event() {
+        return event;
+    }
+
+    /**
+     * @return the number of objects and arrays that contain the current token, or that it starts
+     */
+    int depth() {
+        return depth;
+    }
+
+    /**
+     * @return the offset of the current token from the start of the input
+     */
+    long position() {
+        return base + mark;
+    }
+
+    /**
+     * @return the decoded value of the current {@link JsonEvent#STRING} or {@link JsonEvent#NAME}
+     */
+    String string() {
+        if (event != JsonEvent.STRING && event != JsonEvent.NAME) {
+            throw new IllegalStateException("not at a string or name: " + event);
+        }
+        var start = mark + 1;
+        if (escaped) {
+            return unescape(buffer, start, stringLength, scratch(stringLength));
+        }
+        if (event == JsonEvent.NAME && stringLength <= MAX_CACHED_NAME_LENGTH) {
+            return cachedName(start, stringLength);
+        }
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, stringLength, StandardCharsets.UTF_8);
+        }
+        var bytes = scratch(stringLength);
+        buffer.get(start, bytes, 0, stringLength);
+        return new String(bytes, 0, stringLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Compare the current {@link JsonEvent#STRING} or {@link JsonEvent#NAME} with a string, without decoding it
+     * unless it has escapes.
+     *
+     * @param utf8 the UTF-8 encoding of s
+     */
+    boolean stringEquals(String s, byte[] utf8) {
+        if (event != JsonEvent.STRING && event != JsonEvent.NAME) {
+            throw new IllegalStateException("not at a string or name: " + event);
+        }
+        if (escaped) {
+            return string().equals(s);
+        }
+        if (stringLength == utf8.length && matches(mark + 1, utf8)) {
+            return true;
+        }
+        // invalid UTF-8 in the input decodes to U+FFFD, which only a decoded comparison sees
+        return s.indexOf('\uFFFD') >= 0 && string().equals(s);
+    }
+
+    /**
+     * @return the value of the current {@link JsonEvent#NUMBER}
+     */
+    double number() {
+        if (event != JsonEvent.NUMBER) {
+            throw new IllegalStateException("not at a number: " + event);
+        }
+        return number;
+    }
+
+    /**
+     * Skip the rest of the value that the current event starts, so that the next event follows it. Does nothing
+     * unless the current event is {@link JsonEvent#START_OBJECT} or {@link JsonEvent#START_ARRAY}.
+     */
+    void skipValue() {
+        if (event == JsonEvent.START_OBJECT || event == JsonEvent.START_ARRAY) {
+            var outside = depth - 1;
+            while (depth > outside) {
+                next();
+            }
+        }
+    }
+
+    /**
+     * @return the root of the shapes of the objects that {@link JsonParser} builds from this reader
+     */
+    JsonShape shapes() {
+        if (shapes == null) {
+            shapes = JsonShape.root();
+        }
+        return shapes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private JsonEvent value(int c) {
+        switch (c) {
+            case '{' -> {
+                pos++;
+                push(OBJECT);
+                state = FIRST_NAME_OR_END;
+                return event = JsonEvent.START_OBJECT;
+            }
+            case '[' -> {
+                pos++;
+                push(ARRAY);
+                state = FIRST_VALUE_OR_END;
+                return event = JsonEvent.START_ARRAY;
+            }
+            case '"' -> {
+                scanString();
+                event = JsonEvent.STRING;
+            }
+            case 't' -> {
+                literal("true");
+                event = JsonEvent.TRUE;
+            }
+            case 'f' -> {
+                literal("false");
+                event = JsonEvent.FALSE;
+            }
+            case 'n' -> {
+                literal("null");
+                event = JsonEvent.NULL;
+            }
+            case '-', '0', '1', '2', '3', '4', '5', '6', '7', '8', '9' -> {
+                scanNumber();
+                event = JsonEvent.NUMBER;
+            }
+            case -1 -> throw error("unexpected end of input");
+            default -> throw error("expected a value");
+        }
+        state = depth == 0 ? DONE : COMMA_OR_END;
+        return event;
+    }
+
+    private JsonEvent name(int c) {
+        if (c != '"') {
+            throw error(c == -1 ? "unexpected end of input" : "expected a name");
+        }
+        scanString();
+        skipWhitespace();
+        if (peek() != ':') {
+            throw new JsonParseException("expected ':'", base + pos);
+        }
+        pos++;
+        state = VALUE;
+        return event = JsonEvent.NAME;
+    }
+
+    private JsonEvent end(int c) {
+        var object = containers[depth - 1] == OBJECT;
+        if (c != (object ? '}' : ']')) {
+            throw error(c == -1 ? "unexpected end of input" : object ? "expected ',' or '}'" : "expected ',' or ']'");
+        }
+        pos++;
+        depth--;
+        state = depth == 0 ? DONE : COMMA_OR_END;
+        return event = object ? JsonEvent.END_OBJECT : JsonEvent.END_ARRAY;
+    }
+
+    private void push(byte container) {
+        if (depth == containers.length) {
+            containers = Arrays.copyOf(containers, depth * 2);
+        }
+        containers[depth++] = container;
+    }
+
+    // Scans the string starting at mark, validating escapes, and leaves pos after the closing quote.
+    private void scanString() {
+        pos++;
+        escaped = false;
+        while (true) {
+            // plain characters, without checking for the end of the window after each one
+            while (pos < limit) {
+                var b = buffer.get(pos);
+                if (b == '"' || b == '\\' || b >= 0 && b < 0x20) {
+                    break;
+                }
+                pos++;
+            }
+            var c = peek();
+            if (c == '"') {
+                stringLength = pos - mark - 1;
+                pos++;
+                return;
+            }
+            if (c == '\\') {
+                escaped = true;
+                pos++;
+                switch (peek()) {
+                    case '"', '\\', '/', 'b', 'f', 'n', 'r', 't' -> pos++;
+                    case 'u' -> {
+                        pos++;
+                        for (var i = 0; i < 4; i++) {
+                            if (Character.digit(peek(), 16) < 0) {
+                                throw new JsonParseException("invalid unicode escape", base + pos);
+                            }
+                            pos++;
+                        }
+                    }
+                    default -> throw new JsonParseException("invalid escape", base + pos);
+                }
+            } else if (c == -1) {
+                throw error("unterminated string");
+            } else if (c < 0x20) {
+                throw new JsonParseException("unescaped control character in string", base + pos);
+            } else {
+                pos++;
+            }
+        }
+    }
+
+    private void literal(String literal) {
+        for (var i = 0; i < literal.length(); i++) {
+            if (peek() != literal.charAt(i)) {
+                throw error("expected '" + literal + "'");
+            }
+            pos++;
+        }
+    }
+
+    // Parses the number at mark into number, without allocating in the common cases.
+    private void scanNumber() {
+        var negative = peek() == '-';
+        if (negative) {
+            pos++;
+        }
+        var mantissa = 0L;
+        var exponent = 0;
+        var exact = true;
+
+        // digits beyond the exact mantissa range are dropped, and force the slow path unless they are zeros
+        var c = peek();
+        if (c == '0') {
+            pos++;
+        } else if (isDigit(c)) {
+            while (isDigit(c = peek())) {
+                var digit = c - '0';
+                if (mantissa <= (MAX_EXACT_MANTISSA - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                } else {
+                    exponent++;
+                    exact &= digit == 0;
+                }
+                pos++;
+            }
+        } else {
+            throw error("malformed number");
+        }
+        if (peek() == '.') {
+            pos++;
+            if (!isDigit(peek())) {
+                throw error("malformed number");
+            }
+            while (isDigit(c = peek())) {
+                var digit = c - '0';
+                if (mantissa <= (MAX_EXACT_MANTISSA - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                    exponent--;
+                } else {
+                    exact &= digit == 0;
+                }
+                pos++;
+            }
+        }
+        c = peek();
+        if (c == 'e' || c == 'E') {
+            pos++;
+            var negativeExponent = false;
+            c = peek();
+            if (c == '+' || c == '-') {
+                negativeExponent = c == '-';
+                pos++;
+            }
+            if (!isDigit(peek())) {
+                throw error("malformed number");
+            }
+            var e = 0;
+            while (isDigit(c = peek())) {
+                e = Math.min(e * 10 + (c - '0'), 100_000);
+                pos++;
+            }
+            exponent += negativeExponent ? -e : e;
+        }
+
+        if (exact && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            var magnitude = exponent >= 0 ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            number = negative ? -magnitude : magnitude;
+        } else {
+            var bytes = scratch(pos - mark);
+            buffer.get(mark, bytes, 0, pos - mark);
+            number = Double.parseDouble(new String(bytes, 0, pos - mark, StandardCharsets.ISO_8859_1));
+        }
+    }
+
+    private String cachedName(int start, int length) {
+        var hash = 0;
+        for (var i = 0; i < length; i++) {
+            hash = 31 * hash + buffer.get(start + i);
+        }
+        var slot = (hash ^ hash >>> 16) & (NAME_CACHE_SIZE - 1);
+        var cached = cachedNameBytes[slot];
+        if (cached != null && cached.length == length && matches(start, cached)) {
+            return cachedNames[slot];
+        }
+        var bytes = new byte[length];
+        buffer.get(start, bytes);
+        var name = new String(bytes, StandardCharsets.UTF_8);
+        cachedNameBytes[slot] = bytes;
+        cachedNames[slot] = name;
+        return name;
+    }
+
+    private boolean matches(int start, byte[] bytes) {
+        for (var i = 0; i < bytes.length; i++) {
+            if (buffer.get(start + i) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Decode the bytes of a string with escapes, which must be valid, between its quotes, using a scratch array at
+     * least as long as the bytes for their UTF-8 encoding.
+     */
+    static String unescape(ByteBuffer buffer, int start, int length, byte[] out) {
+        var n = 0;
+        var end = start + length;
+        for (var i = start; i < end; i++) {
+            var b = buffer.get(i);
+            if (b != '\\') {
+                out[n++] = b;
+                continue;
+            }
+            var e = buffer.get(++i);
+            int codePoint = switch (e) {
+                case 'b' -> '\b';
+                case 'f' -> '\f';
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                case 't' -> '\t';
+                case 'u' -> {
+                    var unit = hex(buffer, i + 1);
+                    i += 4;
+                    if (Character.isHighSurrogate((char) unit) && i + 6 < end && buffer.get(i + 1) == '\\'
+                            && buffer.get(i + 2) == 'u' && Character.isLowSurrogate((char) hex(buffer, i + 3))) {
+                        var low = hex(buffer, i + 3);
+                        i += 6;
+                        yield Character.toCodePoint((char) unit, (char) low);
+                    }
+                    yield Character.isSurrogate((char) unit) ? 0xFFFD : unit;
+                }
+                default -> e;
+            };
+            n = encode(out, n, codePoint);
+        }
+        return new String(out, 0, n, StandardCharsets.UTF_8);
+    }
+
+    private static int hex(ByteBuffer buffer, int at) {
+        var value = 0;
+        for (var i = 0; i < 4; i++) {
+            value = value << 4 | Character.digit(buffer.get(at + i), 16);
+        }
+        return value;
+    }
+
+    // An escape is at least two bytes long and encodes to at most as many, or four for a surrogate pair of twelve,
+    // so the output fits in the length of the input.
+    private static int encode(byte[] out, int n, int codePoint) {
+        if (codePoint < 0x80) {
+            out[n++] = (byte) codePoint;
+        } else if (codePoint < 0x800) {
+            out[n++] = (byte) (0xC0 | codePoint >> 6);
+            out[n++] = (byte) (0x80 | codePoint & 0x3F);
+        } else if (codePoint < 0x10000) {
+            out[n++] = (byte) (0xE0 | codePoint >> 12);
+            out[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            out[n++] = (byte) (0x80 | codePoint & 0x3F);
+        } else {
+            out[n++] = (byte) (0xF0 | codePoint >> 18);
+            out[n++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+            out[n++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+            out[n++] = (byte) (0x80 | codePoint & 0x3F);
+        }
+        return n;
+    }
+
+    private void skipWhitespace() {
+        while (true) {
+            var c = peek();
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') {
+                return;
+            }
+            pos++;
+        }
+    }
+
+    /**
+     * @return the byte at pos, or -1 at the end of the input
+     */
+    private int peek() {
+        if (pos == limit && !slide()) {
+            return -1;
+        }
+        return buffer.get(pos) & 0xFF;
+    }
+
+    // Maps the next window of a file, starting at the current token, and doubling the window size if the token
+    // fills the whole window.
+    private boolean slide() {
+        if (channel == null || base + limit >= inputSize) {
+            return false;
+        }
+        if (mark == 0) {
+            if (windowSize == MAX_WINDOW_SIZE) {
+                throw error("token too large");
+            }
+            windowSize = (int) Math.min((long) windowSize * 2, MAX_WINDOW_SIZE);
+        }
+        var newBase = base + mark;
+        var size = (int) Math.min(windowSize, inputSize - newBase);
+        try {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, newBase, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        base = newBase;
+        limit = size;
+        pos -= mark;
+        mark = 0;
+        return true;
+    }
+
+    private byte[] scratch(int length) {
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        return scratch;
+    }
+
+    private JsonParseException error(String message) {
+        return new JsonParseException(message, base + mark);
+    }
+
+    private static boolean isDigit(int c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,105 @@
+package com.acme.dop.json;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The names of the members of an object, in order, shared by the objects that {@link JsonParser} builds with the
+ * same names, which then only store their values, in a {@link ShapedMap}.
+ * <p>
+ * Shapes form a tree rooted at the shape without names: the shape of an object with one more member is a
+ * transition from that of the object without it, which is looked up rather than created again, so objects of the
+ * same layout share one shape, and one instance of each name. Up to 8 names are searched linearly; larger shapes
+ * index them in a hash map.
+ * <p>
+ * A tree belongs to a {@link JsonReader}, so objects are only shared within the documents that the reader reads,
+ * and the transitions are only ever followed by one thread. A tree records at most 4096 transitions; after that,
+ * no new shapes are created, and objects that would need one are not shaped, so documents whose objects are maps
+ * with ever different names, such as IDs, neither grow the tree without bound nor create a shape for every
+ * member. Objects with more than 32 members are not shaped at all.
+ */
+final class JsonShape {
+
+    static final int MAX_SIZE = 32;
+
+    private static final int INDEXED_SIZE = 8;
+    private static final int MAX_TRANSITIONS = 4096;
+
+    // the number of transitions recorded in a tree
+    private static final class Tree {
+        private int transitions;
+    }
+
+    private final String[] names;
+    private final Map<String, Integer> indexes;
+    private final Tree tree;
+    private Map<String, JsonShape> transitions;
+
+    private JsonShape(String[] names, Tree tree) {
+        this.names = names;
+        this.tree = tree;
+        if (names.length > INDEXED_SIZE) {
+            indexes = HashMap.newHashMap(names.length);
+            for (var i = 0; i < names.length; i++) {
+                indexes.put(names[i], i);
+            }
+        } else {
+            indexes = null;
+        }
+    }
+
+    /**
+     * @return the root of a new tree of shapes
+     */
+    static JsonShape root() {
+        return new JsonShape(new String[0], new Tree());
+    }
+
+    /**
+     * @return the shape with the names of this one followed by another, which it must not contain, or {@code null}
+     *         if the tree has recorded as many transitions as it can, none of which leads to that shape
+     * @throws IllegalStateException if the shape already has {@link #MAX_SIZE} names
+     */
+    JsonShape with(String name) {
+        if (names.length == MAX_SIZE) {
+            throw new IllegalStateException("shapes have at most " + MAX_SIZE + " names");
+        }
+        var next = transitions == null ? null : transitions.get(name);
+        if (next != null || tree.transitions == MAX_TRANSITIONS) {
+            return next;
+        }
+        var extended = Arrays.copyOf(names, names.length + 1);
+        extended[names.length] = name;
+        next = new JsonShape(extended, tree);
+        tree.transitions++;
+        if (transitions == null) {
+            transitions = new HashMap<>();
+        }
+        transitions.put(name, next);
+        return next;
+    }
+
+    /**
+     * @return the index of the name, or -1 if the shape does not contain it
+     */
+    int indexOf(Object name) {
+        if (indexes != null) {
+            return indexes.getOrDefault(name, -1);
+        }
+        for (var i = 0; i < names.length; i++) {
+            if (names[i].equals(name)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    String name(int index) {
+        return names[index];
+    }
+
+    int size() {
+        return names.length;
+    }
+}
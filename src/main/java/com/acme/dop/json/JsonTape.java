@@ -0,0 +1,352 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.RandomAccess;
+import java.util.Set;
+
+/**
+ * Builds lazy {@link JsonValue}s over UTF-8 encoded JSON, for documents of which only a few parts are read.
+ * <p>
+ * Parsing validates the whole document with a {@link JsonReader}, but only records its structure on a tape: an
+ * array of {@code long}s with one entry per token, in document order. Strings and names are entries that hold the
+ * offset of the token in the input; numbers are followed by their value, and the entry of an object or array holds
+ * the index of the entry after its end, so a reader can skip over it, and is followed by its number of members or
+ * elements. Nothing else is allocated.
+ * <p>
+ * Objects and arrays are the usual {@link JsonObject} and {@link JsonArray} records, so they are matched like any
+ * other value, but their map and list are views of the tape. A member or element is only built when it is
+ * accessed, and then kept. Looking up a member compares the raw bytes of the names with those of the key, without
+ * decoding the names, until all members have been iterated, after which a map from the names is used. The views
+ * are read-only, and equal to maps and lists with the same contents, such as those built by {@link JsonParser}.
+ * <p>
+ * The input must not be modified while the values are in use. The values can be shared between threads.
+ */
+final class JsonTape {
+
+    private static final long KIND_SHIFT = 60;
+    private static final long PAYLOAD = (1L << KIND_SHIFT) - 1;
+    private static final int INITIAL_TAPE_CAP = 1 << 16;
+
+    // kinds of tape entries
+    private static final int OBJECT = 1;
+    private static final int ARRAY = 2;
+    private static final int STRING = 3;
+    private static final int NUMBER = 4;
+    private static final int TRUE = 5;
+    private static final int FALSE = 6;
+    private static final int NULL = 7;
+
+    private static final JsonValue NULL_VALUE = new JsonNull();
+    private static final JsonValue TRUE_VALUE = new JsonBoolean(true);
+    private static final JsonValue FALSE_VALUE = new JsonBoolean(false);
+
+    private final ByteBuffer input;
+    private final long[] tape;
+
+    private JsonTape(ByteBuffer input, long[] tape) {
+        this.input = input;
+        this.tape = tape;
+    }
+
+    /**
+     * @throws JsonParseException if the input is not a valid JSON document
+     */
+    static JsonValue parse(byte[] json) {
+        return parse(ByteBuffer.wrap(json));
+    }
+
+    /**
+     * Parse the bytes between the position and the limit of the buffer, which must not change while the value is
+     * in use.
+     *
+     * @throws JsonParseException if the input is not a valid JSON document
+     */
+    static JsonValue parse(ByteBuffer json) {
+        var input = json.slice();
+        var tape = new JsonTape(input, index(input));
+        return tape.value(0);
+    }
+
+    private static long[] index(ByteBuffer input) {
+        var reader = JsonReader.of(input);
+        // the tape doubles as needed, so the first guess is capped rather than proportional to large documents
+        var tape = new long[Math.clamp(input.limit() / 16, 16, INITIAL_TAPE_CAP)];
+        var size = 0;
+        // the tape indexes and element counts of the open objects and arrays
+        var starts = new int[16];
+        var counts = new int[16];
+        var depth = 0;
+
+        for (var event = reader.next(); event != null; event = reader.next()) {
+            if (tape.length - size < 2) {
+                tape = Arrays.copyOf(tape, 2 * tape.length);
+            }
+            if (depth > 0 && event != JsonEvent.NAME && event != JsonEvent.END_OBJECT
+                    && event != JsonEvent.END_ARRAY) {
+                counts[depth - 1]++;
+            }
+            switch (event) {
+                case START_OBJECT, START_ARRAY -> {
+                    if (depth == starts.length) {
+                        starts = Arrays.copyOf(starts, 2 * depth);
+                        counts = Arrays.copyOf(counts, 2 * depth);
+                    }
+                    starts[depth] = size;
+                    counts[depth++] = 0;
+                    size += 2;
+                }
+                case END_OBJECT, END_ARRAY -> {
+                    var start = starts[--depth];
+                    tape[start] = entry(event == JsonEvent.END_OBJECT ? OBJECT : ARRAY, size);
+                    tape[start + 1] = counts[depth];
+                }
+                case NAME, STRING -> tape[size++] = entry(STRING, reader.position());
+                case NUMBER -> {
+                    tape[size++] = entry(NUMBER, 0);
+                    tape[size++] = Double.doubleToRawLongBits(reader.number());
+                }
+                case TRUE -> tape[size++] = entry(TRUE, 0);
+                case FALSE -> tape[size++] = entry(FALSE, 0);
+                case NULL -> tape[size++] = entry(NULL, 0);
+            }
+        }
+        return size == tape.length ? tape : Arrays.copyOf(tape, size);
+    }
+
+    private static long entry(int kind, long payload) {
+        return (long) kind << KIND_SHIFT | payload;
+    }
+
+    private int kind(int index) {
+        return (int) (tape[index] >>> KIND_SHIFT);
+    }
+
+    private int payload(int index) {
+        return (int) (tape[index] & PAYLOAD);
+    }
+
+    // the index of the entry after the value at index
+    private int skip(int index) {
+        return switch (kind(index)) {
+            case OBJECT, ARRAY -> payload(index);
+            case NUMBER -> index + 2;
+            default -> index + 1;
+        };
+    }
+
+    private JsonValue value(int index) {
+        return switch (kind(index)) {
+            case OBJECT -> new JsonObject(new LazyObject(index));
+            case ARRAY -> new JsonArray(new LazyArray(index));
+            case STRING -> new JsonString(string(index));
+            case NUMBER -> new JsonNumber(Double.longBitsToDouble(tape[index + 1]));
+            case TRUE -> TRUE_VALUE;
+            case FALSE -> FALSE_VALUE;
+            default -> NULL_VALUE;
+        };
+    }
+
+    private String string(int index) {
+        var start = payload(index) + 1;
+        var end = start;
+        var escaped = false;
+        while (input.get(end) != '"') {
+            if (input.get(end) == '\\') {
+                escaped = true;
+                end++;
+            }
+            end++;
+        }
+        var length = end - start;
+        if (escaped) {
+            return JsonReader.unescape(input, start, length, new byte[length]);
+        }
+        if (input.hasArray()) {
+            return new String(input.array(), input.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+        var bytes = new byte[length];
+        input.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Whether the string entry at index decodes to the key, of which utf8 is the UTF-8 encoding.
+    private boolean matches(int index, String key, byte[] utf8) {
+        var start = payload(index) + 1;
+        for (var i = 0; i < utf8.length; i++) {
+            var b = input.get(start + i);
+            if (b == '\\') {
+                return string(index).equals(key);
+            }
+            if (b != utf8[i] || b == '"') {
+                // invalid UTF-8 in the input decodes to U+FFFD, which only a decoded comparison sees
+                return key.indexOf('\uFFFD') >= 0 && string(index).equals(key);
+            }
+        }
+        return input.get(start + utf8.length) == '"';
+    }
+
+    // The elements of an array, whose indexes on the tape are found when the list is created.
+    private final class LazyArray extends AbstractList<JsonValue> implements RandomAccess {
+        private final int[] indexes;
+        private final JsonValue[] values;
+
+        LazyArray(int start) {
+            var size = (int) tape[start + 1];
+            indexes = new int[size];
+            values = new JsonValue[size];
+            var index = start + 2;
+            for (var i = 0; i < size; i++) {
+                indexes[i] = index;
+                index = skip(index);
+            }
+        }
+
+        @Override
+        public JsonValue get(int i) {
+            Objects.checkIndex(i, values.length);
+            var value = values[i];
+            if (value == null) {
+                value = value(indexes[i]);
+                values[i] = value;
+            }
+            return value;
+        }
+
+        @Override
+        public int size() {
+            return values.length;
+        }
+    }
+
+    // The members of an object; of several members with the same name, the last one counts, in the place of the
+    // first, as in JsonParser.
+    private final class LazyObject extends AbstractMap<String, JsonValue> {
+        private final int[] names;
+        private final JsonValue[] values;
+        // from each distinct name to its member, once all names have been decoded
+        private volatile Map<String, Integer> members;
+        private Set<Entry<String, JsonValue>> entries;
+
+        LazyObject(int start) {
+            var size = (int) tape[start + 1];
+            names = new int[size];
+            values = new JsonValue[size];
+            var index = start + 2;
+            for (var i = 0; i < size; i++) {
+                names[i] = index;
+                index = skip(index + 1);
+            }
+        }
+
+        @Override
+        public JsonValue get(Object key) {
+            var member = find(key);
+            return member < 0 ? null : member(member);
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return find(key) >= 0;
+        }
+
+        @Override
+        public int size() {
+            return members().size();
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return names.length == 0;
+        }
+
+        @Override
+        public Set<Entry<String, JsonValue>> entrySet() {
+            if (entries == null) {
+                entries = new AbstractSet<>() {
+                    @Override
+                    public Iterator<Entry<String, JsonValue>> iterator() {
+                        return new Iterator<>() {
+                            private final Iterator<Entry<String, Integer>> remaining = members().entrySet().iterator();
+
+                            @Override
+                            public boolean hasNext() {
+                                return remaining.hasNext();
+                            }
+
+                            @Override
+                            public Entry<String, JsonValue> next() {
+                                if (!remaining.hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                var member = remaining.next();
+                                return new SimpleImmutableEntry<>(member.getKey(), member(member.getValue()));
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return members().size();
+                    }
+                };
+            }
+            return entries;
+        }
+
+        // the last member with the name, or -1
+        private int find(Object key) {
+            if (!(key instanceof String name)) {
+                return -1;
+            }
+            var known = members;
+            if (known != null) {
+                return known.getOrDefault(name, -1);
+            }
+            var utf8 = name.getBytes(StandardCharsets.UTF_8);
+            for (var i = names.length - 1; i >= 0; i--) {
+                if (matches(names[i], name, utf8)) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private JsonValue member(int member) {
+            var value = values[member];
+            if (value == null) {
+                value = value(names[member] + 1);
+                values[member] = value;
+            }
+            return value;
+        }
+
+        private Map<String, Integer> members() {
+            var known = members;
+            if (known == null) {
+                known = new LinkedHashMap<>();
+                for (var i = 0; i < names.length; i++) {
+                    known.put(string(names[i]), i);
+                }
+                members = known;
+            }
+            return known;
+        }
+    }
+}
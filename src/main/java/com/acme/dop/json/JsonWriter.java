@@ -0,0 +1,378 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static java.util.Objects.requireNonNull;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Writes {@link JsonValue}s as UTF-8 encoded JSON to an {@link OutputStream}, a {@link WritableByteChannel} or a
+ * {@link ByteBuffer}, without building intermediate strings.
+ * <p>
+ * Output is encoded into a buffer of 8 KB, which is handed to the target whenever it fills up. Buffers, and the
+ * other state of a write, are pooled per thread, so writing does not allocate once a thread has written a value.
+ * Values are traversed with an explicit stack, so documents of any depth can be written. Strings are copied byte by
+ * byte while they are printable ASCII, and only other characters are escaped or encoded. Integral numbers are
+ * written digit by digit without a fraction; other numbers are written as by {@link Double#toString(double)}, but
+ * into a reused {@link StringBuilder}. JSON has no representation for {@code NaN} or infinities, which are
+ * rejected.
+ * <p>
+ * With {@link Layout#COMPACT} no whitespace is written. With {@link Layout#PRETTY} every member and element is on a
+ * line of its own, indented by two spaces per level, and names are followed by {@code ": "}.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+final class JsonWriter {
+
+    enum Layout {
+
+        /**
+         * No whitespace between tokens.
+         */
+        COMPACT,
+
+        /**
+         * One member or element per line, indented.
+         */
+        PRETTY
+    }
+
+    static final JsonWriter COMPACT = new JsonWriter(Layout.COMPACT);
+    static final JsonWriter PRETTY = new JsonWriter(Layout.PRETTY);
+
+    private static final int BUFFER_SIZE = 8192;
+
+    // the largest magnitude below which every integral double is written as plain digits
+    private static final double MAX_PLAIN_INTEGRAL = 1.0e15;
+
+    private static final byte[] NULL = { 'n', 'u', 'l', 'l' };
+    private static final byte[] TRUE = { 't', 'r', 'u', 'e' };
+    private static final byte[] FALSE = { 'f', 'a', 'l', 's', 'e' };
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    // an emitter is taken out while in use, so a nested write on the same thread gets a new one
+    private static final ThreadLocal<Emitter> EMITTERS = new ThreadLocal<>();
+
+    private final Layout layout;
+
+    private JsonWriter(Layout layout) {
+        this.layout = layout;
+    }
+
+    static JsonWriter of(Layout layout) {
+        return switch (requireNonNull(layout)) {
+            case COMPACT -> COMPACT;
+            case PRETTY -> PRETTY;
+        };
+    }
+
+    Layout layout() {
+        return layout;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value contains a number that JSON cannot represent
+     */
+    byte[] toBytes(JsonValue value) {
+        var out = new ByteArrayOutputStream();
+        try {
+            write(value, out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("ByteArrayOutputStream does not throw IOException", e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * @throws IOException if the stream throws it
+     * @throws IllegalArgumentException if the value contains a number that JSON cannot represent
+     */
+    void write(JsonValue value, OutputStream out) throws IOException {
+        emit(value, (bytes, length) -> out.write(bytes, 0, length));
+    }
+
+    /**
+     * @throws IOException if the channel throws it
+     * @throws IllegalArgumentException if the value contains a number that JSON cannot represent
+     */
+    void write(JsonValue value, WritableByteChannel out) throws IOException {
+        emit(value, (bytes, length) -> {
+            var buffer = ByteBuffer.wrap(bytes, 0, length);
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+        });
+    }
+
+    /**
+     * Write a value at the buffer's position, advancing the position.
+     *
+     * @return the target
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for the value, in which case part
+     *         of it may have been written
+     * @throws IllegalArgumentException if the value contains a number that JSON cannot represent
+     */
+    ByteBuffer write(JsonValue value, ByteBuffer out) {
+        try {
+            emit(value, (bytes, length) -> out.put(bytes, 0, length));
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("ByteBuffer does not throw IOException", e);
+        }
+    }
+
+    private void emit(JsonValue value, Sink sink) throws IOException {
+        var emitter = EMITTERS.get();
+        EMITTERS.remove();
+        if (emitter == null) {
+            emitter = new Emitter();
+        }
+        try {
+            emitter.emit(value, sink, layout == Layout.PRETTY);
+        } finally {
+            emitter.clear();
+            EMITTERS.set(emitter);
+        }
+    }
+
+    private interface Sink {
+        void write(byte[] bytes, int length) throws IOException;
+    }
+
+    // Per-thread state of a write; the writer itself stays immutable.
+    private static class Emitter {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final StringBuilder number = new StringBuilder(32);
+        private int count;
+        private Sink sink;
+        private boolean pretty;
+
+        // the objects and arrays being written, innermost last
+        private Iterator<?>[] iterators = new Iterator<?>[16];
+        private boolean[] objects = new boolean[16];
+        private boolean[] started = new boolean[16];
+        private int depth;
+
+        void emit(JsonValue root, Sink sink, boolean pretty) throws IOException {
+            this.sink = sink;
+            this.pretty = pretty;
+            value(root);
+            while (depth > 0) {
+                var top = depth - 1;
+                var iterator = iterators[top];
+                if (!iterator.hasNext()) {
+                    depth--;
+                    iterators[top] = null;
+                    newline(depth);
+                    write(objects[top] ? (byte) '}' : (byte) ']');
+                    continue;
+                }
+                if (started[top]) {
+                    write((byte) ',');
+                }
+                started[top] = true;
+                newline(depth);
+                if (objects[top]) {
+                    var pair = (Map.Entry<?, ?>) iterator.next();
+                    string((String) pair.getKey());
+                    write((byte) ':');
+                    if (pretty) {
+                        write((byte) ' ');
+                    }
+                    value((JsonValue) pair.getValue());
+                } else {
+                    value((JsonValue) iterator.next());
+                }
+            }
+            flush();
+        }
+
+        void clear() {
+            Arrays.fill(iterators, 0, depth, null);
+            depth = 0;
+            count = 0;
+            sink = null;
+        }
+
+        // Writes a scalar, or opens an object or array, whose members are written by emit.
+        private void value(JsonValue value) throws IOException {
+            switch (value) {
+                case JsonString(String s) -> string(s);
+                case JsonNumber(double d) -> number(d);
+                case JsonNull() -> write(NULL);
+                case JsonBoolean(boolean b) -> write(b ? TRUE : FALSE);
+                case JsonArray(var values) when values.isEmpty() -> write((byte) '[', (byte) ']');
+                case JsonArray(var values) -> {
+                    write((byte) '[');
+                    push(values.iterator(), false);
+                }
+                case JsonObject(var pairs) when pairs.isEmpty() -> write((byte) '{', (byte) '}');
+                case JsonObject(var pairs) -> {
+                    write((byte) '{');
+                    push(pairs.entrySet().iterator(), true);
+                }
+            }
+        }
+
+        private void push(Iterator<?> iterator, boolean object) {
+            if (depth == iterators.length) {
+                iterators = Arrays.copyOf(iterators, 2 * depth);
+                objects = Arrays.copyOf(objects, 2 * depth);
+                started = Arrays.copyOf(started, 2 * depth);
+            }
+            iterators[depth] = iterator;
+            objects[depth] = object;
+            started[depth] = false;
+            depth++;
+        }
+
+        private void string(String s) throws IOException {
+            ensure(1);
+            buffer[count++] = '"';
+            var length = s.length();
+            for (var i = 0; i < length; i++) {
+                // the longest encoding of a char is an escaped surrogate pair, \\uXXXX\\uXXXX
+                if (count + 12 > buffer.length) {
+                    flush();
+                }
+                var c = s.charAt(i);
+                if (c >= 0x20 && c < 0x80 && c != '"' && c != '\\') {
+                    buffer[count++] = (byte) c;
+                } else if (c < 0x80) {
+                    escape(c);
+                } else if (c < 0x800) {
+                    buffer[count++] = (byte) (0xC0 | c >> 6);
+                    buffer[count++] = (byte) (0x80 | c & 0x3F);
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(s.charAt(i + 1))) {
+                    var codePoint = Character.toCodePoint(c, s.charAt(++i));
+                    buffer[count++] = (byte) (0xF0 | codePoint >> 18);
+                    buffer[count++] = (byte) (0x80 | codePoint >> 12 & 0x3F);
+                    buffer[count++] = (byte) (0x80 | codePoint >> 6 & 0x3F);
+                    buffer[count++] = (byte) (0x80 | codePoint & 0x3F);
+                } else if (Character.isSurrogate(c)) {
+                    // UTF-8 cannot encode a lone surrogate, but an escape can
+                    unicodeEscape(c);
+                } else {
+                    buffer[count++] = (byte) (0xE0 | c >> 12);
+                    buffer[count++] = (byte) (0x80 | c >> 6 & 0x3F);
+                    buffer[count++] = (byte) (0x80 | c & 0x3F);
+                }
+            }
+            ensure(1);
+            buffer[count++] = '"';
+        }
+
+        private void escape(char c) {
+            var escaped = switch (c) {
+                case '"' -> '"';
+                case '\\' -> '\\';
+                case '\n' -> 'n';
+                case '\r' -> 'r';
+                case '\t' -> 't';
+                case '\b' -> 'b';
+                case '\f' -> 'f';
+                default -> 0;
+            };
+            if (escaped == 0) {
+                unicodeEscape(c);
+            } else {
+                buffer[count++] = '\\';
+                buffer[count++] = (byte) escaped;
+            }
+        }
+
+        private void unicodeEscape(char c) {
+            buffer[count++] = '\\';
+            buffer[count++] = 'u';
+            buffer[count++] = HEX[c >> 12];
+            buffer[count++] = HEX[c >> 8 & 0xF];
+            buffer[count++] = HEX[c >> 4 & 0xF];
+            buffer[count++] = HEX[c & 0xF];
+        }
+
+        private void number(double d) throws IOException {
+            if (!Double.isFinite(d)) {
+                throw new IllegalArgumentException("JSON cannot represent " + d);
+            }
+            // a long has at most 20 characters, and Double.toString at most 24
+            ensure(24);
+            if (d == Math.rint(d) && Math.abs(d) < MAX_PLAIN_INTEGRAL) {
+                if (Double.doubleToRawLongBits(d) < 0) {
+                    buffer[count++] = '-';
+                }
+                digits((long) Math.abs(d));
+                return;
+            }
+            number.setLength(0);
+            number.append(d);
+            for (var i = 0; i < number.length(); i++) {
+                buffer[count++] = (byte) number.charAt(i);
+            }
+        }
+
+        private void digits(long value) {
+            var divisor = 1L;
+            while (value / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                buffer[count++] = (byte) ('0' + value / divisor % 10);
+            }
+        }
+
+        private void newline(int indent) throws IOException {
+            if (!pretty) {
+                return;
+            }
+            write((byte) '\n');
+            for (var spaces = 2L * indent; spaces > 0; spaces--) {
+                write((byte) ' ');
+            }
+        }
+
+        private void write(byte b) throws IOException {
+            ensure(1);
+            buffer[count++] = b;
+        }
+
+        private void write(byte first, byte second) throws IOException {
+            ensure(2);
+            buffer[count++] = first;
+            buffer[count++] = second;
+        }
+
+        private void write(byte[] bytes) throws IOException {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, count, bytes.length);
+            count += bytes.length;
+        }
+
+        private void ensure(int length) throws IOException {
+            if (count + length > buffer.length) {
+                flush();
+            }
+        }
+
+        private void flush() throws IOException {
+            if (count > 0) {
+                sink.write(buffer, count);
+                count = 0;
+            }
+        }
+    }
+}
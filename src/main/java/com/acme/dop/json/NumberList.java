@@ -0,0 +1,41 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonNumber;
+
+import java.util.AbstractList;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * The elements of an array of numbers, stored as a {@code double[]} rather than as a {@link JsonNumber} for each.
+ * {@link #get(int)} creates the element when it is asked for, so elements are equal but not the same on every
+ * call; {@link #getDouble(int)} avoids creating them.
+ * <p>
+ * The list is read-only, and equal to any list of the same numbers.
+ */
+final class NumberList extends AbstractList<JsonValue> implements RandomAccess {
+
+    private final double[] values;
+
+    /**
+     * @param values the numbers, which the list takes over
+     */
+    NumberList(double[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public JsonValue get(int index) {
+        return new JsonNumber(getDouble(index));
+    }
+
+    double getDouble(int index) {
+        Objects.checkIndex(index, values.length);
+        return values[index];
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+}
@@ -0,0 +1,94 @@
+package com.acme.dop.json;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * The members of an object as a {@link JsonShape}, which may be shared with other objects, and an array of values,
+ * one for each name of the shape. Unlike a {@link java.util.LinkedHashMap}, which needs a table and an entry for
+ * each member, this takes two small objects besides the shared shape.
+ * <p>
+ * The map is read-only, and equal to any map with the same members.
+ */
+final class ShapedMap extends AbstractMap<String, JsonValue> {
+
+    private final JsonShape shape;
+    private final JsonValue[] values;
+
+    /**
+     * @param values the values of the names of the shape, in order, which the map takes over
+     */
+    ShapedMap(JsonShape shape, JsonValue[] values) {
+        if (values.length != shape.size()) {
+            throw new IllegalArgumentException("expected " + shape.size() + " values: " + values.length);
+        }
+        this.shape = shape;
+        this.values = values;
+    }
+
+    @Override
+    public JsonValue get(Object key) {
+        var index = shape.indexOf(key);
+        return index < 0 ? null : values[index];
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return shape.indexOf(key) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return values.length;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return values.length == 0;
+    }
+
+    @Override
+    public void forEach(BiConsumer<? super String, ? super JsonValue> action) {
+        Objects.requireNonNull(action);
+        for (var i = 0; i < values.length; i++) {
+            action.accept(shape.name(i), values[i]);
+        }
+    }
+
+    @Override
+    public Set<Entry<String, JsonValue>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, JsonValue>> iterator() {
+                return new Iterator<>() {
+                    private int next;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < values.length;
+                    }
+
+                    @Override
+                    public Entry<String, JsonValue> next() {
+                        if (next == values.length) {
+                            throw new NoSuchElementException();
+                        }
+                        var entry = new SimpleImmutableEntry<>(shape.name(next), values[next]);
+                        next++;
+                        return entry;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+        };
+    }
+}
@@ -0,0 +1,217 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.NodeProgram.ADD;
+import static com.acme.dop.math.NodeProgram.CONST;
+import static com.acme.dop.math.NodeProgram.LOAD;
+import static com.acme.dop.math.NodeProgram.MUL;
+import static com.acme.dop.math.NodeProgram.NEG;
+import static com.acme.dop.math.NodeProgram.POW;
+import static java.util.Objects.isNull;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Serial;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Function;
+
+/**
+ * Evaluates one expression over many rows of columnar data, where each variable maps to a column.
+ * <p>
+ * Rows are processed in blocks: each instruction of the compiled {@link NodeProgram} runs over a whole block
+ * before the next one starts, so the per-node dispatch is paid once per block rather than once per row. The
+ * inner loops are simple element-wise loops over separate arrays, which the JIT compiles to SIMD instructions
+ * where the hardware supports them and to scalar loops otherwise. Large batches can be split across cores with
+ * {@link #evalParallel(Map, double[])}.
+ */
+public final class BatchEvaluator {
+
+    static final int BLOCK_SIZE = 1024;
+    static final int PARALLEL_THRESHOLD = 64 * BLOCK_SIZE;
+
+    private final NodeProgram program;
+
+    private BatchEvaluator(NodeProgram program) {
+        this.program = program;
+    }
+
+    public static BatchEvaluator of(Node n) {
+        return new BatchEvaluator(NodeProgram.compile(n));
+    }
+
+    public static BatchEvaluator of(NodeProgram program) {
+        return new BatchEvaluator(requireNonNull(program));
+    }
+
+    /**
+     * @return the names of the columns this evaluator reads
+     */
+    public List<String> variables() {
+        return program.variables();
+    }
+
+    /**
+     * Evaluate every row on the calling thread.
+     *
+     * @param columns the values of each variable, with at least {@code out.length} rows per column
+     * @param out     receives the result for each row
+     */
+    public void eval(Map<String, double[]> columns, double[] out) {
+        new Task(program, wrap(columns, out.length), out, 0, out.length).evalRange();
+    }
+
+    /**
+     * Evaluate every row on the calling thread, reading the columns from buffers, e.g., views of memory-mapped
+     * files. Rows are read by absolute index starting at each buffer's position; buffer positions are not changed.
+     *
+     * @param columns the values of each variable, with at least {@code out.length} remaining rows per buffer
+     * @param out     receives the result for each row
+     */
+    public void evalBuffers(Map<String, DoubleBuffer> columns, double[] out) {
+        new Task(program, slice(columns, out.length), out, 0, out.length).evalRange();
+    }
+
+    /**
+     * Evaluate the rows in parallel using the common fork-join pool.
+     *
+     * @see #evalParallel(Map, double[], ForkJoinPool)
+     */
+    public void evalParallel(Map<String, double[]> columns, double[] out) {
+        evalParallel(columns, out, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Evaluate the rows in parallel, splitting large batches into row ranges that are evaluated as separate
+     * fork-join tasks. Small batches are evaluated on the calling thread.
+     *
+     * @param columns the values of each variable, with at least {@code out.length} rows per column
+     * @param out     receives the result for each row
+     * @param pool    the pool to run the tasks in
+     */
+    public void evalParallel(Map<String, double[]> columns, double[] out, ForkJoinPool pool) {
+        pool.invoke(new Task(program, wrap(columns, out.length), out, 0, out.length));
+    }
+
+    private DoubleBuffer[] wrap(Map<String, double[]> columns, int rows) {
+        return bind(name -> {
+            var column = columns.get(name);
+            return isNull(column) ? null : DoubleBuffer.wrap(column);
+        }, rows);
+    }
+
+    private DoubleBuffer[] slice(Map<String, DoubleBuffer> columns, int rows) {
+        return bind(name -> {
+            var column = columns.get(name);
+            return isNull(column) ? null : column.slice();
+        }, rows);
+    }
+
+    private DoubleBuffer[] bind(Function<String, DoubleBuffer> columns, int rows) {
+        var variables = program.variables();
+        var bound = new DoubleBuffer[variables.size()];
+        for (var slot = 0; slot < bound.length; slot++) {
+            var name = variables.get(slot);
+            var column = columns.apply(name);
+            if (isNull(column)) {
+                throw new IllegalArgumentException("no column for variable " + name);
+            }
+            if (column.remaining() < rows) {
+                throw new IllegalArgumentException(
+                        "column " + name + " has " + column.remaining() + " rows but " + rows + " are required");
+            }
+            bound[slot] = column;
+        }
+        return bound;
+    }
+
+    // tasks are never serialized, so the fields that could not be are transient
+    private static final class Task extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient NodeProgram program;
+        private final transient DoubleBuffer[] columns;
+        private final double[] out;
+        private final int from;
+        private final int to;
+
+        Task(NodeProgram program, DoubleBuffer[] columns, double[] out, int from, int to) {
+            this.program = program;
+            this.columns = columns;
+            this.out = out;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                evalRange();
+                return;
+            }
+
+            // split on a block boundary so that only the last task has a partial block
+            var mid = from + ((to - from) / 2 / BLOCK_SIZE) * BLOCK_SIZE;
+            invokeAll(new Task(program, columns, out, from, mid), new Task(program, columns, out, mid, to));
+        }
+
+        void evalRange() {
+            var stack = new double[program.maxStack()][BLOCK_SIZE];
+            for (var start = from; start < to; start += BLOCK_SIZE) {
+                var length = Math.min(BLOCK_SIZE, to - start);
+                evalBlock(stack, start, length);
+                System.arraycopy(stack[0], 0, out, start, length);
+            }
+        }
+
+        private void evalBlock(double[][] stack, int start, int length) {
+            var code = program.code();
+            var constants = program.constants();
+            var sp = -1;
+            for (var pc = 0; pc < code.length; pc += 2) {
+                switch (code[pc]) {
+                    case CONST -> Arrays.fill(stack[++sp], 0, length, constants[code[pc + 1]]);
+                    case LOAD -> columns[code[pc + 1]].get(start, stack[++sp], 0, length);
+                    case ADD -> {
+                        sp--;
+                        add(stack[sp], stack[sp + 1], length);
+                    }
+                    case MUL -> {
+                        sp--;
+                        mul(stack[sp], stack[sp + 1], length);
+                    }
+                    case POW -> pow(stack[sp], code[pc + 1], length);
+                    case NEG -> neg(stack[sp], length);
+                    default -> throw new IllegalStateException("unknown opcode " + code[pc]);
+                }
+            }
+        }
+    }
+
+    private static void add(double[] acc, double[] operand, int length) {
+        for (var i = 0; i < length; i++) {
+            acc[i] = acc[i] + operand[i];
+        }
+    }
+
+    private static void mul(double[] acc, double[] operand, int length) {
+        for (var i = 0; i < length; i++) {
+            acc[i] = acc[i] * operand[i];
+        }
+    }
+
+    private static void pow(double[] acc, int exp, int length) {
+        for (var i = 0; i < length; i++) {
+            acc[i] = Math.pow(acc[i], exp);
+        }
+    }
+
+    private static void neg(double[] acc, int length) {
+        for (var i = 0; i < length; i++) {
+            acc[i] = -acc[i];
+        }
+    }
+}
@@ -0,0 +1,348 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates a hidden subclass of {@link CompiledExpression} per expression by writing the class file directly.
+ * <p>
+ * The generated {@code eval} method contains no branches, so no stack map frames are needed. Compiled
+ * expressions are cached by structural {@link Node} equality, so compiling an identical tree again is a lookup.
+ */
+final class BytecodeGenerator {
+
+    private static final int MAX_CACHED_EXPRESSIONS = 1024;
+
+    private static final Map<Node, CompiledExpression> CACHE = Collections.synchronizedMap(
+            new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Node, CompiledExpression> eldest) {
+                    return size() > MAX_CACHED_EXPRESSIONS;
+                }
+            });
+
+    private static final String CLASS_NAME = "com/acme/dop/math/CompiledExpression$Generated";
+    private static final String SUPER_NAME = "com/acme/dop/math/CompiledExpression";
+    private static final int MAX_CODE_LENGTH = 65_535;
+    private static final int MAX_POOL_SIZE = 65_535;
+
+    // class file version for Java 21
+    private static final int MAJOR_VERSION = 65;
+
+    private static final int ACC_PUBLIC = 0x0001;
+    private static final int ACC_FINAL = 0x0010;
+    private static final int ACC_SUPER = 0x0020;
+
+    private static final int CONSTANT_UTF8 = 1;
+    private static final int CONSTANT_INTEGER = 3;
+    private static final int CONSTANT_DOUBLE = 6;
+    private static final int CONSTANT_CLASS = 7;
+    private static final int CONSTANT_METHODREF = 10;
+    private static final int CONSTANT_NAME_AND_TYPE = 12;
+
+    private static final int ICONST_0 = 0x03;
+    private static final int DCONST_0 = 0x0e;
+    private static final int DCONST_1 = 0x0f;
+    private static final int BIPUSH = 0x10;
+    private static final int SIPUSH = 0x11;
+    private static final int LDC_W = 0x13;
+    private static final int LDC2_W = 0x14;
+    private static final int ALOAD_0 = 0x2a;
+    private static final int ALOAD_1 = 0x2b;
+    private static final int DALOAD = 0x31;
+    private static final int DADD = 0x63;
+    private static final int DMUL = 0x6b;
+    private static final int DNEG = 0x77;
+    private static final int DRETURN = 0xaf;
+    private static final int RETURN = 0xb1;
+    private static final int INVOKESPECIAL = 0xb7;
+    private static final int INVOKESTATIC = 0xb8;
+
+    private BytecodeGenerator() {
+    }
+
+    static CompiledExpression generate(Node n) {
+        var cached = CACHE.get(n);
+        if (cached != null) {
+            return cached;
+        }
+
+        var compiled = define(n);
+        CACHE.put(n, compiled);
+        return compiled;
+    }
+
+    private static CompiledExpression define(Node n) {
+        var writer = new ClassWriter();
+        var bytes = writer.write(n);
+        var variables = List.copyOf(writer.slots.keySet());
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            var constructor = lookup.findConstructor(lookup.lookupClass(),
+                    MethodType.methodType(void.class, List.class));
+            return (CompiledExpression) constructor.invoke(variables);
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("unable to define generated class for expression", e);
+        }
+    }
+
+    private static class ClassWriter {
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+
+        private final ByteArrayOutputStream poolBytes = new ByteArrayOutputStream();
+        private final DataOutputStream pool = new DataOutputStream(poolBytes);
+        private final Map<Object, Integer> poolIndexes = new HashMap<>();
+        private int poolCount = 1;
+
+        private final ByteArrayOutputStream codeBytes = new ByteArrayOutputStream();
+        private int depth;
+        private int maxDepth;
+
+        byte[] write(Node n) {
+            try {
+                return writeClass(n);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private byte[] writeClass(Node n) throws IOException {
+            var thisClass = classRef(CLASS_NAME);
+            var superClass = classRef(SUPER_NAME);
+            var superInit = methodRef(superClass, "<init>", "(Ljava/util/List;)V");
+            var initName = utf8("<init>");
+            var initDescriptor = utf8("(Ljava/util/List;)V");
+            var evalName = utf8("eval");
+            var evalDescriptor = utf8("([D)D");
+            var codeName = utf8("Code");
+
+            emit(n);
+            op(DRETURN, 0);
+            var evalCode = codeBytes.toByteArray();
+            if (evalCode.length > MAX_CODE_LENGTH) {
+                throw new IllegalArgumentException(
+                        "expression is too large to generate as a single method; use NodeMath.compile instead");
+            }
+
+            var initCode = new byte[] {
+                    (byte) ALOAD_0,
+                    (byte) ALOAD_1,
+                    (byte) INVOKESPECIAL, (byte) (superInit >> 8), (byte) superInit,
+                    (byte) RETURN
+            };
+
+            var classBytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(classBytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            out.writeShort(MAJOR_VERSION);
+            out.writeShort(poolCount);
+            out.write(poolBytes.toByteArray());
+            out.writeShort(ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(0);  // interfaces
+            out.writeShort(0);  // fields
+            out.writeShort(2);  // methods
+            writeMethod(out, initName, initDescriptor, codeName, 2, initCode);
+            writeMethod(out, evalName, evalDescriptor, codeName, maxDepth, evalCode);
+            out.writeShort(0);  // attributes
+            return classBytes.toByteArray();
+        }
+
+        private static void writeMethod(DataOutputStream out, int name, int descriptor, int codeName,
+                                        int maxStack, byte[] code) throws IOException {
+            out.writeShort(ACC_PUBLIC);
+            out.writeShort(name);
+            out.writeShort(descriptor);
+            out.writeShort(1);
+            out.writeShort(codeName);
+            out.writeInt(12 + code.length);
+            out.writeShort(maxStack);
+            out.writeShort(2);  // max locals: this, vars
+            out.writeInt(code.length);
+            out.write(code);
+            out.writeShort(0);  // exception table
+            out.writeShort(0);  // attributes
+        }
+
+        // Stack depth is tracked in JVM slots; every double takes two.
+        private void emit(Node n) throws IOException {
+            switch (n) {
+                case AddNode(var left, var right) -> {
+                    emit(left);
+                    emit(right);
+                    op(DADD, -2);
+                }
+                case MulNode(var left, var right) -> {
+                    emit(left);
+                    emit(right);
+                    op(DMUL, -2);
+                }
+                case ExpNode(var node, int exp) -> {
+                    emit(node);
+                    pushDouble(exp);
+                    var pow = methodRef(classRef("java/lang/Math"), "pow", "(DD)D");
+                    op(INVOKESTATIC, -2);
+                    codeBytes.write(pow >> 8);
+                    codeBytes.write(pow);
+                }
+                case NegNode(var node) -> {
+                    emit(node);
+                    op(DNEG, 0);
+                }
+                case ConstNode(double val) -> pushDouble(val);
+                case VarNode(String name) -> {
+                    op(ALOAD_1, 1);
+                    pushInt(slots.computeIfAbsent(name, k -> slots.size()));
+                    op(DALOAD, 0);
+                }
+            }
+        }
+
+        private void pushDouble(double val) throws IOException {
+            if (Double.doubleToRawLongBits(val) == 0L) {
+                op(DCONST_0, 2);
+            } else if (val == 1.0) {
+                op(DCONST_1, 2);
+            } else {
+                var index = doubleConstant(val);
+                op(LDC2_W, 2);
+                codeBytes.write(index >> 8);
+                codeBytes.write(index);
+            }
+        }
+
+        private void pushInt(int val) throws IOException {
+            if (val <= 5) {
+                op(ICONST_0 + val, 1);
+            } else if (val <= Byte.MAX_VALUE) {
+                op(BIPUSH, 1);
+                codeBytes.write(val);
+            } else if (val <= Short.MAX_VALUE) {
+                op(SIPUSH, 1);
+                codeBytes.write(val >> 8);
+                codeBytes.write(val);
+            } else {
+                var index = intConstant(val);
+                op(LDC_W, 1);
+                codeBytes.write(index >> 8);
+                codeBytes.write(index);
+            }
+        }
+
+        private void op(int opcode, int stackEffect) {
+            codeBytes.write(opcode);
+            depth += stackEffect;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+
+        private int utf8(String s) throws IOException {
+            var index = poolIndexes.get(s);
+            if (index != null) {
+                return index;
+            }
+            pool.writeByte(CONSTANT_UTF8);
+            pool.writeUTF(s);
+            return addEntry(s, 1);
+        }
+
+        private int classRef(String internalName) throws IOException {
+            var key = new ClassKey(internalName);
+            var index = poolIndexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            var name = utf8(internalName);
+            pool.writeByte(CONSTANT_CLASS);
+            pool.writeShort(name);
+            return addEntry(key, 1);
+        }
+
+        private int methodRef(int owner, String name, String descriptor) throws IOException {
+            var key = new MethodKey(owner, name, descriptor);
+            var index = poolIndexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            var nameAndType = nameAndType(name, descriptor);
+            pool.writeByte(CONSTANT_METHODREF);
+            pool.writeShort(owner);
+            pool.writeShort(nameAndType);
+            return addEntry(key, 1);
+        }
+
+        private int nameAndType(String name, String descriptor) throws IOException {
+            var key = new NameAndTypeKey(name, descriptor);
+            var index = poolIndexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            var nameIndex = utf8(name);
+            var descriptorIndex = utf8(descriptor);
+            pool.writeByte(CONSTANT_NAME_AND_TYPE);
+            pool.writeShort(nameIndex);
+            pool.writeShort(descriptorIndex);
+            return addEntry(key, 1);
+        }
+
+        private int doubleConstant(double val) throws IOException {
+            // keyed by raw bits so that -0.0 and NaN payloads stay distinct from other constants
+            var key = new DoubleKey(Double.doubleToRawLongBits(val));
+            var index = poolIndexes.get(key);
+            if (index != null) {
+                return index;
+            }
+            pool.writeByte(CONSTANT_DOUBLE);
+            pool.writeLong(key.bits());
+            return addEntry(key, 2);
+        }
+
+        private int intConstant(int val) throws IOException {
+            var index = poolIndexes.get(val);
+            if (index != null) {
+                return index;
+            }
+            pool.writeByte(CONSTANT_INTEGER);
+            pool.writeInt(val);
+            return addEntry(val, 1);
+        }
+
+        private int addEntry(Object key, int width) {
+            var index = poolCount;
+            if (index + width > MAX_POOL_SIZE) {
+                throw new IllegalArgumentException(
+                        "expression has too many constants to generate; use NodeMath.compile instead");
+            }
+            poolIndexes.put(key, index);
+            poolCount += width;
+            return index;
+        }
+
+        private record ClassKey(String internalName) { }
+
+        private record NameAndTypeKey(String name, String descriptor) { }
+
+        private record MethodKey(int owner, String name, String descriptor) { }
+
+        private record DoubleKey(long bits) { }
+    }
+}
@@ -0,0 +1,46 @@
+package com.acme.dop.math;
+
+import java.util.List;
+
+/**
+ * A {@link Node} expression compiled to JVM bytecode.
+ * <p>
+ * Instances are hidden classes generated by {@link NodeMath#generate(Node)}; the {@link #eval(double[])} method
+ * of each is the whole expression as straight-line double arithmetic, which the JIT can inline and
+ * register-allocate like hand-written code.
+ */
+public abstract class CompiledExpression {
+
+    private final List<String> variables;
+
+    // Only generated subclasses in this package may extend this class.
+    CompiledExpression(List<String> variables) {
+        this.variables = variables;
+    }
+
+    /**
+     * @return the variable names in slot order, i.e., the order {@link #eval(double[])} expects their values
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the variable, or -1 if the expression does not reference it
+     */
+    public int slot(String name) {
+        return variables.indexOf(name);
+    }
+
+    /**
+     * @param vars the variable values in slot order; elements beyond {@link #variables()} are ignored
+     * @return the value of the expression
+     */
+    public abstract double eval(double[] vars);
+
+    @Override
+    public String toString() {
+        return "CompiledExpression" + variables;
+    }
+}
@@ -0,0 +1,235 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static java.util.Objects.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reverse-mode automatic differentiation of a {@link Node} expression.
+ * <p>
+ * The expression is compiled once into a tape of operations in post-order, i.e., every operation comes after the
+ * operations for its operands. {@link #gradient(double[], double[], double[])} runs a forward pass that records
+ * the value of each operation, then one backward sweep that propagates adjoints from the root to the variables.
+ * The cost is a small constant multiple of one evaluation, however many variables there are. Shared node
+ * instances, e.g., from a {@link NodeInterner}, appear on the tape once.
+ * <p>
+ * Like {@link NodeProgram}, the program is immutable and the caller owns the work frame, so repeated calls do not
+ * allocate.
+ */
+public final class GradientProgram {
+
+    private static final int CONST = 0;
+    private static final int VAR = 1;
+    private static final int ADD = 2;
+    private static final int MUL = 3;
+    private static final int POW = 4;
+    private static final int NEG = 5;
+
+    /**
+     * The value of an expression and its partial derivatives.
+     *
+     * @param value    the value of the expression
+     * @param partials the partial derivative with respect to each variable in the expression
+     */
+    public record Gradient(double value, Map<String, Double> partials) {
+    }
+
+    private final int[] ops;
+    private final int[] left;
+    // right operand index for ADD and MUL, the exponent for POW, the slot for VAR
+    private final int[] arg;
+    private final double[] constants;
+    private final List<String> variables;
+
+    private GradientProgram(int[] ops, int[] left, int[] arg, double[] constants, List<String> variables) {
+        this.ops = ops;
+        this.left = left;
+        this.arg = arg;
+        this.constants = constants;
+        this.variables = variables;
+    }
+
+    public static GradientProgram compile(Node n) {
+        var compiler = new Compiler();
+        compiler.emit(n);
+        var size = compiler.ops.size();
+        var ops = new int[size];
+        var left = new int[size];
+        var arg = new int[size];
+        var constants = new double[size];
+        for (var i = 0; i < size; i++) {
+            ops[i] = compiler.ops.get(i);
+            left[i] = compiler.left.get(i);
+            arg[i] = compiler.arg.get(i);
+            constants[i] = compiler.constants.get(i);
+        }
+        return new GradientProgram(ops, left, arg, constants, List.copyOf(compiler.slots.keySet()));
+    }
+
+    /**
+     * @return the variable names in slot order
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the variable, or -1 if the expression does not reference it
+     */
+    public int slot(String name) {
+        return variables.indexOf(name);
+    }
+
+    /**
+     * @return the number of operations on the tape
+     */
+    public int tapeLength() {
+        return ops.length;
+    }
+
+    /**
+     * @return a work frame for {@link #gradient(double[], double[], double[])}, intended to be reused across calls
+     */
+    public double[] newFrame() {
+        return new double[2 * ops.length];
+    }
+
+    /**
+     * Compute the value of the expression and its partial derivative with respect to every variable.
+     *
+     * @param vars     the variable values in slot order
+     * @param frame    work space, see {@link #newFrame()}
+     * @param gradient receives the partial derivatives in slot order
+     * @return the value of the expression
+     */
+    public double gradient(double[] vars, double[] frame, double[] gradient) {
+        var length = ops.length;
+        if (frame.length < 2 * length) {
+            throw new IllegalArgumentException("frame must have at least " + 2 * length + " elements");
+        }
+        if (vars.length < variables.size() || gradient.length < variables.size()) {
+            throw new IllegalArgumentException(
+                    "vars and gradient must have at least " + variables.size() + " elements");
+        }
+
+        // forward pass: frame[0, length) holds the value of each operation
+        for (var i = 0; i < length; i++) {
+            frame[i] = switch (ops[i]) {
+                case CONST -> constants[i];
+                case VAR -> vars[arg[i]];
+                case ADD -> frame[left[i]] + frame[arg[i]];
+                case MUL -> frame[left[i]] * frame[arg[i]];
+                case POW -> Math.pow(frame[left[i]], arg[i]);
+                case NEG -> -frame[left[i]];
+                default -> throw new IllegalStateException("unknown operation " + ops[i]);
+            };
+        }
+
+        // backward sweep: frame[length, 2 * length) holds the adjoint of each operation
+        Arrays.fill(frame, length, 2 * length, 0.0);
+        Arrays.fill(gradient, 0, variables.size(), 0.0);
+        frame[2 * length - 1] = 1.0;
+        for (var i = length - 1; i >= 0; i--) {
+            var adjoint = frame[length + i];
+            switch (ops[i]) {
+                case CONST -> {
+                }
+                case VAR -> gradient[arg[i]] += adjoint;
+                case ADD -> {
+                    frame[length + left[i]] += adjoint;
+                    frame[length + arg[i]] += adjoint;
+                }
+                case MUL -> {
+                    frame[length + left[i]] += adjoint * frame[arg[i]];
+                    frame[length + arg[i]] += adjoint * frame[left[i]];
+                }
+                case POW -> {
+                    var exp = arg[i];
+                    if (exp != 0) {
+                        frame[length + left[i]] += adjoint * exp * Math.pow(frame[left[i]], exp - 1);
+                    }
+                }
+                case NEG -> frame[length + left[i]] -= adjoint;
+                default -> throw new IllegalStateException("unknown operation " + ops[i]);
+            }
+        }
+        return frame[length - 1];
+    }
+
+    /**
+     * Compute the value and gradient with variable values looked up by name. This allocates; use
+     * {@link #gradient(double[], double[], double[])} in hot paths.
+     *
+     * @param vars the variable values
+     * @return the value and partial derivatives
+     */
+    public Gradient gradient(Function<String, Double> vars) {
+        var values = new double[variables.size()];
+        for (var slot = 0; slot < values.length; slot++) {
+            values[slot] = requireNonNull(vars, "vars must not be null when VarNodes exist").apply(variables.get(slot));
+        }
+        var partials = new double[variables.size()];
+        var value = gradient(values, newFrame(), partials);
+
+        var result = new LinkedHashMap<String, Double>();
+        for (var slot = 0; slot < partials.length; slot++) {
+            result.put(variables.get(slot), partials[slot]);
+        }
+        return new Gradient(value, Collections.unmodifiableMap(result));
+    }
+
+    private static class Compiler {
+        final List<Integer> ops = new ArrayList<>();
+        final List<Integer> left = new ArrayList<>();
+        final List<Integer> arg = new ArrayList<>();
+        final List<Double> constants = new ArrayList<>();
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+        final Map<Node, Integer> emitted = new IdentityHashMap<>();
+
+        int emit(Node n) {
+            var existing = emitted.get(n);
+            if (existing != null) {
+                return existing;
+            }
+
+            var index = switch (n) {
+                case AddNode(var l, var r) -> {
+                    var li = emit(l);
+                    yield op(ADD, li, emit(r), 0);
+                }
+                case MulNode(var l, var r) -> {
+                    var li = emit(l);
+                    yield op(MUL, li, emit(r), 0);
+                }
+                case ExpNode(var node, int exp) -> op(POW, emit(node), exp, 0);
+                case NegNode(var node) -> op(NEG, emit(node), 0, 0);
+                case ConstNode(double val) -> op(CONST, 0, 0, val);
+                case VarNode(String name) -> op(VAR, 0, slots.computeIfAbsent(name, k -> slots.size()), 0);
+            };
+            emitted.put(n, index);
+            return index;
+        }
+
+        private int op(int op, int l, int a, double constant) {
+            ops.add(op);
+            left.add(l);
+            arg.add(a);
+            constants.add(constant);
+            return ops.size() - 1;
+        }
+    }
+}
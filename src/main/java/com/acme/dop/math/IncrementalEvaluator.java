@@ -0,0 +1,334 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Evaluates a {@link Node} expression repeatedly while only some of its variables change, reusing the cached values
+ * of every subexpression that does not depend on them.
+ * <p>
+ * The expression is flattened once into arrays in post-order, so children always come before their parents, with
+ * nodes that are shared by identity stored once. Each node records its parents and each variable its leaves.
+ * Changing a variable marks the paths from its leaves to the root as dirty, and the next {@link #value()} recomputes
+ * just the dirty nodes, in index order. Setting a variable to its current value marks nothing.
+ * <p>
+ * Variables start at zero with every node dirty, so the first {@link #value()} computes the whole expression. The
+ * results are identical to {@link NodeMath#eval(Node, Function)} for the same variable values.
+ * <p>
+ * An evaluator holds mutable state and is not thread-safe.
+ */
+public final class IncrementalEvaluator {
+
+    private static final byte CONST = 0;
+    private static final byte VAR = 1;
+    private static final byte ADD = 2;
+    private static final byte MUL = 3;
+    private static final byte POW = 4;
+    private static final byte NEG = 5;
+
+    // per node, in post-order; operand is the left child, the slot of a variable, or unused
+    private final byte[] kinds;
+    private final int[] operands;
+    private final int[] rightOrExponent;
+    private final double[] values;
+
+    // the parents of node i are parents[parentStart[i]] until parentStart[i + 1]
+    private final int[] parentStart;
+    private final int[] parents;
+
+    // the leaves of slot s are leaves[leafStart[s]] until leafStart[s + 1]
+    private final int[] leafStart;
+    private final int[] leaves;
+
+    private final List<String> variables;
+    private final Map<String, Integer> slots;
+    private final double[] variableValues;
+
+    private final boolean[] dirty;
+    private int[] dirtyNodes;
+    private int dirtyCount;
+    private int[] pending = new int[16];
+
+    private long recomputed;
+    private long reused;
+
+    private IncrementalEvaluator(Flattener flattener) {
+        var nodeCount = flattener.kinds.size();
+        this.kinds = new byte[nodeCount];
+        this.operands = new int[nodeCount];
+        this.rightOrExponent = new int[nodeCount];
+        this.values = new double[nodeCount];
+        for (var i = 0; i < nodeCount; i++) {
+            kinds[i] = flattener.kinds.get(i);
+            operands[i] = flattener.operands.get(i);
+            rightOrExponent[i] = flattener.rightOrExponent.get(i);
+            values[i] = flattener.constants.get(i);
+        }
+
+        this.variables = List.copyOf(flattener.slots.keySet());
+        this.slots = Map.copyOf(flattener.slots);
+        this.variableValues = new double[variables.size()];
+
+        // count first, then fill, to build the compressed parent and leaf lists
+        this.parentStart = new int[nodeCount + 1];
+        this.leafStart = new int[variables.size() + 1];
+        for (var i = 0; i < nodeCount; i++) {
+            switch (kinds[i]) {
+                case ADD, MUL -> {
+                    parentStart[operands[i] + 1]++;
+                    parentStart[rightOrExponent[i] + 1]++;
+                }
+                case POW, NEG -> parentStart[operands[i] + 1]++;
+                case VAR -> leafStart[operands[i] + 1]++;
+                default -> {
+                }
+            }
+        }
+        for (var i = 0; i < nodeCount; i++) {
+            parentStart[i + 1] += parentStart[i];
+        }
+        for (var s = 0; s < variables.size(); s++) {
+            leafStart[s + 1] += leafStart[s];
+        }
+        this.parents = new int[parentStart[nodeCount]];
+        this.leaves = new int[leafStart[variables.size()]];
+        var parentFill = Arrays.copyOf(parentStart, nodeCount);
+        var leafFill = Arrays.copyOf(leafStart, variables.size());
+        for (var i = 0; i < nodeCount; i++) {
+            switch (kinds[i]) {
+                case ADD, MUL -> {
+                    parents[parentFill[operands[i]]++] = i;
+                    parents[parentFill[rightOrExponent[i]]++] = i;
+                }
+                case POW, NEG -> parents[parentFill[operands[i]]++] = i;
+                case VAR -> leaves[leafFill[operands[i]]++] = i;
+                default -> {
+                }
+            }
+        }
+
+        this.dirty = new boolean[nodeCount];
+        this.dirtyNodes = new int[Math.max(16, nodeCount / 16)];
+        for (var i = 0; i < nodeCount; i++) {
+            if (kinds[i] != CONST) {
+                markDirty(i);
+            }
+        }
+    }
+
+    public static IncrementalEvaluator of(Node n) {
+        var flattener = new Flattener();
+        flattener.flatten(n);
+        return new IncrementalEvaluator(flattener);
+    }
+
+    /**
+     * @return the variable names in slot order
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the variable, or -1 if the expression does not use it
+     */
+    public int slot(String name) {
+        return slots.getOrDefault(name, -1);
+    }
+
+    /**
+     * @return the number of distinct nodes in the flattened expression
+     */
+    public int nodeCount() {
+        return kinds.length;
+    }
+
+    public void set(String name, double value) {
+        var slot = slot(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("unknown variable " + name);
+        }
+        set(slot, value);
+    }
+
+    public void set(int slot, double value) {
+        if (Double.compare(variableValues[slot], value) == 0) {
+            return;
+        }
+        variableValues[slot] = value;
+        for (var i = leafStart[slot]; i < leafStart[slot + 1]; i++) {
+            markDirty(leaves[i]);
+        }
+    }
+
+    /**
+     * Set every variable, e.g., to initialize the evaluator. Unchanged values still mark nothing.
+     */
+    public void setAll(Function<String, Double> vars) {
+        for (var slot = 0; slot < variables.size(); slot++) {
+            set(slot, vars.apply(variables.get(slot)));
+        }
+    }
+
+    public double get(String name) {
+        var slot = slot(name);
+        if (slot < 0) {
+            throw new IllegalArgumentException("unknown variable " + name);
+        }
+        return variableValues[slot];
+    }
+
+    /**
+     * Bring the cached values up to date and return the value of the whole expression.
+     */
+    public double value() {
+        if (dirtyCount > 0) {
+            // post-order indices are a topological order, so children are recomputed before their parents
+            Arrays.sort(dirtyNodes, 0, dirtyCount);
+            for (var d = 0; d < dirtyCount; d++) {
+                var i = dirtyNodes[d];
+                values[i] = compute(i);
+                dirty[i] = false;
+            }
+        }
+        recomputed += dirtyCount;
+        reused += kinds.length - dirtyCount;
+        dirtyCount = 0;
+        return values[kinds.length - 1];
+    }
+
+    /**
+     * @return the total number of nodes recomputed by {@link #value()} since creation or the last reset
+     */
+    public long recomputed() {
+        return recomputed;
+    }
+
+    /**
+     * @return the total number of cached node values that {@link #value()} used without recomputing them
+     */
+    public long reused() {
+        return reused;
+    }
+
+    public void resetCounters() {
+        recomputed = 0;
+        reused = 0;
+    }
+
+    private double compute(int i) {
+        return switch (kinds[i]) {
+            case VAR -> variableValues[operands[i]];
+            case ADD -> values[operands[i]] + values[rightOrExponent[i]];
+            case MUL -> values[operands[i]] * values[rightOrExponent[i]];
+            case POW -> Math.pow(values[operands[i]], rightOrExponent[i]);
+            case NEG -> -values[operands[i]];
+            default -> values[i];
+        };
+    }
+
+    // Marks the node and its ancestors, stopping at nodes that are already dirty since their ancestors are too.
+    private void markDirty(int node) {
+        if (dirty[node]) {
+            return;
+        }
+        var size = 0;
+        pending[size++] = node;
+        dirty[node] = true;
+        while (size > 0) {
+            var i = pending[--size];
+            if (dirtyCount == dirtyNodes.length) {
+                dirtyNodes = Arrays.copyOf(dirtyNodes, 2 * dirtyCount);
+            }
+            dirtyNodes[dirtyCount++] = i;
+            for (var p = parentStart[i]; p < parentStart[i + 1]; p++) {
+                var parent = parents[p];
+                if (!dirty[parent]) {
+                    dirty[parent] = true;
+                    if (size == pending.length) {
+                        pending = Arrays.copyOf(pending, 2 * size);
+                    }
+                    pending[size++] = parent;
+                }
+            }
+        }
+    }
+
+    // Assigns post-order indices with an explicit stack, so expressions of any depth can be flattened.
+    private static class Flattener {
+        private final List<Byte> kinds = new ArrayList<>();
+        private final List<Integer> operands = new ArrayList<>();
+        private final List<Integer> rightOrExponent = new ArrayList<>();
+        private final List<Double> constants = new ArrayList<>();
+        private final Map<String, Integer> slots = new LinkedHashMap<>();
+        private final Map<Node, Integer> indices = new IdentityHashMap<>();
+
+        void flatten(Node root) {
+            var work = new ArrayList<Node>();
+            var expanded = new ArrayList<Boolean>();
+            work.add(root);
+            expanded.add(false);
+            while (!work.isEmpty()) {
+                var last = work.size() - 1;
+                var node = work.get(last);
+                if (indices.containsKey(node)) {
+                    work.remove(last);
+                    expanded.remove(last);
+                    continue;
+                }
+                if (!expanded.get(last)) {
+                    expanded.set(last, true);
+                    switch (node) {
+                        case AddNode(var left, var right) -> pushAll(work, expanded, right, left);
+                        case MulNode(var left, var right) -> pushAll(work, expanded, right, left);
+                        case ExpNode(var child, int ignored) -> pushAll(work, expanded, child);
+                        case NegNode(var child) -> pushAll(work, expanded, child);
+                        case ConstNode ignored -> {
+                        }
+                        case VarNode ignored -> {
+                        }
+                    }
+                    continue;
+                }
+                work.remove(last);
+                expanded.remove(last);
+                switch (node) {
+                    case AddNode(var left, var right) -> add(node, ADD, indices.get(left), indices.get(right), 0);
+                    case MulNode(var left, var right) -> add(node, MUL, indices.get(left), indices.get(right), 0);
+                    case ExpNode(var child, int exp) -> add(node, POW, indices.get(child), exp, 0);
+                    case NegNode(var child) -> add(node, NEG, indices.get(child), 0, 0);
+                    case ConstNode(double val) -> add(node, CONST, 0, 0, val);
+                    case VarNode(String name) -> add(node, VAR, slots.computeIfAbsent(name, k -> slots.size()), 0, 0);
+                }
+            }
+        }
+
+        private static void pushAll(List<Node> work, List<Boolean> expanded, Node... children) {
+            for (var child : children) {
+                work.add(child);
+                expanded.add(false);
+            }
+        }
+
+        private void add(Node node, byte kind, int operand, int second, double constant) {
+            indices.put(node, kinds.size());
+            kinds.add(kind);
+            operands.add(operand);
+            rightOrExponent.add(second);
+            constants.add(constant);
+        }
+    }
+}
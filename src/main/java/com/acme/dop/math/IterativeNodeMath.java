@@ -0,0 +1,242 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static java.util.Objects.requireNonNull;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * Stack-safe versions of {@link NodeMath#eval(Node, Function)}, {@link NodeMath#format(Node)} and
+ * {@link NodeMath#diff(Node, String)} that use explicit stacks instead of Java recursion, so expressions of any
+ * depth can be processed, e.g., left-deep chains of thousands of {@link AddNode}s. The results are identical to
+ * those of the recursive versions.
+ * <p>
+ * An instance keeps its stacks between calls, growing them as needed, so once they are large enough the traversal
+ * itself does not allocate. Instances are not thread-safe; use one per thread.
+ */
+public final class IterativeNodeMath {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    // what to do when an entry is popped from the work stack
+    private static final byte VISIT = 0;
+    private static final byte COMBINE = 1;
+    private static final byte TEXT = 2;
+    private static final byte EXPONENT = 3;
+
+    private Object[] work = new Object[INITIAL_CAPACITY];
+    private byte[] actions = new byte[INITIAL_CAPACITY];
+    private int workSize;
+
+    private double[] values = new double[INITIAL_CAPACITY];
+    private int valuesSize;
+
+    private Node[] results = new Node[INITIAL_CAPACITY];
+    private int resultsSize;
+
+    private final StringBuilder text = new StringBuilder();
+
+    public double eval(Node n) {
+        return eval(n, null);
+    }
+
+    public double eval(Node n, Function<String, Double> vars) {
+        reset();
+        push(n, VISIT);
+        while (workSize > 0) {
+            var action = actions[workSize - 1];
+            var node = (Node) pop();
+
+            if (action == VISIT) {
+                switch (node) {
+                    case AddNode(var left, var right) -> pushChildren(node, left, right);
+                    case MulNode(var left, var right) -> pushChildren(node, left, right);
+                    case ExpNode(var child, int ignored) -> pushChild(node, child);
+                    case NegNode(var child) -> pushChild(node, child);
+                    case ConstNode(double val) -> pushValue(val);
+                    case VarNode(String name) ->
+                            pushValue(requireNonNull(vars, "vars must not be null when VarNodes exist").apply(name));
+                }
+            } else {
+                switch (node) {
+                    case AddNode ignored -> {
+                        var right = values[--valuesSize];
+                        values[valuesSize - 1] = values[valuesSize - 1] + right;
+                    }
+                    case MulNode ignored -> {
+                        var right = values[--valuesSize];
+                        values[valuesSize - 1] = values[valuesSize - 1] * right;
+                    }
+                    case ExpNode(var ignored, int exp) ->
+                            values[valuesSize - 1] = Math.pow(values[valuesSize - 1], exp);
+                    case NegNode ignored -> values[valuesSize - 1] = -values[valuesSize - 1];
+                    case ConstNode ignored -> throw new IllegalStateException("constants are never combined");
+                    case VarNode ignored -> throw new IllegalStateException("variables are never combined");
+                }
+            }
+        }
+        return values[--valuesSize];
+    }
+
+    public String format(Node n) {
+        reset();
+        text.setLength(0);
+        push(n, VISIT);
+        while (workSize > 0) {
+            var action = actions[workSize - 1];
+            var item = pop();
+
+            switch (action) {
+                case TEXT -> text.append((String) item);
+                case EXPONENT -> text.append('^').append(((ExpNode) item).exp());
+                default -> {
+                    switch ((Node) item) {
+                        case AddNode(var left, var right) -> {
+                            text.append('(');
+                            push(")", TEXT);
+                            push(right, VISIT);
+                            push(" + ", TEXT);
+                            push(left, VISIT);
+                        }
+                        case MulNode(var left, var right) -> {
+                            text.append('(');
+                            push(")", TEXT);
+                            push(right, VISIT);
+                            push(" * ", TEXT);
+                            push(left, VISIT);
+                        }
+                        case ExpNode expNode -> {
+                            push(expNode, EXPONENT);
+                            push(expNode.left(), VISIT);
+                        }
+                        case NegNode(var node) -> {
+                            text.append('-');
+                            push(node, VISIT);
+                        }
+                        case ConstNode(double val) -> text.append(val);
+                        case VarNode(String name) -> text.append(name);
+                    }
+                }
+            }
+        }
+        return text.toString();
+    }
+
+    /**
+     * Differentiate with respect to a single variable, using the same rules as {@link NodeMath#diff(Node, String)}.
+     *
+     * @param n       the expression to differentiate as a Node
+     * @param varName the variable, e.g., x or y
+     * @return the differentiation result as a Node
+     */
+    public Node diff(Node n, String varName) {
+        reset();
+        push(n, VISIT);
+        while (workSize > 0) {
+            var action = actions[workSize - 1];
+            var node = (Node) pop();
+
+            if (action == VISIT) {
+                switch (node) {
+                    case AddNode(var left, var right) -> pushChildren(node, left, right);
+                    case MulNode(var left, ConstNode ignored) -> pushChild(node, left);
+                    case MulNode(ConstNode ignored, var right) -> pushChild(node, right);
+                    case MulNode(var left, var right) -> pushChildren(node, left, right);
+                    case ExpNode(var child, int ignored) -> pushChild(node, child);
+                    case NegNode(var child) -> pushChild(node, child);
+                    case ConstNode ignored -> pushResult(val(0));
+                    case VarNode(String name) -> pushResult(name.equals(varName) ? val(1) : val(0));
+                }
+            } else {
+                switch (node) {
+                    case AddNode ignored -> {
+                        var right = popResult();
+                        pushResult(add(popResult(), right));
+                    }
+                    case MulNode(var ignored, ConstNode(double val)) -> pushResult(mul(val(val), popResult()));
+                    case MulNode(ConstNode(double val), var ignored) -> pushResult(mul(val(val), popResult()));
+                    case MulNode(var left, var right) -> {
+                        var diffRight = popResult();
+                        var diffLeft = popResult();
+                        pushResult(add(mul(left, diffRight), mul(diffLeft, right)));
+                    }
+                    case ExpNode(var child, int exp) ->
+                            pushResult(mul(val(exp), mul(exp(child, exp - 1), popResult())));
+                    case NegNode ignored -> pushResult(neg(popResult()));
+                    case ConstNode ignored -> throw new IllegalStateException("constants are never combined");
+                    case VarNode ignored -> throw new IllegalStateException("variables are never combined");
+                }
+            }
+        }
+        return popResult();
+    }
+
+    // Discards anything left behind by a call that threw, e.g., because vars was null.
+    private void reset() {
+        Arrays.fill(work, 0, workSize, null);
+        Arrays.fill(results, 0, resultsSize, null);
+        workSize = 0;
+        valuesSize = 0;
+        resultsSize = 0;
+    }
+
+    // The left child is pushed last so that it is processed first, as in the recursive versions.
+    private void pushChildren(Node parent, Node left, Node right) {
+        push(parent, COMBINE);
+        push(right, VISIT);
+        push(left, VISIT);
+    }
+
+    private void pushChild(Node parent, Node child) {
+        push(parent, COMBINE);
+        push(child, VISIT);
+    }
+
+    private void push(Object item, byte action) {
+        if (workSize == work.length) {
+            work = Arrays.copyOf(work, 2 * workSize);
+            actions = Arrays.copyOf(actions, 2 * workSize);
+        }
+        work[workSize] = item;
+        actions[workSize] = action;
+        workSize++;
+    }
+
+    // Clears the popped slot so that the stack does not keep finished expressions reachable.
+    private Object pop() {
+        var item = work[--workSize];
+        work[workSize] = null;
+        return item;
+    }
+
+    private void pushValue(double value) {
+        if (valuesSize == values.length) {
+            values = Arrays.copyOf(values, 2 * valuesSize);
+        }
+        values[valuesSize++] = value;
+    }
+
+    private void pushResult(Node result) {
+        if (resultsSize == results.length) {
+            results = Arrays.copyOf(results, 2 * resultsSize);
+        }
+        results[resultsSize++] = result;
+    }
+
+    private Node popResult() {
+        var result = results[--resultsSize];
+        results[resultsSize] = null;
+        return result;
+    }
+}
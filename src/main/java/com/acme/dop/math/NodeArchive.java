@@ -0,0 +1,437 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static java.util.Objects.checkIndex;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A compact binary encoding of many {@link Node} expressions, read lazily from a {@link ByteBuffer}, typically a
+ * memory-mapped file.
+ * <p>
+ * Each expression is stored as its nodes in postfix order: a one-byte tag per node, followed by a raw little-endian
+ * double for constants, a varint index into a shared string table for variables, and a zigzag varint for exponents.
+ * Index tables at the end of the archive give the position of every expression and string, so opening an archive
+ * only reads the header, and {@link #get(int)} decodes just the requested expression.
+ * <p>
+ * The layout is a 24-byte header (magic, version, expression count, string count, and the offsets of the two index
+ * tables), the expression bodies, the UTF-8 bytes of the strings, the string index and the expression index. Index
+ * entries are pairs of 32-bit offset and length. All numbers are little-endian.
+ * <p>
+ * Archives are written with a {@link Writer}. An archive is thread-safe; decoded variables are cached and shared
+ * between the expressions that use them.
+ */
+public final class NodeArchive {
+
+    static final int MAGIC = 0x4E4F4445; // "NODE"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 24;
+
+    static final byte CONST = 0;
+    static final byte VAR = 1;
+    static final byte ADD = 2;
+    static final byte MUL = 3;
+    static final byte EXP = 4;
+    static final byte NEG = 5;
+
+    private final ByteBuffer buffer;
+    private final int expressionCount;
+    private final int stringCount;
+    private final int expressionIndex;
+    private final int stringIndex;
+    private final VarNode[] variables;
+
+    private NodeArchive(ByteBuffer buffer) {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("not a node archive");
+        }
+        if (buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("unsupported node archive version " + buffer.getInt(4));
+        }
+        this.expressionCount = buffer.getInt(8);
+        this.stringCount = buffer.getInt(12);
+        this.stringIndex = buffer.getInt(16);
+        this.expressionIndex = buffer.getInt(20);
+        checkTable(stringIndex, stringCount);
+        checkTable(expressionIndex, expressionCount);
+        this.variables = new VarNode[stringCount];
+    }
+
+    /**
+     * Read an archive from the buffer's content between position and limit. The buffer is not modified.
+     */
+    public static NodeArchive of(ByteBuffer buffer) {
+        return new NodeArchive(buffer.slice().order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    public static NodeArchive of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    /**
+     * Memory-map an archive file. The mapping stays valid after this method returns, until the archive is
+     * garbage collected.
+     *
+     * @param path the archive file
+     * @return the archive
+     * @throws IOException if the file cannot be mapped
+     */
+    public static NodeArchive map(Path path) throws IOException {
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return of(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static Writer writer() {
+        return new Writer();
+    }
+
+    /**
+     * @return the number of expressions
+     */
+    public int size() {
+        return expressionCount;
+    }
+
+    /**
+     * @param index the expression index, in the order the expressions were added to the writer
+     * @return the number of bytes the expression occupies in the archive
+     */
+    public int encodedLength(int index) {
+        checkIndex(index, expressionCount);
+        return buffer.getInt(expressionIndex + 8 * index + 4);
+    }
+
+    /**
+     * Decode one expression.
+     *
+     * @param index the expression index, in the order the expressions were added to the writer
+     * @return the expression
+     * @throws IllegalArgumentException if the archive is corrupt
+     */
+    public Node get(int index) {
+        checkIndex(index, expressionCount);
+        var start = buffer.getInt(expressionIndex + 8 * index);
+        var end = checkRange(start, buffer.getInt(expressionIndex + 8 * index + 4));
+
+        var stack = new Node[16];
+        var size = 0;
+        var pos = start;
+        while (pos < end) {
+            var tag = buffer.get(pos++);
+            if (tag == CONST || tag == VAR) {
+                if (size == stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * size);
+                }
+                if (tag == CONST) {
+                    if (end - pos < 8) {
+                        throw corrupt(index);
+                    }
+                    stack[size++] = val(buffer.getDouble(pos));
+                    pos += 8;
+                } else {
+                    var stringNumber = 0;
+                    var shift = 0;
+                    byte b;
+                    do {
+                        if (pos == end) {
+                            throw corrupt(index);
+                        }
+                        b = buffer.get(pos++);
+                        stringNumber |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0 && shift < 35);
+                    stack[size++] = variable(stringNumber);
+                }
+                continue;
+            }
+
+            if (size < (tag == ADD || tag == MUL ? 2 : 1)) {
+                throw corrupt(index);
+            }
+            switch (tag) {
+                case ADD -> {
+                    size--;
+                    stack[size - 1] = add(stack[size - 1], stack[size]);
+                }
+                case MUL -> {
+                    size--;
+                    stack[size - 1] = mul(stack[size - 1], stack[size]);
+                }
+                case NEG -> stack[size - 1] = neg(stack[size - 1]);
+                case EXP -> {
+                    var zigzag = 0;
+                    var shift = 0;
+                    byte b;
+                    do {
+                        if (pos == end) {
+                            throw corrupt(index);
+                        }
+                        b = buffer.get(pos++);
+                        zigzag |= (b & 0x7F) << shift;
+                        shift += 7;
+                    } while (b < 0 && shift < 35);
+                    stack[size - 1] = exp(stack[size - 1], (zigzag >>> 1) ^ -(zigzag & 1));
+                }
+                default -> throw corrupt(index);
+            }
+        }
+        if (size != 1) {
+            throw corrupt(index);
+        }
+        return stack[0];
+    }
+
+    // Variables are decoded once; racing threads may both decode one, which is harmless.
+    private VarNode variable(int stringNumber) {
+        if (stringNumber < 0 || stringNumber >= stringCount) {
+            throw new IllegalArgumentException("corrupt node archive string reference " + stringNumber);
+        }
+        var cached = variables[stringNumber];
+        if (cached == null) {
+            var start = buffer.getInt(stringIndex + 8 * stringNumber);
+            var length = buffer.getInt(stringIndex + 8 * stringNumber + 4);
+            checkRange(start, length);
+            var bytes = new byte[length];
+            buffer.get(start, bytes);
+            cached = Node.variable(new String(bytes, StandardCharsets.UTF_8));
+            variables[stringNumber] = cached;
+        }
+        return cached;
+    }
+
+    private void checkTable(int offset, int entries) {
+        if (entries < 0 || offset < HEADER_SIZE || (long) offset + 8L * entries > buffer.capacity()) {
+            throw new IllegalArgumentException("corrupt node archive header");
+        }
+    }
+
+    private int checkRange(int start, int length) {
+        if (start < HEADER_SIZE || length < 0 || (long) start + length > buffer.capacity()) {
+            throw new IllegalArgumentException("corrupt node archive index");
+        }
+        return start + length;
+    }
+
+    private static IllegalArgumentException corrupt(int index) {
+        return new IllegalArgumentException("corrupt node archive expression " + index);
+    }
+
+    /**
+     * Accumulates expressions and writes them as an archive. Expressions are encoded as they are added, with an
+     * explicit stack, so they can be of any depth. Not thread-safe.
+     */
+    public static final class Writer {
+
+        private final Map<String, Integer> strings = new HashMap<>();
+        private final Output bodies = new Output();
+        private final Output stringBytes = new Output();
+        private final Output stringIndex = new Output();
+        private final Output expressionIndex = new Output();
+        private int expressionCount;
+
+        private Node[] work = new Node[64];
+        private boolean[] combine = new boolean[64];
+        private int workSize;
+
+        private Writer() {
+        }
+
+        /**
+         * Encode an expression.
+         *
+         * @param n the expression
+         * @return the index of the expression in the archive
+         */
+        public int add(Node n) {
+            var start = bodies.size;
+            push(n, false);
+            while (workSize > 0) {
+                var node = work[--workSize];
+                var combined = combine[workSize];
+                work[workSize] = null;
+
+                if (combined) {
+                    switch (node) {
+                        case AddNode ignored -> bodies.putByte(ADD);
+                        case MulNode ignored -> bodies.putByte(MUL);
+                        case NegNode ignored -> bodies.putByte(NEG);
+                        case ExpNode(var ignored, int exp) -> {
+                            bodies.putByte(EXP);
+                            bodies.putVarint((exp << 1) ^ (exp >> 31));
+                        }
+                        case ConstNode ignored -> throw new IllegalStateException("constants are never combined");
+                        case VarNode ignored -> throw new IllegalStateException("variables are never combined");
+                    }
+                    continue;
+                }
+
+                switch (node) {
+                    case AddNode(var left, var right) -> pushChildren(node, left, right);
+                    case MulNode(var left, var right) -> pushChildren(node, left, right);
+                    case ExpNode(var child, int ignored) -> pushChild(node, child);
+                    case NegNode(var child) -> pushChild(node, child);
+                    case ConstNode(double val) -> {
+                        bodies.putByte(CONST);
+                        bodies.putLong(Double.doubleToRawLongBits(val));
+                    }
+                    case VarNode(String name) -> {
+                        bodies.putByte(VAR);
+                        bodies.putVarint(string(name));
+                    }
+                }
+            }
+            expressionIndex.putInt(start);
+            expressionIndex.putInt(bodies.size - start);
+            return expressionCount++;
+        }
+
+        /**
+         * @return the number of expressions added so far
+         */
+        public int size() {
+            return expressionCount;
+        }
+
+        public byte[] toByteArray() {
+            var stringsStart = HEADER_SIZE + bodies.size;
+            var stringIndexStart = stringsStart + stringBytes.size;
+            var expressionIndexStart = stringIndexStart + stringIndex.size;
+            var total = (long) expressionIndexStart + expressionIndex.size;
+            if (total > Integer.MAX_VALUE - 8) {
+                throw new IllegalStateException("node archive would exceed 2 GB");
+            }
+
+            var out = ByteBuffer.allocate((int) total).order(ByteOrder.LITTLE_ENDIAN);
+            out.putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putInt(expressionCount)
+                    .putInt(strings.size())
+                    .putInt(stringIndexStart)
+                    .putInt(expressionIndexStart);
+            out.put(bodies.bytes, 0, bodies.size);
+            out.put(stringBytes.bytes, 0, stringBytes.size);
+            // string and expression offsets were recorded relative to their sections
+            for (var i = 0; i < stringIndex.size; i += 8) {
+                out.putInt(stringsStart + stringIndex.getInt(i)).putInt(stringIndex.getInt(i + 4));
+            }
+            for (var i = 0; i < expressionIndex.size; i += 8) {
+                out.putInt(HEADER_SIZE + expressionIndex.getInt(i)).putInt(expressionIndex.getInt(i + 4));
+            }
+            return out.array();
+        }
+
+        public void writeTo(Path path) throws IOException {
+            Files.write(path, toByteArray());
+        }
+
+        private int string(String name) {
+            var number = strings.get(name);
+            if (number == null) {
+                number = strings.size();
+                strings.put(name, number);
+                var bytes = name.getBytes(StandardCharsets.UTF_8);
+                stringIndex.putInt(stringBytes.size);
+                stringIndex.putInt(bytes.length);
+                stringBytes.putBytes(bytes);
+            }
+            return number;
+        }
+
+        // The left child is pushed last so that it is written first.
+        private void pushChildren(Node parent, Node left, Node right) {
+            push(parent, true);
+            push(right, false);
+            push(left, false);
+        }
+
+        private void pushChild(Node parent, Node child) {
+            push(parent, true);
+            push(child, false);
+        }
+
+        private void push(Node node, boolean combined) {
+            if (workSize == work.length) {
+                work = Arrays.copyOf(work, 2 * workSize);
+                combine = Arrays.copyOf(combine, 2 * workSize);
+            }
+            work[workSize] = node;
+            combine[workSize] = combined;
+            workSize++;
+        }
+    }
+
+    // A growable little-endian byte array.
+    private static class Output {
+        private byte[] bytes = new byte[256];
+        private int size;
+
+        void putByte(int b) {
+            ensure(1);
+            bytes[size++] = (byte) b;
+        }
+
+        void putBytes(byte[] b) {
+            ensure(b.length);
+            System.arraycopy(b, 0, bytes, size, b.length);
+            size += b.length;
+        }
+
+        void putInt(int v) {
+            ensure(4);
+            for (var i = 0; i < 4; i++) {
+                bytes[size++] = (byte) (v >>> (8 * i));
+            }
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            for (var i = 0; i < 8; i++) {
+                bytes[size++] = (byte) (v >>> (8 * i));
+            }
+        }
+
+        void putVarint(int v) {
+            ensure(5);
+            while ((v & ~0x7F) != 0) {
+                bytes[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            bytes[size++] = (byte) v;
+        }
+
+        int getInt(int at) {
+            return (bytes[at] & 0xFF)
+                    | (bytes[at + 1] & 0xFF) << 8
+                    | (bytes[at + 2] & 0xFF) << 16
+                    | (bytes[at + 3] & 0xFF) << 24;
+        }
+
+        private void ensure(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(2 * bytes.length, size + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static java.util.Objects.requireNonNull;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Versions of the {@link NodeMath} operations for expressions that share subexpressions, e.g., those built by a
+ * {@link NodeInterner}. Each operation memoizes its result per node instance, so a shared node is visited only once
+ * per call no matter how many parents it has. The results are the same as those of the {@link NodeMath} versions.
+ */
+public class NodeDag {
+    private NodeDag() {
+    }
+
+    public static double eval(Node n, Function<String, Double> vars) {
+        return eval(n, vars, new IdentityHashMap<>());
+    }
+
+    private static double eval(Node n, Function<String, Double> vars, Map<Node, Double> memo) {
+        var cached = memo.get(n);
+        if (cached != null) {
+            return cached;
+        }
+
+        double result = switch (n) {
+            case AddNode(var left, var right) -> eval(left, vars, memo) + eval(right, vars, memo);
+            case MulNode(var left, var right) -> eval(left, vars, memo) * eval(right, vars, memo);
+            case ExpNode(var node, int exp) -> Math.pow(eval(node, vars, memo), exp);
+            case NegNode(var node) -> -eval(node, vars, memo);
+            case ConstNode(double val) -> val;
+            case VarNode(String name) -> requireNonNull(vars, "vars must not be null when VarNodes exist").apply(name);
+        };
+        memo.put(n, result);
+        return result;
+    }
+
+    public static String format(Node n) {
+        return format(n, new IdentityHashMap<>());
+    }
+
+    private static String format(Node n, Map<Node, String> memo) {
+        var cached = memo.get(n);
+        if (cached != null) {
+            return cached;
+        }
+
+        var result = switch (n) {
+            case AddNode(var left, var right) -> "(" + format(left, memo) + " + " + format(right, memo) + ")";
+            case MulNode(var left, var right) -> "(" + format(left, memo) + " * " + format(right, memo) + ")";
+            case ExpNode(var node, int exp) -> format(node, memo) + "^" + exp;
+            case NegNode(var node) -> "-" + format(node, memo);
+            case ConstNode(double val) -> Double.toString(val);
+            case VarNode(String name) -> name;
+        };
+        memo.put(n, result);
+        return result;
+    }
+
+    /**
+     * Differentiate with respect to a single variable, building the result through the given interner so that the
+     * derivative shares subexpressions with itself and with the input.
+     *
+     * @param n        the expression to differentiate as a Node
+     * @param varName  the variable, e.g., x or y
+     * @param interner the interner used to build the result
+     * @return the differentiation result as a Node
+     * @see NodeMath#diff(Node, String)
+     */
+    public static Node diff(Node n, String varName, NodeInterner interner) {
+        return diff(interner.intern(n), varName, interner, new IdentityHashMap<>());
+    }
+
+    private static Node diff(Node n, String varName, NodeInterner in, Map<Node, Node> memo) {
+        var cached = memo.get(n);
+        if (cached != null) {
+            return cached;
+        }
+
+        // the same rules as NodeMath.diff
+        var result = switch (n) {
+            case AddNode(var left, var right) -> in.add(diff(left, varName, in, memo), diff(right, varName, in, memo));
+            case MulNode(var left, ConstNode(double val)) -> in.mul(in.val(val), diff(left, varName, in, memo));
+            case MulNode(ConstNode(double val), var right) -> in.mul(in.val(val), diff(right, varName, in, memo));
+            case MulNode(var left, var right) -> in.add(
+                    in.mul(left, diff(right, varName, in, memo)),
+                    in.mul(diff(left, varName, in, memo), right)
+            );
+            case ExpNode(var node, int exp) ->
+                    in.mul(in.val(exp), in.mul(in.exp(node, exp - 1), diff(node, varName, in, memo)));
+            case NegNode(var node) -> in.neg(diff(node, varName, in, memo));
+            case ConstNode(double ignored) -> in.val(0);
+            case VarNode(String name) -> name.equals(varName) ? in.val(1) : in.val(0);
+        };
+        memo.put(n, result);
+        return result;
+    }
+
+    /**
+     * @param n the expression
+     * @return the number of distinct node instances reachable from the expression
+     */
+    public static int distinctNodes(Node n) {
+        var seen = new IdentityHashMap<Node, Boolean>();
+        countDistinct(n, seen);
+        return seen.size();
+    }
+
+    private static void countDistinct(Node n, Map<Node, Boolean> seen) {
+        if (seen.put(n, Boolean.TRUE) != null) {
+            return;
+        }
+
+        switch (n) {
+            case AddNode(var left, var right) -> {
+                countDistinct(left, seen);
+                countDistinct(right, seen);
+            }
+            case MulNode(var left, var right) -> {
+                countDistinct(left, seen);
+                countDistinct(right, seen);
+            }
+            case ExpNode(var node, int ignored) -> countDistinct(node, seen);
+            case NegNode(var node) -> countDistinct(node, seen);
+            case ConstNode ignored -> {
+            }
+            case VarNode ignored -> {
+            }
+        }
+    }
+}
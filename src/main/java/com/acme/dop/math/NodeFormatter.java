@@ -0,0 +1,298 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Streams the text of a {@link Node} expression to an {@link Appendable}, e.g., a {@link StringBuilder} or a
+ * {@link java.io.Writer}, or as UTF-8 to a {@link ByteBuffer}, without building intermediate strings.
+ * <p>
+ * Tokens are written as the expression is traversed with an explicit stack, so formatting takes time linear in
+ * the output and works for expressions of any depth. Integral constants are written digit by digit, and other
+ * constants are appended directly to a {@link StringBuilder} target; only other targets with non-integral
+ * constants go through {@link Double#toString(double)}.
+ * <p>
+ * With {@link Parentheses#FULL} the output is identical to {@link NodeMath#format(Node)}. With
+ * {@link Parentheses#MINIMAL} only the parentheses needed to preserve the structure of the expression are written,
+ * given that {@code ^} binds tightest, then unary {@code -}, then {@code *}, then {@code +}, and that the binary
+ * operators are left-associative.
+ * <p>
+ * Instances are immutable and thread-safe.
+ */
+public final class NodeFormatter {
+
+    public enum Parentheses {
+
+        /**
+         * Parenthesize every addition and multiplication, like {@link NodeMath#format(Node)}.
+         */
+        FULL,
+
+        /**
+         * Parenthesize only where precedence and associativity require it.
+         */
+        MINIMAL
+    }
+
+    public static final NodeFormatter FULL = new NodeFormatter(Parentheses.FULL);
+    public static final NodeFormatter MINIMAL = new NodeFormatter(Parentheses.MINIMAL);
+
+    // the largest magnitude for which Double.toString writes an integral value as plain digits followed by ".0"
+    private static final double MAX_PLAIN_INTEGRAL = 1.0e7;
+
+    private static final int ADD_PRECEDENCE = 1;
+    private static final int MUL_PRECEDENCE = 2;
+    private static final int NEG_PRECEDENCE = 3;
+    private static final int EXP_PRECEDENCE = 4;
+    private static final int ATOM_PRECEDENCE = 5;
+
+    private final Parentheses parentheses;
+
+    private NodeFormatter(Parentheses parentheses) {
+        this.parentheses = parentheses;
+    }
+
+    public static NodeFormatter of(Parentheses parentheses) {
+        return switch (requireNonNull(parentheses)) {
+            case FULL -> FULL;
+            case MINIMAL -> MINIMAL;
+        };
+    }
+
+    public Parentheses parentheses() {
+        return parentheses;
+    }
+
+    public String format(Node n) {
+        return format(n, new StringBuilder()).toString();
+    }
+
+    public StringBuilder format(Node n, StringBuilder out) {
+        try {
+            new Emitter(out).emit(n);
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("StringBuilder does not throw IOException", e);
+        }
+    }
+
+    /**
+     * Write an expression to any {@link Appendable}.
+     *
+     * @param n   the expression
+     * @param out the target
+     * @param <A> the type of the target
+     * @return the target
+     * @throws IOException if the target throws it
+     */
+    public <A extends Appendable> A formatTo(Node n, A out) throws IOException {
+        new Emitter(out).emit(n);
+        return out;
+    }
+
+    /**
+     * Write an expression as UTF-8 at the buffer's position, advancing the position.
+     *
+     * @param n   the expression
+     * @param out the target
+     * @return the target
+     * @throws java.nio.BufferOverflowException if the buffer does not have room for the expression
+     */
+    public ByteBuffer format(Node n, ByteBuffer out) {
+        try {
+            new Emitter(new Utf8Appendable(out)).emit(n);
+            return out;
+        } catch (IOException e) {
+            throw new UncheckedIOException("ByteBuffer does not throw IOException", e);
+        }
+    }
+
+    private static int precedence(Node n) {
+        return switch (n) {
+            case AddNode ignored -> ADD_PRECEDENCE;
+            case MulNode ignored -> MUL_PRECEDENCE;
+            case NegNode ignored -> NEG_PRECEDENCE;
+            case ExpNode ignored -> EXP_PRECEDENCE;
+            // negative constants are written with a leading minus, so they parse as a negation
+            case ConstNode(double val) when isNegative(val) -> NEG_PRECEDENCE;
+            case ConstNode ignored -> ATOM_PRECEDENCE;
+            case VarNode ignored -> ATOM_PRECEDENCE;
+        };
+    }
+
+    private static boolean isNegative(double val) {
+        return Double.doubleToRawLongBits(val) < 0 && !Double.isNaN(val);
+    }
+
+    // Per-call traversal state; the formatter itself stays immutable.
+    private class Emitter {
+        private static final byte VISIT = 0;
+        private static final byte VISIT_PARENTHESIZED = 1;
+        private static final byte TEXT = 2;
+        private static final byte EXPONENT = 3;
+
+        private final Appendable out;
+        private Object[] items = new Object[32];
+        private byte[] kinds = new byte[32];
+        private int size;
+
+        Emitter(Appendable out) {
+            this.out = out;
+        }
+
+        void emit(Node n) throws IOException {
+            push(n, VISIT);
+            while (size > 0) {
+                var kind = kinds[--size];
+                var item = items[size];
+                items[size] = null;
+
+                switch (kind) {
+                    case TEXT -> out.append((String) item);
+                    case EXPONENT -> {
+                        out.append('^');
+                        appendLong(((ExpNode) item).exp());
+                    }
+                    case VISIT_PARENTHESIZED -> {
+                        out.append('(');
+                        push(")", TEXT);
+                        visit((Node) item);
+                    }
+                    default -> visit((Node) item);
+                }
+            }
+        }
+
+        private void visit(Node n) throws IOException {
+            switch (n) {
+                case AddNode(var left, var right) -> binary(left, " + ", right, ADD_PRECEDENCE);
+                case MulNode(var left, var right) -> binary(left, " * ", right, MUL_PRECEDENCE);
+                case ExpNode expNode -> {
+                    push(expNode, EXPONENT);
+                    child(expNode.left(), precedence(expNode.left()) < EXP_PRECEDENCE);
+                }
+                case NegNode(var node) -> {
+                    out.append('-');
+                    child(node, precedence(node) < NEG_PRECEDENCE);
+                }
+                case ConstNode(double val) -> appendDouble(val);
+                case VarNode(String name) -> out.append(name);
+            }
+        }
+
+        // Pushed in reverse, so the left operand is written first.
+        private void binary(Node left, String operator, Node right, int precedence) throws IOException {
+            if (parentheses == Parentheses.FULL) {
+                out.append('(');
+                push(")", TEXT);
+            }
+            child(right, precedence(right) <= precedence);
+            push(operator, TEXT);
+            child(left, precedence(left) < precedence);
+        }
+
+        private void child(Node child, boolean needsParentheses) {
+            push(child, parentheses == Parentheses.MINIMAL && needsParentheses ? VISIT_PARENTHESIZED : VISIT);
+        }
+
+        private void push(Object item, byte kind) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, 2 * size);
+                kinds = Arrays.copyOf(kinds, 2 * size);
+            }
+            items[size] = item;
+            kinds[size] = kind;
+            size++;
+        }
+
+        // Writes exactly what Double.toString would.
+        private void appendDouble(double val) throws IOException {
+            if (out instanceof StringBuilder sb) {
+                sb.append(val);
+            } else if (val == Math.rint(val) && Math.abs(val) < MAX_PLAIN_INTEGRAL) {
+                if (isNegative(val)) {
+                    out.append('-');
+                }
+                appendLong((long) Math.abs(val));
+                out.append(".0");
+            } else {
+                out.append(Double.toString(val));
+            }
+        }
+
+        private void appendLong(long val) throws IOException {
+            if (val < 0) {
+                out.append('-');
+                if (val == Long.MIN_VALUE) {
+                    out.append("9223372036854775808");
+                    return;
+                }
+                val = -val;
+            }
+            var divisor = 1L;
+            while (val / divisor >= 10) {
+                divisor *= 10;
+            }
+            for (; divisor > 0; divisor /= 10) {
+                out.append((char) ('0' + (val / divisor) % 10));
+            }
+        }
+    }
+
+    // Encodes chars as UTF-8 into a buffer, combining surrogate pairs.
+    private static class Utf8Appendable implements Appendable {
+        private final ByteBuffer out;
+        private char highSurrogate;
+
+        Utf8Appendable(ByteBuffer out) {
+            this.out = out;
+        }
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            for (var i = start; i < end; i++) {
+                append(csq.charAt(i));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (c < 0x80) {
+                out.put((byte) c);
+            } else if (c < 0x800) {
+                out.put((byte) (0xC0 | (c >> 6)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            } else if (Character.isHighSurrogate(c)) {
+                highSurrogate = c;
+            } else if (Character.isLowSurrogate(c) && highSurrogate != 0) {
+                var codePoint = Character.toCodePoint(highSurrogate, c);
+                highSurrogate = 0;
+                out.put((byte) (0xF0 | (codePoint >> 18)));
+                out.put((byte) (0x80 | ((codePoint >> 12) & 0x3F)));
+                out.put((byte) (0x80 | ((codePoint >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (codePoint & 0x3F)));
+            } else {
+                out.put((byte) (0xE0 | (c >> 12)));
+                out.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+                out.put((byte) (0x80 | (c & 0x3F)));
+            }
+            return this;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static java.util.Objects.requireNonNull;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * A hash-consing factory for {@link Node}s. Building expressions through the same interner returns the same
+ * instance for structurally equal nodes, so expressions become DAGs that share common subexpressions.
+ * <p>
+ * Nodes are looked up by their kind, their scalar values, and the <em>identity</em> of their children. That
+ * makes each lookup constant time, but means that children should themselves come from this interner; use
+ * {@link #intern(Node)} to canonicalize an expression built elsewhere. The table is bounded and evicts the least
+ * recently used entries, so memory does not grow forever. Evicting an entry only loses sharing, never correctness.
+ * <p>
+ * Instances are thread-safe.
+ */
+public final class NodeInterner {
+
+    public static final int DEFAULT_MAX_SIZE = 65_536;
+
+    private final Map<Key, Node> table;
+
+    public NodeInterner() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public NodeInterner(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.table = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Node> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public AddNode add(Node left, Node right) {
+        return (AddNode) lookup(new Key(Kind.ADD, requireNonNull(left), requireNonNull(right), 0, null),
+                () -> new AddNode(left, right));
+    }
+
+    public MulNode mul(Node left, Node right) {
+        return (MulNode) lookup(new Key(Kind.MUL, requireNonNull(left), requireNonNull(right), 0, null),
+                () -> new MulNode(left, right));
+    }
+
+    public ExpNode exp(Node left, int exp) {
+        return (ExpNode) lookup(new Key(Kind.EXP, requireNonNull(left), null, exp, null), () -> new ExpNode(left, exp));
+    }
+
+    public NegNode neg(Node node) {
+        return (NegNode) lookup(new Key(Kind.NEG, requireNonNull(node), null, 0, null), () -> new NegNode(node));
+    }
+
+    public ConstNode val(double val) {
+        // by bits, so that 0.0 and -0.0 stay distinct, as they are for ConstNode.equals
+        return (ConstNode) lookup(new Key(Kind.CONST, null, null, Double.doubleToLongBits(val), null),
+                () -> new ConstNode(val));
+    }
+
+    public VarNode variable(String name) {
+        return (VarNode) lookup(new Key(Kind.VAR, null, null, 0, requireNonNull(name)), () -> new VarNode(name));
+    }
+
+    /**
+     * Canonicalize an expression, which may be a tree or a DAG built without this interner.
+     *
+     * @param n the expression
+     * @return a structurally equal expression whose subexpressions are shared through this interner
+     */
+    public Node intern(Node n) {
+        return intern(n, new IdentityHashMap<>());
+    }
+
+    private Node intern(Node n, Map<Node, Node> seen) {
+        var canonical = seen.get(n);
+        if (canonical != null) {
+            return canonical;
+        }
+
+        canonical = switch (n) {
+            case AddNode(var left, var right) -> add(intern(left, seen), intern(right, seen));
+            case MulNode(var left, var right) -> mul(intern(left, seen), intern(right, seen));
+            case ExpNode(var node, int exp) -> exp(intern(node, seen), exp);
+            case NegNode(var node) -> neg(intern(node, seen));
+            case ConstNode(double val) -> val(val);
+            case VarNode(String name) -> variable(name);
+        };
+        seen.put(n, canonical);
+        return canonical;
+    }
+
+    /**
+     * @return the number of nodes currently in the intern table
+     */
+    public synchronized int size() {
+        return table.size();
+    }
+
+    private synchronized Node lookup(Key key, Supplier<Node> factory) {
+        var existing = table.get(key);
+        if (existing != null) {
+            return existing;
+        }
+        var created = factory.get();
+        table.put(key, created);
+        return created;
+    }
+
+    private enum Kind {
+        ADD, MUL, EXP, NEG, CONST, VAR
+    }
+
+    // Children are compared by identity; everything else by value.
+    private record Key(Kind kind, Node left, Node right, long bits, String name) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other
+                    && kind == other.kind
+                    && left == other.left
+                    && right == other.right
+                    && bits == other.bits
+                    && Objects.equals(name, other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            var h = kind.ordinal();
+            h = 31 * h + System.identityHashCode(left);
+            h = 31 * h + System.identityHashCode(right);
+            h = 31 * h + Long.hashCode(bits);
+            return 31 * h + Objects.hashCode(name);
+        }
+    }
+}
@@ -13,6 +13,8 @@ import static com.acme.dop.math.Node.neg;
 import static com.acme.dop.math.Node.val;
 import static java.util.Objects.requireNonNull;
 
+import java.io.IOException;
+import java.util.Map;
 import java.util.function.Function;
 
 public class NodeMath {
@@ -24,20 +26,66 @@ public class NodeMath {
     }
 
     public static double eval(Node n, Function<String, Double> vars) {
+        var metrics = NodeMetrics.active();
+        if (metrics == null) {
+            return evaluate(n, vars);
+        }
+        var start = System.nanoTime();
+        var result = evaluate(n, vars);
+        metrics.recordEval(n, System.nanoTime() - start);
+        return result;
+    }
+
+    private static double evaluate(Node n, Function<String, Double> vars) {
         return switch (n) {
-            case AddNode(var left, var right) -> eval(left, vars) + eval(right, vars);
-            case MulNode(var left, var right) -> eval(left, vars) * eval(right, vars);
-            case ExpNode(var node, int exp) -> Math.pow(eval(node, vars), exp);
-            case NegNode(var node) -> -eval(node, vars);
+            case AddNode(var left, var right) -> evaluate(left, vars) + evaluate(right, vars);
+            case MulNode(var left, var right) -> evaluate(left, vars) * evaluate(right, vars);
+            case ExpNode(var node, int exp) -> Math.pow(evaluate(node, vars), exp);
+            case NegNode(var node) -> -evaluate(node, vars);
             case ConstNode(double val) -> val;
             case VarNode(String name) -> apply(vars, name);
         };
     }
 
+    /**
+     * Evaluate an expression for every row of a batch of columnar data.
+     *
+     * @param n       the expression to evaluate
+     * @param columns the values of each variable, with at least {@code out.length} rows per column
+     * @param out     receives the result for each row
+     * @see BatchEvaluator
+     */
+    public static void eval(Node n, Map<String, double[]> columns, double[] out) {
+        BatchEvaluator.of(n).eval(columns, out);
+    }
+
     private static double apply(Function<String, Double> vars, String name) {
         return requireNonNull(vars, "vars must not be null when VarNodes exist").apply(name);
     }
 
+    /**
+     * Compile an expression for repeated evaluation.
+     *
+     * @param n the expression to compile
+     * @return a reusable program that computes the same result as {@link #eval(Node, Function)}
+     * @see NodeProgram
+     */
+    public static NodeProgram compile(Node n) {
+        return NodeProgram.compile(n);
+    }
+
+    /**
+     * Generate JVM bytecode for an expression. The result is cached by structural equality of the expression.
+     *
+     * @param n the expression to generate
+     * @return a hidden class instance that computes the same result as {@link #eval(Node, Function)}
+     * @throws IllegalArgumentException if the expression is too large for a single JVM method
+     * @see CompiledExpression
+     */
+    public static CompiledExpression generate(Node n) {
+        return BytecodeGenerator.generate(n);
+    }
+
     public static String format(Node n) {
         return switch (n) {
             case AddNode(var left, var right) -> String.format("(%s + %s)", format(left), format(right));
@@ -49,6 +97,96 @@ public class NodeMath {
         };
     }
 
+    /**
+     * Stream the same text as {@link #format(Node)} to a target without building intermediate strings.
+     *
+     * @param n   the expression
+     * @param out the target, e.g., a StringBuilder or Writer
+     * @throws IOException if the target throws it
+     * @see NodeFormatter
+     */
+    public static void format(Node n, Appendable out) throws IOException {
+        NodeFormatter.FULL.formatTo(n, out);
+    }
+
+    /**
+     * Parse text written by {@link #format(Node)} back into an expression.
+     *
+     * @param text the text
+     * @return the expression, which formats to the same text
+     * @throws NodeParseException if the text is not a valid expression
+     * @see NodeParser
+     */
+    public static Node parse(CharSequence text) {
+        return NodeParser.parse(text);
+    }
+
+    /**
+     * @param n the expression
+     * @return the number of nodes in the expression, counting shared subexpressions once per use
+     */
+    public static int size(Node n) {
+        return switch (n) {
+            case AddNode(var left, var right) -> 1 + size(left) + size(right);
+            case MulNode(var left, var right) -> 1 + size(left) + size(right);
+            case ExpNode(var node, int ignored) -> 1 + size(node);
+            case NegNode(var node) -> 1 + size(node);
+            case ConstNode ignored -> 1;
+            case VarNode ignored -> 1;
+        };
+    }
+
+    /**
+     * Simplify an expression algebraically, e.g., to clean up the result of {@link #diff(Node, String)}.
+     *
+     * @param n the expression to simplify
+     * @return the simplified expression
+     * @see Simplifier
+     */
+    public static Node simplify(Node n) {
+        return Simplifier.simplify(n).node();
+    }
+
+    /**
+     * Compute the value of an expression and its partial derivatives with respect to all of its variables in one
+     * forward and one backward pass, using reverse-mode automatic differentiation.
+     *
+     * @param n    the expression
+     * @param vars the variable values
+     * @return the value and the partial derivatives
+     * @see GradientProgram
+     */
+    public static GradientProgram.Gradient gradient(Node n, Function<String, Double> vars) {
+        return GradientProgram.compile(n).gradient(vars);
+    }
+
+    /**
+     * Compute the value and the first derivatives with respect to a single variable numerically, in one traversal
+     * and without building derivative trees.
+     *
+     * @param n       the expression
+     * @param varName the variable, e.g., x or y
+     * @param vars    the variable values
+     * @param order   the highest derivative to compute
+     * @return the value followed by the first {@code order} derivatives
+     * @see TaylorEvaluator
+     */
+    public static double[] derivatives(Node n, String varName, Function<String, Double> vars, int order) {
+        var taylor = TaylorEvaluator.of(n, order);
+        var variables = taylor.variables();
+        var point = new double[variables.size()];
+        var direction = new double[variables.size()];
+        for (var slot = 0; slot < point.length; slot++) {
+            var name = variables.get(slot);
+            point[slot] = apply(vars, name);
+            direction[slot] = name.equals(varName) ? 1.0 : 0.0;
+        }
+
+        var out = new double[order + 1];
+        taylor.derivatives(point, direction, out);
+        return out;
+    }
+
     /**
      * Differentiate with respect to a single variable.
      *
@@ -57,9 +195,20 @@ public class NodeMath {
      * @return the differentiation result as a Node
      */
     public static Node diff(Node n, String varName) {
+        var metrics = NodeMetrics.active();
+        if (metrics == null) {
+            return differentiate(n, varName);
+        }
+        var start = System.nanoTime();
+        var result = differentiate(n, varName);
+        metrics.recordDiff(n, result, System.nanoTime() - start);
+        return result;
+    }
+
+    private static Node differentiate(Node n, String varName) {
         return switch (n) {
 
-            case AddNode(var left, var right) -> add(diff(left, varName), diff(right, varName));
+            case AddNode(var left, var right) -> add(differentiate(left, varName), differentiate(right, varName));
 
             // From the article, the following two MulNode cases handle the special cases of k*node and node*k
             // where k is a constant.
@@ -69,18 +218,18 @@ public class NodeMath {
             // three errors: " ')' expected ", "not a statement", and " ';' expected " at the position of "k".
             // In the editor, IntelliJ says "Identifier is now allowed here". Because of this, the return value
             // creates a new ConstNode(val) instead of using the (disallowed) "k" directly in the MulNode.
-            case MulNode(var left, ConstNode(double val)) -> mul(val(val), diff(left, varName));
-            case MulNode(ConstNode(double val), var right) -> mul(val(val), diff(right, varName));
+            case MulNode(var left, ConstNode(double val)) -> mul(val(val), differentiate(left, varName));
+            case MulNode(ConstNode(double val), var right) -> mul(val(val), differentiate(right, varName));
 
             // This handles generic multiplication using the product rule
             case MulNode(var left, var right) -> add(
-                    mul(left, diff(right, varName)),
-                    mul(diff(left, varName), right)
+                    mul(left, differentiate(right, varName)),
+                    mul(differentiate(left, varName), right)
             );
 
-            case ExpNode(var node, int exp) -> mul(val(exp), mul(exp(node, exp - 1), diff(node, varName)));
+            case ExpNode(var node, int exp) -> mul(val(exp), mul(exp(node, exp - 1), differentiate(node, varName)));
 
-            case NegNode(var node) -> neg(diff(node, varName));
+            case NegNode(var node) -> neg(differentiate(node, varName));
 
             case ConstNode(double ignored) -> val(0);
 
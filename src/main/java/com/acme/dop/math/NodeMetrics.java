@@ -0,0 +1,334 @@
+package com.acme.dop.math;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * An opt-in registry of per-expression metrics for {@link NodeMath#eval(Node, java.util.function.Function)} and
+ * {@link NodeMath#diff(Node, String)}: call counts, node counts, latency histograms and how much {@code diff} grows
+ * its input.
+ * <p>
+ * Nothing is recorded until {@link #enable()} is called. While disabled, each call to {@code eval} or {@code diff}
+ * pays for a single volatile read; the recursive evaluation itself is never instrumented.
+ * <p>
+ * Expressions are tracked by identity, since re-hashing a large expression on every call would cost as much as
+ * evaluating it. That suits the usual pattern of building an expression once and evaluating it many times. Once
+ * {@link #maxExpressions()} are tracked, further expressions are aggregated into a single entry, labelled
+ * {@value #OTHER}, so the registry stays bounded. The registry keeps the tracked expressions reachable until it is
+ * {@link #reset()} or disabled.
+ * <p>
+ * Latency histograms use power-of-two buckets: bucket 0 counts calls that took 0 ns, and bucket {@code i > 0}
+ * counts calls that took from {@code 2^(i-1)} up to {@code 2^i - 1} ns. Registries are thread-safe.
+ */
+public final class NodeMetrics {
+
+    public static final int DEFAULT_MAX_EXPRESSIONS = 1000;
+    public static final String OTHER = "<other expressions>";
+
+    private static final int LABEL_LENGTH = 80;
+    private static final int BUCKETS = 64;
+
+    private static volatile NodeMetrics active;
+
+    private final int maxExpressions;
+    private final ConcurrentHashMap<Key, Stats> stats = new ConcurrentHashMap<>();
+    private final Stats other = new Stats(OTHER, -1);
+
+    /**
+     * The latency distribution of one operation on one expression.
+     *
+     * @param count      the number of calls
+     * @param totalNanos the total time of all calls
+     * @param buckets    the number of calls in each power-of-two bucket
+     */
+    public record Latencies(long count, long totalNanos, long[] buckets) {
+
+        public double meanNanos() {
+            return count == 0 ? 0.0 : (double) totalNanos / count;
+        }
+
+        /**
+         * @param quantile between 0 and 1, e.g., 0.99
+         * @return the upper bound of the bucket holding the quantile, or 0 if there were no calls
+         */
+        public long percentileNanos(double quantile) {
+            if (quantile < 0.0 || quantile > 1.0) {
+                throw new IllegalArgumentException("quantile must be between 0 and 1");
+            }
+            var rank = (long) Math.ceil(quantile * count);
+            var seen = 0L;
+            for (var i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : (i >= 63 ? Long.MAX_VALUE : (1L << i) - 1);
+                }
+            }
+            return 0;
+        }
+    }
+
+    /**
+     * A snapshot of the metrics for one expression.
+     *
+     * @param expression      the expression with minimal parentheses, truncated to 80 characters, or {@value #OTHER}
+     * @param nodes           the number of nodes in the expression, or -1 for {@value #OTHER}
+     * @param eval            the latencies of {@code eval}
+     * @param diff            the latencies of {@code diff}
+     * @param diffInputNodes  the total number of nodes differentiated
+     * @param diffOutputNodes the total number of nodes produced by differentiation
+     */
+    public record ExpressionMetrics(String expression,
+                                    int nodes,
+                                    Latencies eval,
+                                    Latencies diff,
+                                    long diffInputNodes,
+                                    long diffOutputNodes) {
+
+        /**
+         * @return output nodes divided by input nodes over all {@code diff} calls, or 0 if there were none
+         */
+        public double diffBlowUp() {
+            return diffInputNodes == 0 ? 0.0 : (double) diffOutputNodes / diffInputNodes;
+        }
+    }
+
+    private NodeMetrics(int maxExpressions) {
+        this.maxExpressions = maxExpressions;
+    }
+
+    /**
+     * Start recording, if not already, with room for {@link #DEFAULT_MAX_EXPRESSIONS} expressions.
+     *
+     * @return the active registry
+     */
+    public static NodeMetrics enable() {
+        return enable(DEFAULT_MAX_EXPRESSIONS);
+    }
+
+    /**
+     * Start recording, if not already.
+     *
+     * @param maxExpressions how many expressions to track individually if a new registry is created
+     * @return the active registry, which is the existing one if recording was already enabled
+     */
+    public static synchronized NodeMetrics enable(int maxExpressions) {
+        if (maxExpressions < 0) {
+            throw new IllegalArgumentException("maxExpressions must not be negative");
+        }
+        if (active == null) {
+            active = new NodeMetrics(maxExpressions);
+        }
+        return active;
+    }
+
+    /**
+     * Stop recording. Metrics recorded so far stay available from registries obtained earlier.
+     */
+    public static synchronized void disable() {
+        active = null;
+    }
+
+    public static boolean isEnabled() {
+        return active != null;
+    }
+
+    static NodeMetrics active() {
+        return active;
+    }
+
+    public int maxExpressions() {
+        return maxExpressions;
+    }
+
+    /**
+     * @return the metrics of every expression, in descending order of total {@code eval} time, then of total
+     * {@code diff} time, with {@value #OTHER} included only if anything was aggregated into it
+     */
+    public List<ExpressionMetrics> snapshot() {
+        var result = new ArrayList<ExpressionMetrics>();
+        stats.values().forEach(s -> result.add(s.snapshot()));
+        var aggregated = other.snapshot();
+        if (aggregated.eval().count() > 0 || aggregated.diff().count() > 0) {
+            result.add(aggregated);
+        }
+        result.sort(Comparator.comparingLong((ExpressionMetrics m) -> m.eval().totalNanos())
+                .thenComparingLong(m -> m.diff().totalNanos())
+                .reversed());
+        return result;
+    }
+
+    /**
+     * Write a table of the metrics in {@link #snapshot()} order, one expression per line, with times in
+     * microseconds.
+     *
+     * @param out the target
+     * @throws UncheckedIOException if the target throws an IOException
+     */
+    public void dump(Appendable out) {
+        try {
+            out.append(String.format(Locale.ROOT, "%10s %12s %10s %10s %10s %8s %8s %8s  %s%n",
+                    "evals", "eval_us", "mean_us", "p50_us", "p99_us", "nodes", "diffs", "blowup", "expression"));
+            for (var m : snapshot()) {
+                out.append(String.format(Locale.ROOT, "%10d %12.1f %10.3f %10.3f %10.3f %8d %8d %8.2f  %s%n",
+                        m.eval().count(),
+                        m.eval().totalNanos() / 1e3,
+                        m.eval().meanNanos() / 1e3,
+                        m.eval().percentileNanos(0.5) / 1e3,
+                        m.eval().percentileNanos(0.99) / 1e3,
+                        m.nodes(),
+                        m.diff().count(),
+                        m.diffBlowUp(),
+                        m.expression()));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Forget every expression and everything recorded so far.
+     */
+    public void reset() {
+        stats.clear();
+        other.clear();
+    }
+
+    void recordEval(Node n, long nanos) {
+        stats(n).eval.record(nanos);
+    }
+
+    void recordDiff(Node n, Node result, long nanos) {
+        var s = stats(n);
+        s.diff.record(nanos);
+        s.diffInputNodes.add(s.nodes >= 0 ? s.nodes : NodeMath.size(n));
+        s.diffOutputNodes.add(NodeMath.size(result));
+    }
+
+    private Stats stats(Node n) {
+        var key = new Key(n);
+        var s = stats.get(key);
+        if (s != null) {
+            return s;
+        }
+        if (stats.size() >= maxExpressions) {
+            return other;
+        }
+        return stats.computeIfAbsent(key, k -> new Stats(label(n), NodeMath.size(n)));
+    }
+
+    private static String label(Node n) {
+        var text = new StringBuilder();
+        try {
+            NodeFormatter.MINIMAL.formatTo(n, new Truncating(text));
+        } catch (IOException e) {
+            throw new UncheckedIOException("StringBuilder does not throw IOException", e);
+        }
+        if (text.length() > LABEL_LENGTH) {
+            text.setLength(LABEL_LENGTH - 3);
+            text.append("...");
+        }
+        return text.toString();
+    }
+
+    // Compares expressions by identity.
+    private record Key(Node node) {
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && key.node == node;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(node);
+        }
+    }
+
+    private static class Stats {
+        final String expression;
+        final int nodes;
+        final Histogram eval = new Histogram();
+        final Histogram diff = new Histogram();
+        final LongAdder diffInputNodes = new LongAdder();
+        final LongAdder diffOutputNodes = new LongAdder();
+
+        Stats(String expression, int nodes) {
+            this.expression = expression;
+            this.nodes = nodes;
+        }
+
+        ExpressionMetrics snapshot() {
+            return new ExpressionMetrics(expression, nodes, eval.snapshot(), diff.snapshot(),
+                    diffInputNodes.sum(), diffOutputNodes.sum());
+        }
+
+        void clear() {
+            eval.clear();
+            diff.clear();
+            diffInputNodes.reset();
+            diffOutputNodes.reset();
+        }
+    }
+
+    private static class Histogram {
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+
+        void record(long nanos) {
+            var bucket = BUCKETS - Long.numberOfLeadingZeros(Math.max(nanos, 0));
+            buckets.incrementAndGet(Math.min(bucket, BUCKETS - 1));
+            count.increment();
+            totalNanos.add(nanos);
+        }
+
+        Latencies snapshot() {
+            var copy = new long[BUCKETS];
+            for (var i = 0; i < BUCKETS; i++) {
+                copy[i] = buckets.get(i);
+            }
+            return new Latencies(count.sum(), totalNanos.sum(), copy);
+        }
+
+        void clear() {
+            for (var i = 0; i < BUCKETS; i++) {
+                buckets.set(i, 0);
+            }
+            count.reset();
+            totalNanos.reset();
+        }
+    }
+
+    // Keeps only the start of the text, so labelling a huge expression does not build a huge string.
+    private record Truncating(StringBuilder out) implements Appendable {
+
+        @Override
+        public Appendable append(CharSequence csq) {
+            return append(csq, 0, csq.length());
+        }
+
+        @Override
+        public Appendable append(CharSequence csq, int start, int end) {
+            var room = LABEL_LENGTH + 1 - out.length();
+            if (room > 0) {
+                out.append(csq, start, Math.min(end, start + room));
+            }
+            return this;
+        }
+
+        @Override
+        public Appendable append(char c) {
+            if (out.length() <= LABEL_LENGTH) {
+                out.append(c);
+            }
+            return this;
+        }
+    }
+}
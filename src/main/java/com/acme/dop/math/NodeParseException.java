@@ -0,0 +1,26 @@
+package com.acme.dop.math;
+
+import java.io.Serial;
+
+/**
+ * Thrown by {@link NodeParser} when text is not a valid expression.
+ */
+public class NodeParseException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public NodeParseException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * @return the index of the offending character, or byte when parsing bytes, relative to the start of the input
+     */
+    public int position() {
+        return position;
+    }
+}
@@ -0,0 +1,397 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static java.util.Objects.checkFromIndexSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Parses expressions in the syntax written by {@link NodeMath#format(Node)} and {@link NodeFormatter}.
+ * <p>
+ * The grammar has {@code +} and {@code *} (left-associative), unary {@code -}, postfix integer powers such as
+ * {@code x^2} or {@code x^-1}, parentheses, numbers in the forms produced by {@link Double#toString(double)}
+ * (including {@code NaN} and {@code Infinity}, which are therefore not identifiers), and identifiers made of
+ * ASCII letters, digits, {@code _}, {@code $} and any non-ASCII characters, not starting with a digit. From tightest
+ * to loosest, {@code ^} binds before unary {@code -}, which binds before {@code *}, which binds before {@code +}.
+ * A {@code -} directly in front of a number that is not raised to a power is read as a negative constant.
+ * <p>
+ * Parsing formatted text gives back an expression that formats to the same text. Because the formatted text does
+ * not distinguish {@code -3.0} the constant from the negation of {@code 3.0}, nor, with full parenthesization,
+ * the power of a negation from the negation of a power, such expressions come back in the form described above.
+ * <p>
+ * The parser scans the input in place with an explicit operator stack: there are no token objects, input of any
+ * nesting depth is accepted, and the only allocations are the resulting nodes and identifier strings.
+ */
+public final class NodeParser {
+
+    private NodeParser() {
+    }
+
+    public static Node parse(CharSequence text) {
+        return new Parser(text, null, 0, text.length()).parse();
+    }
+
+    /**
+     * Parse UTF-8 encoded text. Error positions are byte offsets from the start of the array.
+     */
+    public static Node parse(byte[] utf8) {
+        return parse(utf8, 0, utf8.length);
+    }
+
+    /**
+     * Parse a range of UTF-8 encoded text. Error positions are byte offsets from {@code offset}.
+     */
+    public static Node parse(byte[] utf8, int offset, int length) {
+        checkFromIndexSize(offset, length, utf8.length);
+        return new Parser(null, utf8, offset, offset + length).parse();
+    }
+
+    private static class Parser {
+
+        // operators, ordered so that a higher value binds tighter
+        private static final byte LEFT_PAREN = 0;
+        private static final byte ADD = 1;
+        private static final byte MUL = 2;
+        private static final byte NEG = 3;
+
+        // 10^0 through 10^22 are exactly representable, which makes the fast path in number() exact
+        private static final double[] POWERS_OF_TEN = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+        private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+        private final CharSequence chars;
+        private final byte[] bytes;
+        private final int start;
+        private final int end;
+        private int pos;
+
+        private Node[] operands = new Node[16];
+        private int operandCount;
+        private byte[] operators = new byte[16];
+        private int[] operatorPositions = new int[16];
+        private int operatorCount;
+
+        private double numberValue;
+
+        Parser(CharSequence chars, byte[] bytes, int start, int end) {
+            this.chars = chars;
+            this.bytes = bytes;
+            this.start = start;
+            this.end = end;
+            this.pos = start;
+        }
+
+        Node parse() {
+            var expectOperand = true;
+            while (true) {
+                skipWhitespace();
+                if (pos == end) {
+                    if (expectOperand) {
+                        throw error("expected an operand");
+                    }
+                    break;
+                }
+
+                var c = at(pos);
+                if (expectOperand) {
+                    switch (c) {
+                        case '(' -> pushOperator(LEFT_PAREN, pos++);
+                        case '-' -> {
+                            if (negativeConstant()) {
+                                expectOperand = false;
+                            } else {
+                                pushOperator(NEG, pos++);
+                            }
+                        }
+                        default -> {
+                            pushOperand(operand());
+                            postfix();
+                            expectOperand = false;
+                        }
+                    }
+                } else {
+                    switch (c) {
+                        case '+' -> {
+                            binary(ADD);
+                            expectOperand = true;
+                        }
+                        case '*' -> {
+                            binary(MUL);
+                            expectOperand = true;
+                        }
+                        case ')' -> {
+                            reduceUntil(LEFT_PAREN);
+                            if (operatorCount == 0) {
+                                throw error("unbalanced ')'");
+                            }
+                            operatorCount--;
+                            pos++;
+                            postfix();
+                        }
+                        default -> throw error("expected an operator");
+                    }
+                }
+            }
+
+            reduceUntil(LEFT_PAREN);
+            if (operatorCount > 0) {
+                throw new NodeParseException("unclosed '('", operatorPositions[operatorCount - 1] - start);
+            }
+            return operands[0];
+        }
+
+        private void binary(byte operator) {
+            // left-associative: first apply pending operators that bind at least as tightly
+            while (operatorCount > 0 && operators[operatorCount - 1] >= operator) {
+                reduce();
+            }
+            pushOperator(operator, pos++);
+        }
+
+        private void reduceUntil(byte stop) {
+            while (operatorCount > 0 && operators[operatorCount - 1] != stop) {
+                reduce();
+            }
+        }
+
+        private void reduce() {
+            var operator = operators[--operatorCount];
+            if (operator == NEG) {
+                operands[operandCount - 1] = neg(operands[operandCount - 1]);
+                return;
+            }
+            var right = operands[--operandCount];
+            var left = operands[operandCount - 1];
+            operands[operandCount - 1] = operator == ADD ? add(left, right) : mul(left, right);
+            operands[operandCount] = null;
+        }
+
+        // Applies any ^int suffixes to the operand on top of the stack.
+        private void postfix() {
+            while (true) {
+                skipWhitespace();
+                if (pos == end || at(pos) != '^') {
+                    return;
+                }
+                pos++;
+                skipWhitespace();
+                operands[operandCount - 1] = exp(operands[operandCount - 1], exponent());
+            }
+        }
+
+        // At a '-': reads "-<number>" as one negative constant unless the number is raised to a power.
+        private boolean negativeConstant() {
+            var minus = pos;
+            pos++;
+            if (pos == end || !atNumber()) {
+                pos = minus;
+                return false;
+            }
+            number();
+            var afterNumber = pos;
+            skipWhitespace();
+            var raised = pos < end && at(pos) == '^';
+            if (raised) {
+                pos = minus;
+                return false;
+            }
+            pos = afterNumber;
+            pushOperand(val(-numberValue));
+            return true;
+        }
+
+        private Node operand() {
+            if (atNumber()) {
+                number();
+                return val(numberValue);
+            }
+            if (isIdentifierStart(at(pos))) {
+                return variable(identifier());
+            }
+            throw error("expected an operand");
+        }
+
+        private boolean atNumber() {
+            var c = at(pos);
+            return isDigit(c) || c == '.' || matches("NaN") || matches("Infinity");
+        }
+
+        private boolean matches(String keyword) {
+            var length = keyword.length();
+            if (end - pos < length) {
+                return false;
+            }
+            for (var i = 0; i < length; i++) {
+                if (at(pos + i) != keyword.charAt(i)) {
+                    return false;
+                }
+            }
+            return pos + length == end || !isIdentifierPart(at(pos + length));
+        }
+
+        // Parses the number at pos into numberValue, without allocating in the common cases.
+        private void number() {
+            if (matches("NaN")) {
+                pos += 3;
+                numberValue = Double.NaN;
+                return;
+            }
+            if (matches("Infinity")) {
+                pos += 8;
+                numberValue = Double.POSITIVE_INFINITY;
+                return;
+            }
+
+            var numberStart = pos;
+            var mantissa = 0L;
+            var digits = 0;
+            var exponent = 0;
+            var exact = true;
+
+            // digits beyond the exact mantissa range are dropped, and force the slow path unless they are zeros
+            while (pos < end && isDigit(at(pos))) {
+                var digit = at(pos++) - '0';
+                if (mantissa <= (MAX_EXACT_MANTISSA - digit) / 10) {
+                    mantissa = mantissa * 10 + digit;
+                } else {
+                    exponent++;
+                    exact &= digit == 0;
+                }
+                digits++;
+            }
+            if (pos < end && at(pos) == '.') {
+                pos++;
+                while (pos < end && isDigit(at(pos))) {
+                    var digit = at(pos++) - '0';
+                    if (mantissa <= (MAX_EXACT_MANTISSA - digit) / 10) {
+                        mantissa = mantissa * 10 + digit;
+                        exponent--;
+                    } else {
+                        exact &= digit == 0;
+                    }
+                    digits++;
+                }
+            }
+            if (digits == 0) {
+                throw new NodeParseException("malformed number", numberStart - start);
+            }
+            if (pos < end && (at(pos) == 'e' || at(pos) == 'E')) {
+                pos++;
+                var negative = false;
+                if (pos < end && (at(pos) == '+' || at(pos) == '-')) {
+                    negative = at(pos++) == '-';
+                }
+                if (pos == end || !isDigit(at(pos))) {
+                    throw new NodeParseException("malformed number", numberStart - start);
+                }
+                var e = 0;
+                while (pos < end && isDigit(at(pos))) {
+                    e = Math.min(e * 10 + (at(pos++) - '0'), 100_000);
+                }
+                exponent += negative ? -e : e;
+            }
+
+            if (exact && mantissa <= MAX_EXACT_MANTISSA && Math.abs(exponent) < POWERS_OF_TEN.length) {
+                numberValue = exponent >= 0
+                        ? mantissa * POWERS_OF_TEN[exponent]
+                        : mantissa / POWERS_OF_TEN[-exponent];
+            } else {
+                numberValue = Double.parseDouble(text(numberStart, pos));
+            }
+        }
+
+        private int exponent() {
+            var exponentStart = pos;
+            var negative = pos < end && at(pos) == '-';
+            if (negative) {
+                pos++;
+            }
+            if (pos == end || !isDigit(at(pos))) {
+                throw new NodeParseException("expected an integer exponent", exponentStart - start);
+            }
+            var value = 0L;
+            while (pos < end && isDigit(at(pos))) {
+                value = value * 10 + (at(pos++) - '0');
+                if (value > (long) Integer.MAX_VALUE + 1) {
+                    throw new NodeParseException("exponent out of range", exponentStart - start);
+                }
+            }
+            value = negative ? -value : value;
+            if (value > Integer.MAX_VALUE) {
+                throw new NodeParseException("exponent out of range", exponentStart - start);
+            }
+            return (int) value;
+        }
+
+        private String identifier() {
+            var identifierStart = pos;
+            pos++;
+            while (pos < end && isIdentifierPart(at(pos))) {
+                pos++;
+            }
+            return text(identifierStart, pos);
+        }
+
+        private String text(int from, int to) {
+            return chars != null
+                    ? chars.subSequence(from, to).toString()
+                    : new String(bytes, from, to - from, StandardCharsets.UTF_8);
+        }
+
+        private int at(int i) {
+            return chars != null ? chars.charAt(i) : bytes[i] & 0xFF;
+        }
+
+        private void skipWhitespace() {
+            while (pos < end && isWhitespace(at(pos))) {
+                pos++;
+            }
+        }
+
+        private static boolean isWhitespace(int c) {
+            return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+        }
+
+        private static boolean isDigit(int c) {
+            return c >= '0' && c <= '9';
+        }
+
+        // Any non-ASCII char, or byte of a multibyte UTF-8 sequence, counts as a letter.
+        private static boolean isIdentifierStart(int c) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || c == '_' || c == '$' || c >= 0x80;
+        }
+
+        private static boolean isIdentifierPart(int c) {
+            return isIdentifierStart(c) || isDigit(c);
+        }
+
+        private void pushOperand(Node n) {
+            if (operandCount == operands.length) {
+                operands = Arrays.copyOf(operands, 2 * operandCount);
+            }
+            operands[operandCount++] = n;
+        }
+
+        private void pushOperator(byte operator, int position) {
+            if (operatorCount == operators.length) {
+                operators = Arrays.copyOf(operators, 2 * operatorCount);
+                operatorPositions = Arrays.copyOf(operatorPositions, 2 * operatorCount);
+            }
+            operators[operatorCount] = operator;
+            operatorPositions[operatorCount] = position;
+            operatorCount++;
+        }
+
+        private NodeParseException error(String message) {
+            return new NodeParseException(message, pos - start);
+        }
+    }
+}
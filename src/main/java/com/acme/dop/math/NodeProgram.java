@@ -0,0 +1,179 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable, flattened form of a {@link Node} expression.
+ * <p>
+ * The expression is compiled once into postfix instructions with every variable resolved to an integer slot.
+ * Evaluation runs against a {@code double[]} frame whose first {@link #slotCount()} entries hold the variable
+ * values; the remaining entries are used as the operand stack, so {@link #eval(double[])} neither boxes nor
+ * allocates. A frame must not be shared between threads, but the program itself can be.
+ */
+public final class NodeProgram {
+
+    static final int CONST = 0;
+    static final int LOAD = 1;
+    static final int ADD = 2;
+    static final int MUL = 3;
+    static final int POW = 4;
+    static final int NEG = 5;
+
+    // pairs of (opcode, operand)
+    private final int[] code;
+    private final double[] constants;
+    private final List<String> variables;
+    private final int maxStack;
+
+    private NodeProgram(int[] code, double[] constants, List<String> variables, int maxStack) {
+        this.code = code;
+        this.constants = constants;
+        this.variables = variables;
+        this.maxStack = maxStack;
+    }
+
+    public static NodeProgram compile(Node n) {
+        var compiler = new Compiler();
+        compiler.emit(n);
+        return new NodeProgram(
+                compiler.code.stream().mapToInt(Integer::intValue).toArray(),
+                compiler.constants.stream().mapToDouble(Double::doubleValue).toArray(),
+                List.copyOf(compiler.slots.keySet()),
+                compiler.maxDepth);
+    }
+
+    /**
+     * @return the variable names in slot order
+     */
+    public List<String> variables() {
+        return variables;
+    }
+
+    public int slotCount() {
+        return variables.size();
+    }
+
+    /**
+     * @param name the variable name
+     * @return the slot of the variable, or -1 if the expression does not reference it
+     */
+    public int slot(String name) {
+        return variables.indexOf(name);
+    }
+
+    /**
+     * @return a frame large enough to evaluate this program, intended to be reused across calls
+     */
+    public double[] newFrame() {
+        return new double[frameSize()];
+    }
+
+    public int frameSize() {
+        return slotCount() + maxStack;
+    }
+
+    /**
+     * Evaluate the program. The frame's variable slots are read and its stack area is overwritten.
+     *
+     * @param frame the variable values in slot order followed by scratch space, see {@link #newFrame()}
+     * @return the value of the expression
+     */
+    public double eval(double[] frame) {
+        if (frame.length < frameSize()) {
+            throw new IllegalArgumentException("frame must have at least " + frameSize() + " elements");
+        }
+
+        var sp = slotCount() - 1;
+        for (var pc = 0; pc < code.length; pc += 2) {
+            switch (code[pc]) {
+                case CONST -> frame[++sp] = constants[code[pc + 1]];
+                case LOAD -> frame[++sp] = frame[code[pc + 1]];
+                case ADD -> {
+                    sp--;
+                    frame[sp] = frame[sp] + frame[sp + 1];
+                }
+                case MUL -> {
+                    sp--;
+                    frame[sp] = frame[sp] * frame[sp + 1];
+                }
+                case POW -> frame[sp] = Math.pow(frame[sp], code[pc + 1]);
+                case NEG -> frame[sp] = -frame[sp];
+                default -> throw new IllegalStateException("unknown opcode " + code[pc]);
+            }
+        }
+        return frame[sp];
+    }
+
+    // The instructions are shared, read-only, with the other evaluators in this package.
+
+    int[] code() {
+        return code;
+    }
+
+    double[] constants() {
+        return constants;
+    }
+
+    int maxStack() {
+        return maxStack;
+    }
+
+    @Override
+    public String toString() {
+        return "NodeProgram[variables=" + variables + ", instructions=" + code.length / 2
+                + ", maxStack=" + maxStack + "]";
+    }
+
+    private static class Compiler {
+        final List<Integer> code = new ArrayList<>();
+        final List<Double> constants = new ArrayList<>();
+        final Map<String, Integer> slots = new LinkedHashMap<>();
+        int depth;
+        int maxDepth;
+
+        void emit(Node n) {
+            switch (n) {
+                case AddNode(var left, var right) -> {
+                    emit(left);
+                    emit(right);
+                    op(ADD, 0, -1);
+                }
+                case MulNode(var left, var right) -> {
+                    emit(left);
+                    emit(right);
+                    op(MUL, 0, -1);
+                }
+                case ExpNode(var node, int exp) -> {
+                    emit(node);
+                    op(POW, exp, 0);
+                }
+                case NegNode(var node) -> {
+                    emit(node);
+                    op(NEG, 0, 0);
+                }
+                case ConstNode(double val) -> {
+                    constants.add(val);
+                    op(CONST, constants.size() - 1, 1);
+                }
+                case VarNode(String name) -> op(LOAD, slots.computeIfAbsent(name, k -> slots.size()), 1);
+            }
+        }
+
+        private void op(int opcode, int operand, int stackEffect) {
+            code.add(opcode);
+            code.add(operand);
+            depth += stackEffect;
+            maxDepth = Math.max(maxDepth, depth);
+        }
+    }
+}
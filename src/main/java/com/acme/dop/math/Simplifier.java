@@ -0,0 +1,130 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.AddNode;
+import static com.acme.dop.math.BinaryNode.MulNode;
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.ConstNode;
+import static com.acme.dop.math.Node.ExpNode;
+import static com.acme.dop.math.Node.NegNode;
+import static com.acme.dop.math.Node.VarNode;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+
+/**
+ * Algebraic simplification of {@link Node} expressions, e.g., the output of {@link NodeMath#diff(Node, String)}.
+ * <p>
+ * Each pass rewrites the expression bottom-up, applying at most one rule per node, and passes repeat until the
+ * expression no longer changes. The rules fold constants, remove additive and multiplicative identities, apply
+ * multiplicative annihilation, collapse double negation, and move constants so that nested constants merge:
+ * constants go to the left of a product and to the right of a sum.
+ * <p>
+ * Like most symbolic simplifiers, annihilation assumes finite values: {@code 0 * x} becomes {@code 0} even though
+ * evaluating it with an infinite or NaN {@code x} would give NaN.
+ */
+public class Simplifier {
+    private Simplifier() {
+    }
+
+    /**
+     * The result of simplifying an expression.
+     *
+     * @param node        the simplified expression
+     * @param nodesBefore the number of nodes in the original expression
+     * @param nodesAfter  the number of nodes in the simplified expression
+     * @param passes      the number of rewrite passes, including the final one that made no change
+     */
+    public record Simplification(Node node, int nodesBefore, int nodesAfter, int passes) {
+
+        /**
+         * @return the number of nodes that evaluating the simplified expression no longer visits
+         */
+        public int removed() {
+            return nodesBefore - nodesAfter;
+        }
+    }
+
+    public static Simplification simplify(Node n) {
+        var pass = new Pass();
+        var current = n;
+        var passes = 0;
+        do {
+            pass.changed = false;
+            current = pass.apply(current);
+            passes++;
+        } while (pass.changed);
+
+        return new Simplification(current, NodeMath.size(n), NodeMath.size(current), passes);
+    }
+
+    private static class Pass {
+        boolean changed;
+
+        Node apply(Node n) {
+            var withSimplifiedChildren = switch (n) {
+                case AddNode(var left, var right) -> rebuild(n, left, right, apply(left), apply(right), true);
+                case MulNode(var left, var right) -> rebuild(n, left, right, apply(left), apply(right), false);
+                case ExpNode(var node, int exp) -> {
+                    var simplified = apply(node);
+                    yield simplified == node ? n : exp(simplified, exp);
+                }
+                case NegNode(var node) -> {
+                    var simplified = apply(node);
+                    yield simplified == node ? n : neg(simplified);
+                }
+                case ConstNode ignored -> n;
+                case VarNode ignored -> n;
+            };
+
+            var rewritten = rewrite(withSimplifiedChildren);
+            if (rewritten != withSimplifiedChildren) {
+                changed = true;
+            }
+            return rewritten;
+        }
+
+        private static Node rebuild(Node n, Node left, Node right, Node newLeft, Node newRight, boolean isAdd) {
+            if (newLeft == left && newRight == right) {
+                return n;
+            }
+            return isAdd ? add(newLeft, newRight) : mul(newLeft, newRight);
+        }
+    }
+
+    // Applies the first matching rule to a node whose children are already simplified.
+    private static Node rewrite(Node n) {
+        return switch (n) {
+
+            // addition: fold, identity, constants to the right, merge nested constants
+            case AddNode(ConstNode(double a), ConstNode(double b)) -> val(a + b);
+            case AddNode(var x, ConstNode(double c)) when c == 0.0 -> x;
+            case AddNode(ConstNode(double c), var x) when c == 0.0 -> x;
+            case AddNode(ConstNode c, var x) -> add(x, c);
+            case AddNode(AddNode(var x, ConstNode(double a)), ConstNode(double b)) -> add(x, val(a + b));
+
+            // multiplication: fold, annihilation, identity, constants to the left, merge nested constants
+            case MulNode(ConstNode(double a), ConstNode(double b)) -> val(a * b);
+            case MulNode(ConstNode(double c), var ignored) when c == 0.0 -> val(0);
+            case MulNode(var ignored, ConstNode(double c)) when c == 0.0 -> val(0);
+            case MulNode(ConstNode(double c), var x) when c == 1.0 -> x;
+            case MulNode(var x, ConstNode(double c)) when c == 1.0 -> x;
+            case MulNode(var x, ConstNode c) -> mul(c, x);
+            case MulNode(ConstNode(double a), MulNode(ConstNode(double b), var x)) -> mul(val(a * b), x);
+            case MulNode(MulNode(ConstNode c, var x), var y) -> mul(c, mul(x, y));
+            case MulNode(var x, MulNode(ConstNode c, var y)) -> mul(c, mul(x, y));
+
+            // exponentiation: fold, identity, zero power (Math.pow(x, 0) is 1 for every x)
+            case ExpNode(ConstNode(double c), int exp) -> val(Math.pow(c, exp));
+            case ExpNode(var x, int exp) when exp == 1 -> x;
+            case ExpNode(var ignored, int exp) when exp == 0 -> val(1);
+
+            // negation: fold, double negation, negated products absorb the negation into their constant
+            case NegNode(ConstNode(double c)) -> val(-c);
+            case NegNode(NegNode(var x)) -> x;
+            case NegNode(MulNode(ConstNode(double c), var x)) -> mul(val(-c), x);
+
+            default -> n;
+        };
+    }
+}
@@ -0,0 +1,182 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.NodeProgram.ADD;
+import static com.acme.dop.math.NodeProgram.CONST;
+import static com.acme.dop.math.NodeProgram.LOAD;
+import static com.acme.dop.math.NodeProgram.MUL;
+import static com.acme.dop.math.NodeProgram.NEG;
+import static com.acme.dop.math.NodeProgram.POW;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Forward-mode differentiation of a {@link Node} expression using truncated Taylor series.
+ * <p>
+ * Every intermediate value is carried as the coefficients of its Taylor series along a direction, truncated after
+ * the requested order, so a single traversal of the compiled expression yields the value and the first
+ * {@code order} derivatives. No intermediate nodes are built. Integer powers are computed by exact series
+ * multiplication, using the series reciprocal for negative exponents, and the value itself matches
+ * {@link NodeMath#eval(Node, java.util.function.Function)}.
+ * <p>
+ * An evaluator owns its work space, so it does not allocate per call but must not be shared between threads.
+ */
+public final class TaylorEvaluator {
+
+    private final NodeProgram program;
+    private final int order;
+    private final double[][] stack;
+    private final double[] scratch;
+    private final double[] base;
+    private final double[] result;
+
+    private TaylorEvaluator(NodeProgram program, int order) {
+        if (order < 0) {
+            throw new IllegalArgumentException("order must not be negative");
+        }
+        this.program = program;
+        this.order = order;
+        this.stack = new double[program.maxStack()][order + 1];
+        this.scratch = new double[order + 1];
+        this.base = new double[order + 1];
+        this.result = new double[order + 1];
+    }
+
+    public static TaylorEvaluator of(Node n, int order) {
+        return new TaylorEvaluator(NodeProgram.compile(n), order);
+    }
+
+    /**
+     * @return the variable names in slot order
+     */
+    public List<String> variables() {
+        return program.variables();
+    }
+
+    public int order() {
+        return order;
+    }
+
+    /**
+     * Compute the value and derivatives of the expression along a direction. For the derivatives with respect to a
+     * single variable, use a direction that is 1 for that variable and 0 for the others.
+     *
+     * @param point     the variable values in slot order
+     * @param direction the direction in slot order
+     * @param out       receives the value followed by the first {@link #order()} derivatives
+     */
+    public void derivatives(double[] point, double[] direction, double[] out) {
+        var slots = program.slotCount();
+        if (point.length < slots || direction.length < slots) {
+            throw new IllegalArgumentException("point and direction must have at least " + slots + " elements");
+        }
+        if (out.length < order + 1) {
+            throw new IllegalArgumentException("out must have at least " + (order + 1) + " elements");
+        }
+
+        var code = program.code();
+        var constants = program.constants();
+        var sp = -1;
+        for (var pc = 0; pc < code.length; pc += 2) {
+            switch (code[pc]) {
+                case CONST -> {
+                    var s = stack[++sp];
+                    Arrays.fill(s, 0.0);
+                    s[0] = constants[code[pc + 1]];
+                }
+                case LOAD -> {
+                    var s = stack[++sp];
+                    Arrays.fill(s, 0.0);
+                    s[0] = point[code[pc + 1]];
+                    if (order > 0) {
+                        s[1] = direction[code[pc + 1]];
+                    }
+                }
+                case ADD -> {
+                    sp--;
+                    var a = stack[sp];
+                    var b = stack[sp + 1];
+                    for (var j = 0; j <= order; j++) {
+                        a[j] += b[j];
+                    }
+                }
+                case MUL -> {
+                    sp--;
+                    multiply(stack[sp], stack[sp + 1], scratch);
+                    System.arraycopy(scratch, 0, stack[sp], 0, order + 1);
+                }
+                case POW -> pow(stack[sp], code[pc + 1]);
+                case NEG -> {
+                    var a = stack[sp];
+                    for (var j = 0; j <= order; j++) {
+                        a[j] = -a[j];
+                    }
+                }
+                default -> throw new IllegalStateException("unknown opcode " + code[pc]);
+            }
+        }
+
+        // the j-th derivative is j! times the j-th Taylor coefficient
+        var coefficients = stack[sp];
+        var factorial = 1.0;
+        for (var j = 0; j <= order; j++) {
+            if (j > 0) {
+                factorial *= j;
+            }
+            out[j] = factorial * coefficients[j];
+        }
+    }
+
+    // Replaces a with a^exp using binary exponentiation over truncated series.
+    private void pow(double[] a, int exp) {
+        var value = Math.pow(a[0], exp);
+
+        if (exp < 0) {
+            reciprocal(a, base);
+        } else {
+            System.arraycopy(a, 0, base, 0, order + 1);
+        }
+        Arrays.fill(result, 0.0);
+        result[0] = 1.0;
+
+        var remaining = Math.abs((long) exp);
+        while (remaining > 0) {
+            if ((remaining & 1) == 1) {
+                multiply(result, base, scratch);
+                System.arraycopy(scratch, 0, result, 0, order + 1);
+            }
+            remaining >>= 1;
+            if (remaining > 0) {
+                multiply(base, base, scratch);
+                System.arraycopy(scratch, 0, base, 0, order + 1);
+            }
+        }
+
+        System.arraycopy(result, 0, a, 0, order + 1);
+        a[0] = value;
+    }
+
+    // Cauchy product truncated after the order; out must not alias a or b.
+    private void multiply(double[] a, double[] b, double[] out) {
+        for (var j = 0; j <= order; j++) {
+            var sum = 0.0;
+            for (var i = 0; i <= j; i++) {
+                sum += a[i] * b[j - i];
+            }
+            out[j] = sum;
+        }
+    }
+
+    // The series of 1/a; out must not alias a.
+    private void reciprocal(double[] a, double[] out) {
+        var inverse = 1.0 / a[0];
+        out[0] = inverse;
+        for (var j = 1; j <= order; j++) {
+            var sum = 0.0;
+            for (var i = 1; i <= j; i++) {
+                sum += a[i] * out[j - i];
+            }
+            out[j] = -inverse * sum;
+        }
+    }
+}
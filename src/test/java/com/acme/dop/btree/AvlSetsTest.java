@@ -0,0 +1,126 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import java.util.stream.IntStream;
+
+class AvlSetsTest {
+
+    private static final Comparator<Integer> ORDER = Comparator.naturalOrder();
+
+    @Test
+    void shouldBuildBalancedTrees() {
+        for (var size = 0; size < 100; size++) {
+            var values = IntStream.range(0, size).boxed().toList();
+
+            var tree = AvlSets.build(values.iterator(), size);
+
+            assertThat(elements(tree)).containsExactlyElementsOf(values);
+            assertBalanced(tree);
+        }
+    }
+
+    @Test
+    void shouldJoinTreesOfDifferentHeights() {
+        var small = AvlSets.build(List.of(1, 2).iterator(), 2);
+        var large = AvlSets.build(IntStream.range(10, 1000).iterator(), 990);
+
+        var joined = AvlSets.join(small, 5, large);
+        var reversed = AvlSets.join(AvlSets.build(IntStream.range(-1000, 0).iterator(), 1000), 0, small);
+
+        assertAll(
+                () -> assertThat(elements(joined)).startsWith(1, 2, 5, 10).hasSize(993),
+                () -> assertBalanced(joined),
+                () -> assertThat(elements(reversed)).endsWith(-1, 0, 1, 2).hasSize(1003),
+                () -> assertBalanced(reversed)
+        );
+    }
+
+    @Test
+    void shouldMatchTreeSetForRandomSets() {
+        var random = new Random(5);
+        for (var round = 0; round < 50; round++) {
+            var a = randomSet(random, random.nextInt(200));
+            var b = randomSet(random, random.nextInt(200));
+            var treeA = tree(a);
+            var treeB = tree(b);
+
+            var union = new TreeSet<>(a);
+            union.addAll(b);
+            var intersection = new TreeSet<>(a);
+            intersection.retainAll(b);
+            var difference = new TreeSet<>(a);
+            difference.removeAll(b);
+
+            var combined = List.of(AvlSets.union(treeA, treeB, ORDER), AvlSets.intersection(treeA, treeB, ORDER),
+                    AvlSets.difference(treeA, treeB, ORDER));
+
+            assertThat(elements(combined.get(0).tree())).containsExactlyElementsOf(union);
+            assertThat(elements(combined.get(1).tree())).containsExactlyElementsOf(intersection);
+            assertThat(elements(combined.get(2).tree())).containsExactlyElementsOf(difference);
+            assertThat(combined).allSatisfy(result -> {
+                assertThat(result.common()).isEqualTo(intersection.size());
+                assertBalanced(result.tree());
+            });
+        }
+    }
+
+    @Test
+    void shouldCombineLargeTreesInParallel() {
+        var evens = AvlSets.build(IntStream.range(0, 200_000).map(i -> 2 * i).iterator(), 200_000);
+        var threes = AvlSets.build(IntStream.range(0, 200_000).map(i -> 3 * i).iterator(), 200_000);
+
+        var union = AvlSets.union(evens, threes, ORDER).tree();
+        var intersection = AvlSets.intersection(evens, threes, ORDER).tree();
+        var difference = AvlSets.difference(evens, threes, ORDER).tree();
+
+        assertAll(
+                () -> assertThat(AvlTree.height(evens)).isGreaterThanOrEqualTo(AvlSets.PARALLEL_HEIGHT),
+                () -> assertThat(AvlSets.size(union)).isEqualTo(200_000 + 200_000 - 66_667),
+                () -> assertThat(AvlSets.size(intersection)).isEqualTo(66_667),
+                () -> assertThat(AvlSets.size(difference)).isEqualTo(200_000 - 66_667),
+                () -> assertThat(elements(intersection)).allMatch(i -> i % 6 == 0),
+                () -> assertBalanced(union),
+                () -> assertBalanced(difference)
+        );
+    }
+
+    private static TreeSet<Integer> randomSet(Random random, int size) {
+        var set = new TreeSet<Integer>();
+        for (var i = 0; i < size; i++) {
+            set.add(random.nextInt(300));
+        }
+        return set;
+    }
+
+    private static AvlTree<Integer> tree(TreeSet<Integer> set) {
+        return AvlSets.build(set.iterator(), set.size());
+    }
+
+    private static List<Integer> elements(AvlTree<Integer> tree) {
+        var values = new ArrayList<Integer>();
+        tree.inorder(values::add);
+        return values;
+    }
+
+    private static int assertBalanced(AvlTree<Integer> tree) {
+        return switch (tree) {
+            case AvlTree.Nil<Integer>() -> 0;
+            case AvlTree.Node<Integer>(var left, var val, var right, int height) -> {
+                var leftHeight = assertBalanced(left);
+                var rightHeight = assertBalanced(right);
+                assertThat(Math.abs(leftHeight - rightHeight)).isLessThanOrEqualTo(1);
+                assertThat(height).isEqualTo(1 + Math.max(leftHeight, rightHeight));
+                yield height;
+            }
+        };
+    }
+}
@@ -0,0 +1,114 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.TreeSet;
+
+class AvlTreeTest {
+
+    private static final Comparator<Integer> ORDER = Comparator.naturalOrder();
+
+    @Test
+    void shouldStayBalancedForSortedInserts() {
+        AvlTree<Integer> tree = AvlTree.nil();
+        for (var i = 0; i < 1023; i++) {
+            tree = AvlTree.insert(tree, i, ORDER);
+        }
+
+        var balanced = tree;
+        assertAll(
+                () -> assertThat(AvlTree.height(balanced)).isEqualTo(10),
+                () -> assertBalanced(balanced)
+        );
+    }
+
+    @Test
+    void shouldMatchTreeSetAcrossRandomOperations() {
+        var random = new Random(11);
+        var expected = new TreeSet<Integer>();
+        AvlTree<Integer> tree = AvlTree.nil();
+
+        for (var i = 0; i < 5000; i++) {
+            var value = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                expected.remove(value);
+                tree = AvlTree.delete(tree, value, ORDER);
+            } else {
+                expected.add(value);
+                tree = AvlTree.insert(tree, value, ORDER);
+            }
+        }
+
+        var actual = new ArrayList<Integer>();
+        tree.inorder(actual::add);
+        var finalTree = tree;
+        assertAll(
+                () -> assertThat(actual).containsExactlyElementsOf(expected),
+                () -> assertBalanced(finalTree),
+                () -> assertThat(AvlTree.contains(finalTree, expected.first(), ORDER)).isTrue(),
+                () -> assertThat(AvlTree.contains(finalTree, 500, ORDER)).isFalse(),
+                () -> assertThat(AvlTree.min(finalTree)).isEqualTo(expected.first()),
+                () -> assertThat(AvlTree.max(finalTree)).isEqualTo(expected.last())
+        );
+    }
+
+    @Test
+    void shouldShareUnchangedSubtrees() {
+        AvlTree<Integer> tree = AvlTree.nil();
+        for (var i = 0; i < 7; i++) {
+            tree = AvlTree.insert(tree, i, ORDER);
+        }
+        var original = (AvlTree.Node<Integer>) tree;
+
+        var updated = (AvlTree.Node<Integer>) AvlTree.insert(tree, 7, ORDER);
+
+        assertAll(
+                () -> assertThat(updated.left()).isSameAs(original.left()),
+                () -> assertThat(AvlTree.contains(original, 7, ORDER)).isFalse(),
+                () -> assertThat(AvlTree.insert(original, 3, ORDER)).isSameAs(original),
+                () -> assertThat(AvlTree.delete(original, 42, ORDER)).isSameAs(original)
+        );
+    }
+
+    @Test
+    void shouldConvertToTree() {
+        AvlTree<Integer> tree = AvlTree.nil();
+        for (var i = 1; i <= 3; i++) {
+            tree = AvlTree.insert(tree, i, ORDER);
+        }
+
+        assertThat(AvlTree.toTree(tree)).isEqualTo(Tree.full(Tree.leaf(1), 2, Tree.leaf(3)));
+    }
+
+    @Test
+    void shouldRejectMissingChildrenAndEmptyMinimum() {
+        assertAll(
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> new AvlTree.Node<>(null, 1, AvlTree.nil(), 1)),
+                () -> assertThatThrownBy(() -> AvlTree.min(AvlTree.nil()))
+                        .isInstanceOf(NoSuchElementException.class)
+        );
+    }
+
+    private static int assertBalanced(AvlTree<Integer> tree) {
+        return switch (tree) {
+            case AvlTree.Nil<Integer>() -> 0;
+            case AvlTree.Node<Integer>(var left, var val, var right, int height) -> {
+                var leftHeight = assertBalanced(left);
+                var rightHeight = assertBalanced(right);
+                assertThat(Math.abs(leftHeight - rightHeight)).isLessThanOrEqualTo(1);
+                assertThat(height).isEqualTo(1 + Math.max(leftHeight, rightHeight));
+                yield height;
+            }
+        };
+    }
+}
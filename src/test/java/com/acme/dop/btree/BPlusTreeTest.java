@@ -0,0 +1,172 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+
+class BPlusTreeTest {
+
+    @Test
+    void shouldMatchTreeSetWithSmallPagesAndCache(@TempDir Path directory) throws IOException {
+        var random = new Random(3);
+        var expected = new TreeSet<Long>();
+
+        try (var tree = BPlusTree.open(directory.resolve("keys.bpt"), 64, 4)) {
+            for (var i = 0; i < 5000; i++) {
+                var key = random.nextLong(-10_000, 10_000);
+                assertThat(tree.insert(key)).isEqualTo(expected.add(key));
+            }
+
+            for (var key = -10_001L; key <= 10_001L; key++) {
+                assertThat(tree.contains(key)).as("%d", key).isEqualTo(expected.contains(key));
+            }
+            assertAll(
+                    () -> assertThat(keys(tree)).containsExactlyElementsOf(expected),
+                    () -> assertThat(tree.size()).isEqualTo(expected.size()),
+                    () -> assertThat(tree.fanout()).isEqualTo(4),
+                    () -> assertThat(tree.height()).isGreaterThan(4),
+                    () -> assertThat(tree.cachedPages()).isLessThanOrEqualTo(4)
+            );
+        }
+    }
+
+    @Test
+    void shouldScanRanges(@TempDir Path directory) throws IOException {
+        try (var tree = BPlusTree.open(directory.resolve("range.bpt"), 128, 16)) {
+            for (var key = 0L; key < 1000; key += 10) {
+                tree.insert(key);
+            }
+
+            var range = new ArrayList<Long>();
+            tree.range(95, 150, range::add);
+            var empty = new ArrayList<Long>();
+            tree.range(2000, 3000, empty::add);
+            var all = new ArrayList<Long>();
+            tree.range(Long.MIN_VALUE, Long.MAX_VALUE, all::add);
+
+            assertAll(
+                    () -> assertThat(range).containsExactly(100L, 110L, 120L, 130L, 140L),
+                    () -> assertThat(empty).isEmpty(),
+                    () -> assertThat(all).hasSize(100).startsWith(0L).endsWith(990L)
+            );
+        }
+    }
+
+    @Test
+    void shouldPersistAcrossReopening(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("persistent.bpt");
+        try (var tree = BPlusTree.open(path, 256, 8)) {
+            for (var key = 0L; key < 10_000; key++) {
+                tree.insert(key * key);
+            }
+        }
+
+        try (var tree = BPlusTree.open(path)) {
+            assertAll(
+                    () -> assertThat(tree.size()).isEqualTo(10_000),
+                    () -> assertThat(tree.fanout()).isEqualTo(20),
+                    () -> assertThat(tree.contains(81)).isTrue(),
+                    () -> assertThat(tree.contains(82)).isFalse(),
+                    () -> assertThat(tree.insert(82)).isTrue(),
+                    () -> assertThat(tree.contains(82)).isTrue()
+            );
+        }
+    }
+
+    @Test
+    void shouldKeepSplitsWithOneCachedPage(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("one-page.bpt");
+        var random = new Random(7);
+        var expected = new TreeSet<Long>();
+        try (var tree = BPlusTree.open(path, 64, 1)) {
+            for (var i = 0; i < 1000; i++) {
+                var key = random.nextLong(-5000, 5000);
+                tree.insert(key);
+                expected.add(key);
+            }
+            tree.flush();
+
+            assertAll(
+                    () -> assertThat(tree.height()).isGreaterThan(4),
+                    () -> assertThat(tree.cachedPages()).isEqualTo(1)
+            );
+        }
+
+        try (var tree = BPlusTree.open(path)) {
+            assertAll(
+                    () -> assertThat(keys(tree)).containsExactlyElementsOf(expected),
+                    () -> assertThat(tree.size()).isEqualTo(expected.size())
+            );
+        }
+    }
+
+    @Test
+    void shouldFillLeavesWhenLoadingSortedKeys(@TempDir Path directory) throws IOException {
+        try (var tree = BPlusTree.open(directory.resolve("sorted.bpt"))) {
+            for (var key = 0L; key < 100_000; key++) {
+                tree.insert(key);
+            }
+
+            // 510 keys per 4 KB leaf, plus the header page and the internal pages
+            assertAll(
+                    () -> assertThat(tree.pageCount()).isLessThan(100_000 / 510 + 5),
+                    () -> assertThat(tree.height()).isEqualTo(2),
+                    () -> assertThat(tree.contains(99_999)).isTrue()
+            );
+        }
+    }
+
+    @Test
+    void shouldRejectOtherFilesAndUseAfterClose(@TempDir Path directory) throws IOException {
+        var other = Files.write(directory.resolve("other.txt"), List.of("not a tree", "at all, no", "really not"));
+        var tree = BPlusTree.open(directory.resolve("closed.bpt"));
+        tree.insert(1);
+        tree.close();
+
+        assertAll(
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> BPlusTree.open(other)),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> BPlusTree.open(directory.resolve("small.bpt"), 32, 1)),
+                () -> assertThatIllegalStateException().isThrownBy(() -> tree.contains(1))
+        );
+    }
+
+    @Test
+    void shouldRejectCorruptPageSizes(@TempDir Path directory) throws IOException {
+        var path = directory.resolve("corrupt.bpt");
+        BPlusTree.open(path, 64, 1).close();
+        try (var channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            // the page size, in the file header
+            channel.write(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(0, 100), 8);
+        }
+
+        assertAll(
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> BPlusTree.open(path))
+                        .withMessage("corrupt B+tree header"),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> BPlusTree.open(directory.resolve("huge.bpt"), 1 << 30, 1))
+        );
+    }
+
+    private static List<Long> keys(BPlusTree tree) {
+        var keys = new ArrayList<Long>();
+        tree.inorder(keys::add);
+        return keys;
+    }
+}
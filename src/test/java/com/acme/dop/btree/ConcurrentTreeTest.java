@@ -0,0 +1,94 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+class ConcurrentTreeTest {
+
+    @Test
+    void shouldKeepSnapshotsUnchanged() {
+        var tree = ConcurrentTree.<Integer>empty();
+        tree.insert(1);
+        var snapshot = tree.snapshot();
+
+        var updated = tree.insert(2);
+        tree.delete(1);
+
+        assertAll(
+                () -> assertThat(snapshot.contains(2)).isFalse(),
+                () -> assertThat(updated.contains(1)).isTrue(),
+                () -> assertThat(updated.contains(2)).isTrue(),
+                () -> assertThat(tree.contains(1)).isFalse(),
+                () -> assertThat(tree.size()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void shouldApplyUpdatesInOrder() {
+        var tree = ConcurrentTree.of(OrderedTree.<Integer>empty().insert(1));
+
+        tree.update(t -> t.delete(1));
+        tree.update(t -> t.contains(1) ? t : t.insert(t.size() + 10));
+
+        var values = new ArrayList<Integer>();
+        tree.inorder(values::add);
+        assertThat(values).containsExactly(10);
+    }
+
+    @Test
+    void shouldNotLoseConcurrentUpdates() throws Exception {
+        var threads = 8;
+        var perThread = 2000;
+        var tree = ConcurrentTree.<Integer>empty();
+        var start = new CountDownLatch(1);
+        var writing = new AtomicBoolean(true);
+
+        try (var executor = Executors.newFixedThreadPool(threads + 1)) {
+            // a reader checks that every snapshot is consistent while the writers run
+            Future<Integer> reader = executor.submit(() -> {
+                start.await();
+                var snapshots = 0;
+                while (writing.get()) {
+                    var snapshot = tree.snapshot();
+                    var count = new int[1];
+                    snapshot.inorder(value -> count[0]++);
+                    assertThat(count[0]).isEqualTo(snapshot.size());
+                    snapshots++;
+                }
+                return snapshots;
+            });
+            var writers = IntStream.range(0, threads)
+                    .mapToObj(thread -> executor.submit(() -> {
+                        start.await();
+                        for (var i = 0; i < perThread; i++) {
+                            var inserted = tree.insert(thread * perThread + i);
+                            assertThat(inserted.contains(thread * perThread + i)).isTrue();
+                        }
+                        return null;
+                    }))
+                    .toList();
+
+            start.countDown();
+            for (var writer : writers) {
+                writer.get();
+            }
+            writing.set(false);
+
+            assertAll(
+                    () -> assertThat(reader.get()).isPositive(),
+                    () -> assertThat(tree.size()).isEqualTo(threads * perThread),
+                    () -> assertThat(tree.snapshot().min()).isZero(),
+                    () -> assertThat(tree.snapshot().max()).isEqualTo(threads * perThread - 1)
+            );
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+class EytzingerTest {
+
+    @Test
+    void shouldLayOutBreadthFirst() {
+        var keys = Eytzinger.layout(new int[] { 1, 2, 3, 4, 5, 6, 7 });
+
+        assertAll(
+                () -> assertThat(keys).containsExactly(0, 4, 2, 6, 1, 3, 5, 7),
+                () -> assertThat(Eytzinger.sorted(keys)).containsExactly(1, 2, 3, 4, 5, 6, 7)
+        );
+    }
+
+    @Test
+    void shouldFindLowerBoundsForEverySize() {
+        for (var size = 0; size <= 64; size++) {
+            var sorted = IntStream.range(0, size).map(i -> 2 * i).toArray();
+            var keys = Eytzinger.layout(sorted);
+
+            for (var key = -1; key <= 2 * size; key++) {
+                var k = Eytzinger.lowerBound(keys, key);
+                var expected = (key + 1) / 2 < size ? sorted[(key + 1) / 2] : null;
+                assertThat(k == 0 ? null : keys[k]).as("size %d, key %d", size, key).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    void shouldFindLongLowerBounds() {
+        var keys = Eytzinger.layout(new long[] { Long.MIN_VALUE, -1, 0, Long.MAX_VALUE });
+
+        assertAll(
+                () -> assertThat(keys[Eytzinger.lowerBound(keys, Long.MIN_VALUE)]).isEqualTo(Long.MIN_VALUE),
+                () -> assertThat(keys[Eytzinger.lowerBound(keys, -2)]).isEqualTo(-1),
+                () -> assertThat(keys[Eytzinger.lowerBound(keys, 1)]).isEqualTo(Long.MAX_VALUE)
+        );
+    }
+}
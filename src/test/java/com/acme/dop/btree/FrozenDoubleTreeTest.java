@@ -0,0 +1,39 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+class FrozenDoubleTreeTest {
+
+    @Test
+    void shouldOrderLikeDoubleCompare() {
+        var frozen = FrozenDoubleTree.of(Double.NaN, 1.5, -0.0, Double.NEGATIVE_INFINITY, 0.0, -2.5, 1.5);
+
+        assertThat(frozen.toArray())
+                .containsExactly(Double.NEGATIVE_INFINITY, -2.5, -0.0, 0.0, 1.5, Double.NaN);
+    }
+
+    @Test
+    void shouldFindElementsLikeBoxedContains() {
+        var tree = Tree.full(Tree.leaf(-0.0), 2.0, Tree.leaf(Double.NaN));
+
+        var frozen = FrozenDoubleTree.freeze(tree);
+
+        assertAll(
+                () -> assertThat(frozen.contains(-0.0)).isEqualTo(tree.contains(-0.0)),
+                () -> assertThat(frozen.contains(0.0)).isEqualTo(tree.contains(0.0)),
+                () -> assertThat(frozen.contains(Double.NaN)).isEqualTo(tree.contains(Double.NaN)),
+                () -> assertThat(frozen.contains(2.0)).isTrue(),
+                () -> assertThat(frozen.contains(Double.POSITIVE_INFINITY)).isFalse()
+        );
+    }
+
+    @Test
+    void shouldConvertBackToTree() {
+        var frozen = FrozenDoubleTree.of(3.0, -1.0, 2.0);
+
+        assertThat(frozen.toTree()).isEqualTo(Tree.full(Tree.leaf(-1.0), 2.0, Tree.leaf(3.0)));
+    }
+}
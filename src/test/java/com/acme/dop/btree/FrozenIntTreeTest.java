@@ -0,0 +1,77 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeSet;
+
+class FrozenIntTreeTest {
+
+    @Test
+    void shouldFreezeAnyTree() {
+        var tree = Tree.full(Tree.full(Tree.leaf(12), 20, Tree.leaf(8)), 42, Tree.right(22, Tree.leaf(22)));
+
+        var frozen = FrozenIntTree.freeze(tree);
+
+        assertAll(
+                () -> assertThat(frozen.size()).isEqualTo(5),
+                () -> assertThat(frozen.toArray()).containsExactly(8, 12, 20, 22, 42),
+                () -> assertThat(frozen.contains(22)).isTrue(),
+                () -> assertThat(frozen.contains(21)).isFalse(),
+                () -> assertThat(frozen.contains(43)).isFalse()
+        );
+    }
+
+    @Test
+    void shouldAgreeWithTreeSet() {
+        var random = new Random(17);
+        var expected = new TreeSet<Integer>();
+        var values = new int[1000];
+        for (var i = 0; i < values.length; i++) {
+            values[i] = random.nextInt(2000) - 1000;
+            expected.add(values[i]);
+        }
+
+        var frozen = FrozenIntTree.of(values);
+
+        for (var value = -1001; value <= 1001; value++) {
+            assertThat(frozen.contains(value)).as("%d", value).isEqualTo(expected.contains(value));
+        }
+        assertThat(frozen.toArray()).containsExactly(expected.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    @Test
+    void shouldConvertBackToBalancedTree() {
+        var frozen = FrozenIntTree.of(5, 3, 1, 7, 2, 6, 4);
+
+        var tree = frozen.toTree();
+
+        var values = new ArrayList<Integer>();
+        tree.inorder(values::add);
+        assertAll(
+                () -> assertThat(values).containsExactly(1, 2, 3, 4, 5, 6, 7),
+                () -> assertThat(tree).isEqualTo(Tree.full(
+                        Tree.full(Tree.leaf(1), 2, Tree.leaf(3)), 4, Tree.full(Tree.leaf(5), 6, Tree.leaf(7)))),
+                () -> assertThat(tree.contains(6)).isTrue()
+        );
+    }
+
+    @Test
+    void shouldHandleEmptyAndExtremeValues() {
+        var empty = FrozenIntTree.freeze(Tree.nil());
+        var extremes = FrozenIntTree.of(Integer.MAX_VALUE, Integer.MIN_VALUE);
+
+        assertAll(
+                () -> assertThat(empty.isEmpty()).isTrue(),
+                () -> assertThat(empty.contains(0)).isFalse(),
+                () -> assertThat(empty.toTree()).isEqualTo(Tree.nil()),
+                () -> assertThat(extremes.contains(Integer.MIN_VALUE)).isTrue(),
+                () -> assertThat(extremes.contains(Integer.MAX_VALUE)).isTrue(),
+                () -> assertThat(extremes.contains(0)).isFalse()
+        );
+    }
+}
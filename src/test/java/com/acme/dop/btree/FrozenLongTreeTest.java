@@ -0,0 +1,40 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+class FrozenLongTreeTest {
+
+    @Test
+    void shouldFreezeAndThaw() {
+        var tree = Tree.full(Tree.leaf(3_000_000_000L), 1L, Tree.right(-3_000_000_000L, Tree.leaf(1L)));
+
+        var frozen = FrozenLongTree.freeze(tree);
+
+        assertAll(
+                () -> assertThat(frozen.size()).isEqualTo(3),
+                () -> assertThat(frozen.toArray()).containsExactly(-3_000_000_000L, 1L, 3_000_000_000L),
+                () -> assertThat(frozen.contains(3_000_000_000L)).isTrue(),
+                () -> assertThat(frozen.contains(0L)).isFalse(),
+                () -> assertThat(frozen.toTree()).isEqualTo(
+                        Tree.full(Tree.leaf(-3_000_000_000L), 1L, Tree.leaf(3_000_000_000L)))
+        );
+    }
+
+    @Test
+    void shouldFindEveryElementOfLargeSets() {
+        var values = new long[100_000];
+        for (var i = 0; i < values.length; i++) {
+            values[i] = 3L * i * Integer.MAX_VALUE;
+        }
+
+        var frozen = FrozenLongTree.of(values);
+
+        for (var value : values) {
+            assertThat(frozen.contains(value)).isTrue();
+            assertThat(frozen.contains(value + 1)).isFalse();
+        }
+    }
+}
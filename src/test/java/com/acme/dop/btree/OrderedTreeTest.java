@@ -0,0 +1,126 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+class OrderedTreeTest {
+
+    @Test
+    void shouldKeepElementsInOrder() {
+        var tree = OrderedTree.<Integer>empty().insert(42).insert(8).insert(22).insert(8).insert(12);
+
+        var output = new StringBuilder();
+        tree.inorder(value -> output.append(value).append(" "));
+
+        assertAll(
+                () -> assertThat(output.toString()).isEqualTo("8 12 22 42 "),
+                () -> assertThat(tree.size()).isEqualTo(4),
+                () -> assertThat(tree.min()).isEqualTo(8),
+                () -> assertThat(tree.max()).isEqualTo(42)
+        );
+    }
+
+    @Test
+    void shouldKeepOldVersionsValid() {
+        var v1 = OrderedTree.<Integer>empty().insert(1).insert(2).insert(3);
+        var v2 = v1.delete(2);
+        var v3 = v2.insert(4);
+
+        assertAll(
+                () -> assertThat(v1.contains(2)).isTrue(),
+                () -> assertThat(v1.size()).isEqualTo(3),
+                () -> assertThat(v2.contains(2)).isFalse(),
+                () -> assertThat(v2.contains(4)).isFalse(),
+                () -> assertThat(v3.contains(4)).isTrue(),
+                () -> assertThat(v3.size()).isEqualTo(3),
+                () -> assertThat(v3.delete(99)).isSameAs(v3),
+                () -> assertThat(v3.insert(4)).isSameAs(v3)
+        );
+    }
+
+    @Test
+    void shouldUseTheComparator() {
+        var tree = OrderedTree.empty(String.CASE_INSENSITIVE_ORDER).insert("b").insert("A").insert("B");
+
+        var values = new ArrayList<String>();
+        tree.inorder(values::add);
+
+        assertAll(
+                () -> assertThat(values).containsExactly("A", "b"),
+                () -> assertThat(tree.contains("a")).isTrue()
+        );
+    }
+
+    @Test
+    void shouldConvertFromAndToTree() {
+        // a left-deep chain, deeper than the default stack can recurse through
+        Tree<Integer> chain = Tree.nil();
+        for (var i = 0; i < 100_000; i++) {
+            chain = Tree.left(chain, i);
+        }
+
+        var ordered = OrderedTree.from(chain, Comparator.<Integer>reverseOrder());
+        var converted = ordered.toTree();
+
+        assertAll(
+                () -> assertThat(ordered.size()).isEqualTo(100_000),
+                () -> assertThat(ordered.height()).isLessThanOrEqualTo(24),
+                () -> assertThat(ordered.min()).isEqualTo(99_999),
+                () -> assertThat(converted.contains(0)).isTrue()
+        );
+    }
+
+    @Test
+    void shouldBuildFromSortedElements() {
+        var tree = OrderedTree.fromSorted(List.of(1, 3, 5, 7), Comparator.<Integer>naturalOrder());
+
+        assertAll(
+                () -> assertThat(tree.size()).isEqualTo(4),
+                () -> assertThat(tree.height()).isEqualTo(3),
+                () -> assertThat(tree.contains(5)).isTrue(),
+                () -> assertThat(tree.insert(4).size()).isEqualTo(5),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> OrderedTree.fromSorted(List.of(1, 3, 3), Comparator.<Integer>naturalOrder()))
+                        .withMessageContaining("3 is followed by 3")
+        );
+    }
+
+    @Test
+    void shouldCombineTrees() {
+        var a = OrderedTree.fromSorted(List.of(1, 2, 3, 4), Comparator.<Integer>naturalOrder());
+        var b = OrderedTree.fromSorted(List.of(3, 4, 5), Comparator.<Integer>naturalOrder());
+
+        var union = a.union(b);
+        var intersection = a.intersection(b);
+        var difference = a.difference(b);
+
+        assertAll(
+                () -> assertThat(union.toTree().stream()).containsExactly(1, 2, 3, 4, 5),
+                () -> assertThat(union.size()).isEqualTo(5),
+                () -> assertThat(union.insert(6).size()).isEqualTo(6),
+                () -> assertThat(intersection.toTree().stream()).containsExactly(3, 4),
+                () -> assertThat(intersection.size()).isEqualTo(2),
+                () -> assertThat(difference.toTree().stream()).containsExactly(1, 2),
+                () -> assertThat(difference.delete(1).size()).isEqualTo(1),
+                () -> assertThat(a.difference(OrderedTree.empty())).isSameAs(a),
+                () -> assertThat(a.intersection(OrderedTree.empty()).isEmpty()).isTrue(),
+                () -> assertThat(a.difference(a).size()).isZero(),
+                () -> assertThat(b.union(a).delete(1).delete(5).size()).isEqualTo(3)
+        );
+    }
+
+    @Test
+    void shouldRejectTreesWithDifferentOrders() {
+        var natural = OrderedTree.<Integer>empty().insert(1);
+        var reversed = OrderedTree.empty(Comparator.<Integer>reverseOrder()).insert(1);
+
+        assertThatIllegalArgumentException().isThrownBy(() -> natural.union(reversed));
+    }
+}
@@ -0,0 +1,75 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.NoSuchElementException;
+
+class TreeIteratorTest {
+
+    @Test
+    void shouldIterateInOrder() {
+        var tree = Tree.full(Tree.full(Tree.leaf(12), 20, Tree.leaf(8)), 42, Tree.right(22, Tree.leaf(22)));
+
+        var values = new ArrayList<Integer>();
+        for (var value : tree) {
+            values.add(value);
+        }
+
+        var recursive = new ArrayList<Integer>();
+        tree.inorder(recursive::add);
+        assertThat(values).containsExactlyElementsOf(recursive);
+    }
+
+    @Test
+    void shouldStopEarly() {
+        var iterator = Tree.full(Tree.leaf(1), 2, Tree.leaf(3)).iterator();
+
+        assertAll(
+                () -> assertThat(iterator.next()).isEqualTo(1),
+                () -> assertThat(iterator.hasNext()).isTrue()
+        );
+    }
+
+    @Test
+    void shouldMergeTwoTreesInLockstep() {
+        var evens = Tree.full(Tree.leaf(0), 2, Tree.leaf(4));
+        var odds = Tree.full(Tree.leaf(1), 3, Tree.leaf(5));
+
+        var a = evens.iterator();
+        var b = odds.iterator();
+        var merged = new ArrayList<Integer>();
+        while (a.hasNext() && b.hasNext()) {
+            merged.add(a.next());
+            merged.add(b.next());
+        }
+
+        assertThat(merged).containsExactly(0, 1, 2, 3, 4, 5);
+    }
+
+    @Test
+    void shouldIterateDeepTrees() {
+        Tree<Integer> chain = Tree.nil();
+        for (var i = 0; i < 100_000; i++) {
+            chain = Tree.left(chain, i);
+        }
+
+        var iterator = chain.iterator();
+
+        assertThat(iterator.next()).isZero();
+    }
+
+    @Test
+    void shouldThrowWhenExhausted() {
+        var iterator = Tree.<Integer>nil().iterator();
+
+        assertAll(
+                () -> assertThat(iterator.hasNext()).isFalse(),
+                () -> assertThatThrownBy(iterator::next).isInstanceOf(NoSuchElementException.class)
+        );
+    }
+}
@@ -0,0 +1,92 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.IntStream;
+
+class TreeSpliteratorTest {
+
+    @Test
+    void shouldSplitAtSubtreeBoundaries() {
+        var tree = balanced(1, 7);
+        var suffix = tree.spliterator();
+
+        var prefix = suffix.trySplit();
+        var sizes = List.of(prefix.getExactSizeIfKnown(), suffix.getExactSizeIfKnown());
+
+        var first = new ArrayList<Integer>();
+        var second = new ArrayList<Integer>();
+        prefix.forEachRemaining(first::add);
+        suffix.forEachRemaining(second::add);
+        assertAll(
+                () -> assertThat(sizes).containsExactly(4L, 3L),
+                () -> assertThat(first).containsExactly(1, 2, 3, 4),
+                () -> assertThat(second).containsExactly(5, 6, 7),
+                () -> assertThat(tree.spliterator().getExactSizeIfKnown()).isEqualTo(7),
+                () -> assertThat(prefix.getExactSizeIfKnown()).isZero(),
+                () -> assertThat(suffix.getExactSizeIfKnown()).isZero(),
+                () -> assertThat(suffix.hasCharacteristics(Spliterator.ORDERED | Spliterator.SUBSIZED)).isTrue()
+        );
+    }
+
+    @Test
+    void shouldNotSplitOnceStartedOrExhausted() {
+        var spliterator = balanced(1, 7).spliterator();
+        spliterator.tryAdvance(value -> { });
+
+        assertAll(
+                () -> assertThat(spliterator.trySplit()).isNull(),
+                () -> assertThat(Tree.<Integer>nil().spliterator().trySplit()).isNull(),
+                () -> assertThat(Tree.leaf(1).spliterator().trySplit()).isNull()
+        );
+    }
+
+    @Test
+    void shouldStreamInOrder() {
+        var tree = balanced(1, 100);
+
+        assertAll(
+                () -> assertThat(tree.stream().toList()).containsExactlyElementsOf(range(1, 100)),
+                () -> assertThat(tree.stream().filter(i -> i % 10 == 0).findFirst()).contains(10)
+        );
+    }
+
+    @Test
+    void shouldAggregateInParallel() {
+        var tree = balanced(1, 1 << 16);
+
+        assertAll(
+                () -> assertThat(tree.parallelStream().mapToLong(Integer::longValue).sum())
+                        .isEqualTo((1L << 16) * ((1L << 16) + 1) / 2),
+                () -> assertThat(tree.parallelStream().toList()).containsExactlyElementsOf(range(1, 1 << 16))
+        );
+    }
+
+    @Test
+    void shouldStreamUnbalancedTrees() {
+        Tree<Integer> chain = Tree.nil();
+        for (var i = 100_000; i > 0; i--) {
+            chain = Tree.right(i, chain);
+        }
+
+        assertThat(chain.parallelStream().mapToInt(Integer::intValue).max()).hasValue(100_000);
+    }
+
+    private static Tree<Integer> balanced(int from, int to) {
+        if (from > to) {
+            return Tree.nil();
+        }
+        var mid = (from + to) >>> 1;
+        return Tree.full(balanced(from, mid - 1), mid, balanced(mid + 1, to));
+    }
+
+    private static List<Integer> range(int from, int to) {
+        return IntStream.rangeClosed(from, to).boxed().toList();
+    }
+}
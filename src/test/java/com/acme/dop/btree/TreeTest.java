@@ -6,6 +6,9 @@ import static org.junit.jupiter.api.Assertions.assertAll;
 
 import org.junit.jupiter.api.Test;
 
+import java.util.List;
+import java.util.stream.IntStream;
+
 class TreeTest {
 
     @Test
@@ -74,4 +77,20 @@ class TreeTest {
                 () -> assertThat(Tree.leaf(21).val()).isEqualTo(21)
         );
     }
+
+    @Test
+    void shouldBuildBalancedTrees() {
+        var tree = Tree.balanced(List.of(1, 2, 3, 4, 5, 6, 7));
+        var large = Tree.balanced(IntStream.range(0, 1_000_000).iterator());
+
+        assertAll(
+                () -> assertThat(tree).isEqualTo(Tree.full(
+                        Tree.full(Tree.leaf(1), 2, Tree.leaf(3)), 4, Tree.full(Tree.leaf(5), 6, Tree.leaf(7)))),
+                () -> assertThat(Tree.balanced(List.of())).isEqualTo(Tree.nil()),
+                () -> assertThat(large.stream().limit(3)).containsExactly(0, 1, 2),
+                () -> assertThat(large.stream().count()).isEqualTo(1_000_000),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> Tree.balanced(List.of(1).iterator(), -1))
+        );
+    }
 }
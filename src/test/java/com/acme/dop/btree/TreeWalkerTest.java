@@ -0,0 +1,66 @@
+package com.acme.dop.btree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+
+class TreeWalkerTest {
+
+    private final TreeWalker<Integer> walker = new TreeWalker<>();
+
+    @Test
+    void shouldCheckTreeContains() {
+        var A = Tree.full(Tree.leaf(20), 42, Tree.right(22, Tree.leaf(8)));
+
+        assertAll(
+                () -> assertThat(walker.contains(A, 42)).isTrue(),
+                () -> assertThat(walker.contains(A, 20)).isTrue(),
+                () -> assertThat(walker.contains(A, 8)).isTrue(),
+                () -> assertThat(walker.contains(A, 84)).isFalse(),
+                () -> assertThat(walker.contains(Tree.nil(), 42)).isFalse()
+        );
+    }
+
+    @Test
+    void shouldMatchRecursiveInOrder() {
+        var D = Tree.leaf(12);
+        var E = Tree.leaf(8);
+        var F = Tree.leaf(22);
+        var B = Tree.full(D, 20, E);
+        var C = Tree.right(22, F);
+        var A = Tree.full(B, 42, C);
+
+        var recursive = new ArrayList<Integer>();
+        A.inorder(recursive::add);
+        var iterative = new ArrayList<Integer>();
+        walker.inorder(A, iterative::add);
+
+        assertThat(iterative).containsExactly(12, 20, 8, 42, 22, 22).isEqualTo(recursive);
+    }
+
+    @Test
+    void shouldHandleVeryDeepTrees() {
+        var depth = 100_000;
+        Tree<Integer> leftChain = Tree.nil();
+        Tree<Integer> rightChain = Tree.nil();
+        for (var i = 0; i < depth; i++) {
+            leftChain = Tree.left(leftChain, i);
+            rightChain = Tree.right(i, rightChain);
+        }
+        var left = leftChain;
+        var right = rightChain;
+
+        var values = new ArrayList<Integer>();
+        walker.inorder(left, values::add);
+
+        assertAll(
+                () -> assertThat(walker.contains(left, 0)).isTrue(),
+                () -> assertThat(walker.contains(right, 0)).isTrue(),
+                () -> assertThat(walker.contains(right, -1)).isFalse(),
+                () -> assertThat(values).hasSize(depth).startsWith(0, 1, 2).endsWith(depth - 1)
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class JsonParserTest {
+
+    @Test
+    void shouldParseDocuments() {
+        var value = JsonParser.parse(bytes("""
+                { "name": "John", "age": 30, "employed": true, "spouse": null,
+                  "nicknames": ["Johnny", "J"], "address": { "city": "New York" } }
+                """));
+
+        assertThat(value).isEqualTo(new JsonObject(Map.of(
+                "name", new JsonString("John"),
+                "age", new JsonNumber(30),
+                "employed", new JsonBoolean(true),
+                "spouse", new JsonNull(),
+                "nicknames", new JsonArray(List.of(new JsonString("Johnny"), new JsonString("J"))),
+                "address", new JsonObject(Map.of("city", new JsonString("New York")))
+        )));
+    }
+
+    @Test
+    void shouldKeepMemberOrderAndLastDuplicate() {
+        var value = (JsonObject) JsonParser.parse(bytes("{\"b\": 1, \"a\": 2, \"b\": 3}"));
+
+        assertAll(
+                () -> assertThat(value.pairs().keySet()).containsExactly("b", "a"),
+                () -> assertThat(value.pairs().get("b")).isEqualTo(new JsonNumber(3))
+        );
+    }
+
+    @Test
+    void shouldBuildCompactReadOnlyObjectsAndArrays() {
+        var members = new StringBuilder("{");
+        for (var i = 0; i <= JsonShape.MAX_SIZE; i++) {
+            members.append(i == 0 ? "" : ",").append("\"m").append(i).append("\":").append(i);
+        }
+        var value = (JsonArray) JsonParser.parse(bytes("[{\"a\": 1, \"b\": [1, 2.5]}, {\"a\": 2, \"b\": [true, 3]}, "
+                + members + "}]"));
+        var first = (JsonObject) value.values().get(0);
+        var second = (JsonObject) value.values().get(1);
+        var large = (JsonObject) value.values().get(2);
+
+        assertAll(
+                () -> assertThat(first.pairs()).isInstanceOf(ShapedMap.class),
+                () -> assertThat(second.pairs().keySet().iterator().next())
+                        .isSameAs(first.pairs().keySet().iterator().next()),
+                () -> assertThat(first.pairs().get("b")).isEqualTo(
+                        new JsonArray(List.of(new JsonNumber(1), new JsonNumber(2.5)))),
+                () -> assertThat(((JsonArray) first.pairs().get("b")).values()).isInstanceOf(NumberList.class),
+                () -> assertThat(((JsonArray) second.pairs().get("b")).values()).isNotInstanceOf(NumberList.class),
+                () -> assertThat(large.pairs()).hasSize(JsonShape.MAX_SIZE + 1).isNotInstanceOf(ShapedMap.class),
+                () -> assertThat(large.pairs().keySet()).startsWith("m0", "m1", "m2"),
+                () -> assertThatThrownBy(() -> first.pairs().put("c", new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> large.pairs().put("c", new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> value.values().add(new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class)
+        );
+    }
+
+    @Test
+    void shouldNotShapeObjectsOnceTheReaderHasNoMoreShapes() {
+        var json = new StringBuilder("[");
+        for (var id = 0; id < 5000; id++) {
+            json.append(id == 0 ? "" : ",").append("{\"id").append(id).append("\": ").append(id).append('}');
+        }
+        var value = (JsonArray) JsonParser.parse(bytes(json.append(",{\"id0\": 1}]").toString()));
+        var last = (JsonObject) value.values().get(4999);
+
+        assertAll(
+                () -> assertThat(((JsonObject) value.values().getFirst()).pairs()).isInstanceOf(ShapedMap.class),
+                () -> assertThat(last.pairs()).isNotInstanceOf(ShapedMap.class),
+                () -> assertThat(last.pairs()).containsExactly(Map.entry("id4999", new JsonNumber(4999))),
+                () -> assertThat(((JsonObject) value.values().getLast()).pairs()).isInstanceOf(ShapedMap.class)
+        );
+    }
+
+    @Test
+    void shouldParseScalarsAndEmptyContainers() {
+        assertAll(
+                () -> assertThat(JsonParser.parse(bytes(" \"x\" "))).isEqualTo(new JsonString("x")),
+                () -> assertThat(JsonParser.parse(bytes("-1.5"))).isEqualTo(new JsonNumber(-1.5)),
+                () -> assertThat(JsonParser.parse(bytes("[]"))).isEqualTo(new JsonArray(List.of())),
+                () -> assertThat(JsonParser.parse(bytes("{}"))).isEqualTo(new JsonObject(Map.of()))
+        );
+    }
+
+    @Test
+    void shouldParseDeeplyNestedDocuments() {
+        var depth = 100_000;
+        var value = JsonParser.parse(bytes("[".repeat(depth) + "]".repeat(depth)));
+
+        var levels = 0;
+        while (value instanceof JsonArray(var values) && !values.isEmpty()) {
+            value = values.getFirst();
+            levels++;
+        }
+        assertThat(levels).isEqualTo(depth - 1);
+    }
+
+    @Test
+    void shouldParseBuffersAndFiles(@TempDir Path dir) throws IOException {
+        var json = "{\"values\": [1, 2, 3]}";
+        var direct = ByteBuffer.allocateDirect(json.length()).put(bytes(json)).flip();
+        var path = Files.writeString(dir.resolve("doc.json"), json);
+        var expected = JsonParser.parse(bytes(json));
+
+        assertAll(
+                () -> assertThat(JsonParser.parse(direct)).isEqualTo(expected),
+                () -> assertThat(JsonParser.parse(path)).isEqualTo(expected)
+        );
+    }
+
+    @Test
+    void shouldStreamElementsOfLargeArrays() {
+        var reader = JsonReader.of(bytes("[{\"id\": 1, \"skip\": [1, 2]}, {\"id\": 2}, {\"id\": 3}]"));
+        reader.next();
+
+        var ids = new ArrayList<JsonValue>();
+        while (reader.next() != JsonEvent.END_ARRAY) {
+            if (JsonParser.value(reader) instanceof JsonObject(var pairs)) {
+                ids.add(pairs.get("id"));
+            }
+        }
+
+        assertAll(
+                () -> assertThat(ids).containsExactly(new JsonNumber(1), new JsonNumber(2), new JsonNumber(3)),
+                () -> assertThat(reader.next()).isNull()
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidDocuments() {
+        var reader = JsonReader.of(bytes("[1]"));
+        reader.next();
+
+        assertAll(
+                () -> assertThatThrownBy(() -> JsonParser.parse(bytes("[1, 2] 3")))
+                        .isInstanceOf(JsonParseException.class)
+                        .hasMessage("unexpected data after the document at position 7"),
+                () -> assertThatThrownBy(() -> JsonParser.parse(bytes("")))
+                        .isInstanceOf(JsonParseException.class),
+                () -> assertThatIllegalStateException().isThrownBy(() -> JsonParser.parse(reader))
+        );
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
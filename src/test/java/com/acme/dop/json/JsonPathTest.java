@@ -0,0 +1,153 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+class JsonPathTest {
+
+    private static final String DOCUMENT = """
+            { "orders": [
+                { "id": 1, "total": 9.5, "items": [{ "sku": "A" }, { "sku": "B" }] },
+                { "id": 2, "total": 20, "items": [] },
+                { "id": 3, "items": [{ "sku": "C" }], "a/b": { "m~n": true } }
+              ],
+              "count": 3, "0": "zero" }
+            """;
+
+    @Test
+    void shouldSelectFromTreesAndStreams() {
+        assertAll(
+                () -> assertSelects("$.orders[*].total", new JsonNumber(9.5), new JsonNumber(20)),
+                () -> assertSelects("$['orders'][1].id", new JsonNumber(2)),
+                () -> assertSelects("$.orders[*].items[*].sku",
+                        new JsonString("A"), new JsonString("B"), new JsonString("C")),
+                () -> assertSelects("$.orders[2].*", new JsonNumber(3),
+                        new JsonArray(List.of(new JsonObject(Map.of("sku", new JsonString("C"))))),
+                        new JsonObject(Map.of("m~n", new JsonBoolean(true)))),
+                () -> assertSelects("$.count", new JsonNumber(3)),
+                () -> assertSelects("$.orders[3].id"),
+                () -> assertSelects("$.count.id"),
+                () -> assertSelects("$.orders.id"),
+                () -> assertSelects("$[0]")
+        );
+    }
+
+    @Test
+    void shouldSelectWithJsonPointers() {
+        assertAll(
+                () -> assertSelects("/orders/0/items/1/sku", new JsonString("B")),
+                () -> assertSelects("/orders/2/a~1b/m~0n", new JsonBoolean(true)),
+                () -> assertSelects("/0", new JsonString("zero")),
+                () -> assertSelects("/orders/01"),
+                () -> assertSelects("/orders/-"),
+                () -> assertSelects("/missing")
+        );
+    }
+
+    @Test
+    void shouldSelectWholeDocuments() {
+        var document = JsonParser.parse(bytes(DOCUMENT));
+
+        assertAll(
+                () -> assertSelects("$", document),
+                () -> assertSelects("", document),
+                () -> assertThat(select("$", "42")).containsExactly(new JsonNumber(42))
+        );
+    }
+
+    @Test
+    void shouldMatchQuotedAndEscapedNames() {
+        var json = "{\"a.b\": 1, \"it's\": 2, \"é\": 3, \"\\u00e9\\\"\": 4, \"\": 5}";
+
+        assertAll(
+                () -> assertThat(select("$['a.b']", json)).containsExactly(new JsonNumber(1)),
+                () -> assertThat(select("$[\"it's\"]", json)).containsExactly(new JsonNumber(2)),
+                () -> assertThat(select("$['it\\'s']", json)).containsExactly(new JsonNumber(2)),
+                () -> assertThat(select("$.é", json)).containsExactly(new JsonNumber(3)),
+                () -> assertThat(select("$['é\"']", json)).containsExactly(new JsonNumber(4)),
+                () -> assertThat(select("/", json)).containsExactly(new JsonNumber(5))
+        );
+    }
+
+    @Test
+    void shouldSelectEveryDuplicateMemberFromStreams() {
+        var json = bytes("{\"a\": 1, \"a\": 2}");
+        var path = JsonPath.compile("$.a");
+        var streamed = new ArrayList<JsonValue>();
+        var fromTree = new ArrayList<JsonValue>();
+        path.select(json, streamed::add);
+        path.select(JsonParser.parse(json), fromTree::add);
+
+        assertAll(
+                () -> assertThat(streamed).containsExactly(new JsonNumber(1), new JsonNumber(2)),
+                () -> assertThat(fromTree).containsExactly(new JsonNumber(2))
+        );
+    }
+
+    @Test
+    void shouldSelectFromLazyValuesAndPartsOfDocuments() {
+        var path = JsonPath.compile("$.id");
+        var lazy = new ArrayList<JsonValue>();
+        JsonPath.compile("$.orders[*].id").select(JsonTape.parse(bytes(DOCUMENT)), lazy::add);
+
+        var reader = JsonReader.of(bytes("[{\"id\": 1}, {\"id\": 2}]"));
+        reader.next();
+
+        assertAll(
+                () -> assertThat(lazy).containsExactly(new JsonNumber(1), new JsonNumber(2), new JsonNumber(3)),
+                () -> assertThatIllegalStateException().isThrownBy(() -> path.select(reader, value -> { })),
+                () -> assertThat(path).hasToString("$.id")
+        );
+    }
+
+    @Test
+    void shouldRejectInvalidExpressions() {
+        assertAll(
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("orders"))
+                        .withMessage("expected '$' or '/' at position 0 in orders"),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$."))
+                        .withMessage("expected a name at position 2 in $."),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$[1")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$['a]")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$[-1]")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$..a")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$[12345678901]")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("$a")),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> JsonPath.compile("/a~2"))
+        );
+    }
+
+    // Checks that the tree and the stream give the same results.
+    private static void assertSelects(String expression, JsonValue... expected) {
+        var path = JsonPath.compile(expression);
+        var fromTree = new ArrayList<JsonValue>();
+        path.select(JsonParser.parse(bytes(DOCUMENT)), fromTree::add);
+
+        assertThat(fromTree).as("tree").containsExactly(expected);
+        assertThat(select(expression, DOCUMENT)).as("stream").containsExactly(expected);
+    }
+
+    private static List<JsonValue> select(String expression, String json) {
+        var selected = new ArrayList<JsonValue>();
+        JsonPath.compile(expression).select(bytes(json), selected::add);
+        return selected;
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
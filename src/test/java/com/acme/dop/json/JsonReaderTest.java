@@ -0,0 +1,218 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonEvent.END_ARRAY;
+import static com.acme.dop.json.JsonEvent.END_OBJECT;
+import static com.acme.dop.json.JsonEvent.FALSE;
+import static com.acme.dop.json.JsonEvent.NAME;
+import static com.acme.dop.json.JsonEvent.NULL;
+import static com.acme.dop.json.JsonEvent.NUMBER;
+import static com.acme.dop.json.JsonEvent.START_ARRAY;
+import static com.acme.dop.json.JsonEvent.START_OBJECT;
+import static com.acme.dop.json.JsonEvent.STRING;
+import static com.acme.dop.json.JsonEvent.TRUE;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+class JsonReaderTest {
+
+    @Test
+    void shouldReportEvents() {
+        var reader = reader("""
+                { "name": "John", "tags": [true, false, null], "age": 30 }
+                """);
+
+        var events = new ArrayList<JsonEvent>();
+        for (var event = reader.next(); event != null; event = reader.next()) {
+            events.add(event);
+        }
+
+        assertThat(events).containsExactly(START_OBJECT, NAME, STRING, NAME, START_ARRAY, TRUE, FALSE, NULL,
+                END_ARRAY, NAME, NUMBER, END_OBJECT);
+    }
+
+    @Test
+    void shouldDecodeStringsAndNames() {
+        var reader = reader("{\"größe\": \"caf\\u00e9 \\ud83d\\ude00 \\\"q\\\" \\n\", \"x\": \"日本\"}");
+
+        reader.next();
+        assertThat(reader.next()).isEqualTo(NAME);
+        var name = reader.string();
+        reader.next();
+        var escaped = reader.string();
+        reader.next();
+        reader.next();
+
+        assertAll(
+                () -> assertThat(name).isEqualTo("größe"),
+                () -> assertThat(escaped).isEqualTo("café \uD83D\uDE00 \"q\" \n"),
+                () -> assertThat(reader.string()).isEqualTo("日本")
+        );
+    }
+
+    @Test
+    void shouldReplaceLoneSurrogates() {
+        var reader = reader("\"a\\ud83db\"");
+        reader.next();
+
+        assertThat(reader.string()).isEqualTo("a\uFFFDb");
+    }
+
+    @Test
+    void shouldReuseNames() {
+        var reader = reader("[{\"id\": 1}, {\"id\": 2}]");
+        reader.next();
+        reader.next();
+        reader.next();
+        var first = reader.string();
+        reader.next();
+        reader.next();
+        reader.next();
+        reader.next();
+
+        assertThat(reader.string()).isSameAs(first);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 0.0",
+            "-0, -0.0",
+            "42, 42.0",
+            "-3.25, -3.25",
+            "1e3, 1000.0",
+            "2.5E-3, 0.0025",
+            "1E+2, 100.0",
+            "0.1, 0.1",
+            "123456789012345678901234567890, 1.2345678901234568E29",
+            "4.9e-324, 4.9E-324",
+            "1.7976931348623157e308, 1.7976931348623157E308",
+            "1e400, Infinity"
+    })
+    void shouldParseNumbers(String json, double expected) {
+        var reader = reader(json);
+
+        assertThat(reader.next()).isEqualTo(NUMBER);
+        assertThat(reader.number()).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "''| unexpected end of input at position 0",
+            "[1, 2| unexpected end of input at position 5",
+            "[1 2]| expected ',' or ']' at position 3",
+            "{\"a\" 1}| expected ':' at position 5",
+            "{1: 2}| expected a name at position 1",
+            "[01]| expected ',' or ']' at position 2",
+            "-| malformed number at position 0",
+            "1.| malformed number at position 0",
+            "tru| expected 'true' at position 0",
+            "\"abc| unterminated string at position 0",
+            "\"\\x\"| invalid escape at position 2",
+            "\"\\u12G4\"| invalid unicode escape at position 5",
+            "{} {}| unexpected data after the document at position 3",
+            "[}| expected a value at position 1"
+    })
+    void shouldRejectInvalidJson(String json, String message) {
+        var reader = reader(json);
+
+        assertThatThrownBy(() -> {
+            while (reader.next() != null) {
+                // keep reading
+            }
+        }).isInstanceOf(JsonParseException.class).hasMessage(message);
+    }
+
+    @Test
+    void shouldRejectControlCharacters() {
+        var reader = reader("\"a\tb\"");
+
+        assertThatThrownBy(reader::next).isInstanceOf(JsonParseException.class)
+                .hasMessage("unescaped control character in string at position 2");
+    }
+
+    @Test
+    void shouldSkipValues() {
+        var reader = reader("[{\"a\": [1, {\"b\": 2}]}, 3]");
+        reader.next();
+        reader.next();
+
+        reader.skipValue();
+
+        assertAll(
+                () -> assertThat(reader.next()).isEqualTo(NUMBER),
+                () -> assertThat(reader.number()).isEqualTo(3.0),
+                () -> assertThat(reader.depth()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void shouldReadDirectBuffers() {
+        var bytes = "{\"key\": \"value\"}".getBytes(StandardCharsets.UTF_8);
+        var buffer = ByteBuffer.allocateDirect(bytes.length + 2).put((byte) 'x').put(bytes).flip().position(1);
+        var reader = JsonReader.of(buffer);
+
+        reader.next();
+        reader.next();
+        reader.next();
+
+        assertAll(
+                () -> assertThat(reader.string()).isEqualTo("value"),
+                () -> assertThat(buffer.position()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    void shouldSlideWindowsOverFiles(@TempDir Path dir) throws IOException {
+        var json = new StringBuilder("[");
+        for (var i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ", ").append("{\"id\": ").append(i).append(", \"name\": \"item-").append(i)
+                    .append("\", \"description\": \"").append("x".repeat(i % 50)).append("\"}");
+        }
+        var path = Files.writeString(dir.resolve("items.json"), json.append("]"));
+
+        var ids = new ArrayList<Double>();
+        var names = new ArrayList<String>();
+        try (var reader = JsonReader.open(path, 16)) {
+            for (var event = reader.next(); event != null; event = reader.next()) {
+                if (event == NUMBER) {
+                    ids.add(reader.number());
+                } else if (event == STRING && reader.string().startsWith("item-")) {
+                    names.add(reader.string());
+                }
+            }
+        }
+
+        assertAll(
+                () -> assertThat(ids).hasSize(1000).endsWith(999.0),
+                () -> assertThat(names).hasSize(1000).endsWith("item-999")
+        );
+    }
+
+    @Test
+    void shouldGrowWindowsForLargeTokens(@TempDir Path dir) throws IOException {
+        var path = Files.writeString(dir.resolve("large.json"), "[\"" + "y".repeat(1000) + "\"]");
+
+        try (var reader = JsonReader.open(path, 8)) {
+            reader.next();
+            reader.next();
+
+            assertThat(reader.string()).hasSize(1000);
+        }
+    }
+
+    private static JsonReader reader(String json) {
+        return JsonReader.of(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
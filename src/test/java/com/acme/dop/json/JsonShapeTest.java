@@ -0,0 +1,59 @@
+package com.acme.dop.json;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+class JsonShapeTest {
+
+    @Test
+    void shouldShareShapesWithTheSameNames() {
+        var root = JsonShape.root();
+        var ab = root.with("a").with("b");
+
+        assertAll(
+                () -> assertThat(root.with("a").with("b")).isSameAs(ab),
+                () -> assertThat(root.with("b").with("a")).isNotSameAs(ab),
+                () -> assertThat(JsonShape.root().with("a").with("b")).isNotSameAs(ab),
+                () -> assertThat(ab.size()).isEqualTo(2),
+                () -> assertThat(ab.name(1)).isEqualTo("b")
+        );
+    }
+
+    @Test
+    void shouldFindNamesInSmallAndLargeShapes() {
+        var small = JsonShape.root().with("x").with("y");
+        var large = JsonShape.root();
+        for (var i = 0; i < JsonShape.MAX_SIZE; i++) {
+            large = large.with("name" + i);
+        }
+        var full = large;
+
+        assertAll(
+                () -> assertThat(small.indexOf("y")).isEqualTo(1),
+                () -> assertThat(small.indexOf("z")).isEqualTo(-1),
+                () -> assertThat(small.indexOf(1)).isEqualTo(-1),
+                () -> assertThat(full.indexOf("name0")).isZero(),
+                () -> assertThat(full.indexOf("name31")).isEqualTo(31),
+                () -> assertThat(full.indexOf("name32")).isEqualTo(-1),
+                () -> assertThatIllegalStateException().isThrownBy(() -> full.with("name32"))
+        );
+    }
+
+    @Test
+    void shouldStopRecordingTransitionsAtTheLimit() {
+        var root = JsonShape.root();
+        for (var i = 0; i < 5000; i++) {
+            root.with("id" + i);
+        }
+
+        assertAll(
+                () -> assertThat(root.with("id0")).isSameAs(root.with("id0")),
+                () -> assertThat(root.with("id4095")).isSameAs(root.with("id4095")),
+                () -> assertThat(root.with("id4096")).isNull(),
+                () -> assertThat(root.with("id0").with("name")).isNull()
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+class JsonTapeTest {
+
+    private static final String DOCUMENT = """
+            { "name": "John", "age": 30, "employed": true, "spouse": null,
+              "nicknames": ["Johnny", "J"], "address": { "city": "New York", "zip": [1, 0, 0, 0, 1] } }
+            """;
+
+    @Test
+    void shouldMatchLikeParsedValues() {
+        var value = JsonTape.parse(bytes(DOCUMENT));
+
+        var city = value instanceof JsonObject(var pairs)
+                && pairs.get("address") instanceof JsonObject(var address)
+                && address.get("city") instanceof JsonString(var s) ? s : null;
+        assertThat(city).isEqualTo("New York");
+    }
+
+    @Test
+    void shouldEqualParsedValues() {
+        var lazy = JsonTape.parse(bytes(DOCUMENT));
+        var parsed = JsonParser.parse(bytes(DOCUMENT));
+
+        assertAll(
+                () -> assertThat(lazy).isEqualTo(parsed),
+                () -> assertThat(parsed).isEqualTo(lazy),
+                () -> assertThat(lazy.hashCode()).isEqualTo(parsed.hashCode()),
+                () -> assertThat(JsonWriter.COMPACT.toBytes(lazy)).isEqualTo(JsonWriter.COMPACT.toBytes(parsed))
+        );
+    }
+
+    @Test
+    void shouldLookUpMembersWithoutIteratingThem() {
+        var object = (JsonObject) JsonTape.parse(bytes(
+                "{\"a\": 1, \"é\": 2, \"esc\\u0061ped\": 3, \"ab\": 4, \"\\\"\": 5, \"\\ud800\": 6}"));
+        var pairs = object.pairs();
+
+        assertAll(
+                () -> assertThat(pairs.get("a")).isEqualTo(new JsonNumber(1)),
+                () -> assertThat(pairs.get("é")).isEqualTo(new JsonNumber(2)),
+                () -> assertThat(pairs.get("escaped")).isEqualTo(new JsonNumber(3)),
+                () -> assertThat(pairs.get("ab")).isEqualTo(new JsonNumber(4)),
+                () -> assertThat(pairs.get("\"")).isEqualTo(new JsonNumber(5)),
+                () -> assertThat(pairs.get("\ufffd")).isEqualTo(new JsonNumber(6)),
+                () -> assertThat(pairs.get("abc")).isNull(),
+                () -> assertThat(pairs.get("a\"")).isNull(),
+                () -> assertThat(pairs.get(1)).isNull(),
+                () -> assertThat(pairs.containsKey("ab")).isTrue(),
+                () -> assertThat(pairs.containsKey("b")).isFalse()
+        );
+    }
+
+    @Test
+    void shouldKeepMemberOrderAndLastDuplicate() {
+        var object = (JsonObject) JsonTape.parse(bytes("{\"b\": 1, \"a\": 2, \"b\": 3}"));
+        var pairs = object.pairs();
+        var before = pairs.get("b");
+
+        assertAll(
+                () -> assertThat(before).isEqualTo(new JsonNumber(3)),
+                () -> assertThat(pairs.keySet()).containsExactly("b", "a"),
+                () -> assertThat(pairs).hasSize(2),
+                () -> assertThat(pairs.get("b")).isEqualTo(new JsonNumber(3))
+        );
+    }
+
+    @Test
+    void shouldBuildMembersAndElementsOnce() {
+        var object = (JsonObject) JsonTape.parse(bytes("{\"values\": [{\"x\": 1}, \"s\"]}"));
+        var values = (JsonArray) object.pairs().get("values");
+
+        assertAll(
+                () -> assertThat(object.pairs().get("values")).isSameAs(values),
+                () -> assertThat(values.values().get(0)).isSameAs(values.values().get(0)),
+                () -> assertThat(values.values()).hasSize(2),
+                () -> assertThat(values.values().get(1)).isEqualTo(new JsonString("s"))
+        );
+    }
+
+    @Test
+    void shouldParseScalarsEmptyContainersAndBuffers() {
+        var direct = ByteBuffer.allocateDirect(32).put(bytes("xx[\"d\\u00e9j\\u00e0\", false]")).flip().position(2);
+
+        assertAll(
+                () -> assertThat(JsonTape.parse(bytes(" -1.5 "))).isEqualTo(new JsonNumber(-1.5)),
+                () -> assertThat(JsonTape.parse(bytes("\"x\""))).isEqualTo(new JsonString("x")),
+                () -> assertThat(JsonTape.parse(bytes("null"))).isEqualTo(new JsonNull()),
+                () -> assertThat(JsonTape.parse(bytes("[]"))).isEqualTo(new JsonArray(List.of())),
+                () -> assertThat(JsonTape.parse(bytes("{}"))).isEqualTo(new JsonObject(Map.of())),
+                () -> assertThat(JsonTape.parse(direct)).isEqualTo(
+                        new JsonArray(List.of(new JsonString("déjà"), new JsonBoolean(false))))
+        );
+    }
+
+    @Test
+    void shouldParseDeeplyNestedDocuments() {
+        var depth = 100_000;
+        var value = JsonTape.parse(bytes("[".repeat(depth) + "]".repeat(depth)));
+
+        var levels = 0;
+        while (value instanceof JsonArray(var values) && !values.isEmpty()) {
+            value = values.getFirst();
+            levels++;
+        }
+        assertThat(levels).isEqualTo(depth - 1);
+    }
+
+    @Test
+    void shouldBeReadOnlyAndRejectInvalidDocuments() {
+        var object = (JsonObject) JsonTape.parse(bytes("{\"a\": [1]}"));
+        var array = (JsonArray) object.pairs().get("a");
+
+        assertAll(
+                () -> assertThatThrownBy(() -> object.pairs().put("b", new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> array.values().add(new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> array.values().get(1))
+                        .isInstanceOf(IndexOutOfBoundsException.class),
+                () -> assertThatThrownBy(() -> JsonTape.parse(bytes("{\"a\": [1}")))
+                        .isInstanceOf(JsonParseException.class)
+        );
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}
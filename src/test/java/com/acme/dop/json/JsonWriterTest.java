@@ -0,0 +1,185 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonArray;
+import static com.acme.dop.json.JsonValue.JsonBoolean;
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonObject;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+class JsonWriterTest {
+
+    @Test
+    void shouldWriteCompactDocuments() {
+        var pairs = new LinkedHashMap<String, JsonValue>();
+        pairs.put("name", new JsonString("John"));
+        pairs.put("age", new JsonNumber(30));
+        pairs.put("employed", new JsonBoolean(true));
+        pairs.put("spouse", new JsonNull());
+        pairs.put("nicknames", new JsonArray(List.of(new JsonString("Johnny"), new JsonString("J"))));
+        pairs.put("empty", new JsonObject(Map.of()));
+
+        assertThat(string(JsonWriter.COMPACT, new JsonObject(pairs))).isEqualTo(
+                "{\"name\":\"John\",\"age\":30,\"employed\":true,\"spouse\":null,\"nicknames\":[\"Johnny\",\"J\"],"
+                        + "\"empty\":{}}");
+    }
+
+    @Test
+    void shouldWritePrettyDocuments() {
+        var pairs = new LinkedHashMap<String, JsonValue>();
+        pairs.put("values", new JsonArray(List.of(new JsonNumber(1), new JsonArray(List.of()))));
+        pairs.put("nested", new JsonObject(Map.of("x", new JsonBoolean(false))));
+
+        assertThat(string(JsonWriter.PRETTY, new JsonObject(pairs))).isEqualTo("""
+                {
+                  "values": [
+                    1,
+                    []
+                  ],
+                  "nested": {
+                    "x": false
+                  }
+                }""");
+    }
+
+    @Test
+    void shouldReturnSharedInstances() {
+        assertAll(
+                () -> assertThat(JsonWriter.of(JsonWriter.Layout.COMPACT)).isSameAs(JsonWriter.COMPACT),
+                () -> assertThat(JsonWriter.of(JsonWriter.Layout.PRETTY)).isSameAs(JsonWriter.PRETTY),
+                () -> assertThat(JsonWriter.PRETTY.layout()).isEqualTo(JsonWriter.Layout.PRETTY)
+        );
+    }
+
+    @Test
+    void shouldEscapeAndEncodeStrings() {
+        var s = "quote \" backslash \\ tab \t newline \n bell \u0007 é € 😀 lone \ud800";
+
+        assertAll(
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonString(s))).isEqualTo(
+                        "\"quote \\\" backslash \\\\ tab \\t newline \\n bell \\u0007 é € 😀 lone \\ud800\""),
+                () -> assertThat(JsonParser.parse(JsonWriter.COMPACT.toBytes(new JsonString(s))))
+                        .isEqualTo(new JsonString(s.replace('\ud800', '\ufffd')))
+        );
+    }
+
+    @Test
+    void shouldWriteNumbers() {
+        assertAll(
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(0))).isEqualTo("0"),
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(-0.0))).isEqualTo("-0"),
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(-1234567890))).isEqualTo("-1234567890"),
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(0.1))).isEqualTo("0.1"),
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(1e300))).isEqualTo("1.0E300"),
+                () -> assertThat(string(JsonWriter.COMPACT, new JsonNumber(-2.5e-7))).isEqualTo("-2.5E-7")
+        );
+    }
+
+    @Test
+    void shouldRoundTripNumbers() {
+        var values = new ArrayList<JsonValue>();
+        for (var d : new double[] {Math.PI, -Math.E, Double.MIN_VALUE, Double.MAX_VALUE, 1e15, 999_999_999_999_999.0,
+                9_007_199_254_740_993.0, 1 / 3.0, 123.456}) {
+            values.add(new JsonNumber(d));
+        }
+        var array = new JsonArray(values);
+
+        assertThat(JsonParser.parse(JsonWriter.COMPACT.toBytes(array))).isEqualTo(array);
+    }
+
+    @Test
+    void shouldRejectNumbersJsonCannotRepresent() {
+        assertAll(
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> JsonWriter.COMPACT.toBytes(new JsonNumber(Double.NaN)))
+                        .withMessage("JSON cannot represent NaN"),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> JsonWriter.COMPACT.toBytes(
+                                new JsonArray(List.of(new JsonNumber(Double.NEGATIVE_INFINITY)))))
+        );
+    }
+
+    @Test
+    void shouldWriteDeeplyNestedDocuments() {
+        var depth = 100_000;
+        JsonValue value = new JsonArray(List.of());
+        for (var i = 1; i < depth; i++) {
+            value = new JsonArray(List.of(value));
+        }
+
+        assertThat(string(JsonWriter.COMPACT, value)).isEqualTo("[".repeat(depth) + "]".repeat(depth));
+    }
+
+    @Test
+    void shouldWriteDocumentsLargerThanTheBuffer() {
+        var values = new ArrayList<JsonValue>();
+        for (var i = 0; i < 10_000; i++) {
+            values.add(new JsonObject(Map.of("id", new JsonNumber(i), "name", new JsonString("naïve ".repeat(i % 7)))));
+        }
+        var array = new JsonArray(values);
+
+        assertAll(
+                () -> assertThat(JsonParser.parse(JsonWriter.COMPACT.toBytes(array))).isEqualTo(array),
+                () -> assertThat(JsonParser.parse(JsonWriter.PRETTY.toBytes(array))).isEqualTo(array)
+        );
+    }
+
+    @Test
+    void shouldWriteToStreamsChannelsAndBuffers(@TempDir Path dir) throws IOException {
+        var value = new JsonObject(Map.of("values", new JsonArray(List.of(new JsonNumber(1), new JsonString("two")))));
+        var expected = JsonWriter.COMPACT.toBytes(value);
+
+        var stream = new ByteArrayOutputStream();
+        stream.write('x');
+        JsonWriter.COMPACT.write(value, stream);
+
+        var path = dir.resolve("doc.json");
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            JsonWriter.COMPACT.write(value, channel);
+        }
+
+        var buffer = ByteBuffer.allocateDirect(64).put((byte) 'x');
+        JsonWriter.COMPACT.write(value, buffer).flip().get();
+        var written = new byte[buffer.remaining()];
+        buffer.get(written);
+
+        assertAll(
+                () -> assertThat(stream.toByteArray()).startsWith('x').endsWith(expected),
+                () -> assertThat(Files.readAllBytes(path)).isEqualTo(expected),
+                () -> assertThat(written).isEqualTo(expected)
+        );
+    }
+
+    @Test
+    void shouldRejectBuffersThatAreTooSmall() {
+        var value = new JsonString("too long");
+
+        assertThatThrownBy(() -> JsonWriter.COMPACT.write(value, ByteBuffer.allocate(4)))
+                .isInstanceOf(BufferOverflowException.class);
+    }
+
+    private static String string(JsonWriter writer, JsonValue value) {
+        return new String(writer.toBytes(value), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,44 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+class NumberListTest {
+
+    @Test
+    void shouldBehaveLikeAListOfNumbers() {
+        var list = new NumberList(new double[] {1, 2.5, -0.0});
+        var expected = List.<JsonValue>of(new JsonNumber(1), new JsonNumber(2.5), new JsonNumber(-0.0));
+
+        assertAll(
+                () -> assertThat(list).isEqualTo(expected),
+                () -> assertThat(expected).isEqualTo(list),
+                () -> assertThat(list.hashCode()).isEqualTo(expected.hashCode()),
+                () -> assertThat(list.get(1)).isEqualTo(new JsonNumber(2.5)),
+                () -> assertThat(list.getDouble(2)).isEqualTo(-0.0),
+                () -> assertThat(list).hasSize(3).contains(new JsonNumber(1))
+        );
+    }
+
+    @Test
+    void shouldBeReadOnlyAndCheckIndexes() {
+        var list = new NumberList(new double[] {1});
+
+        assertAll(
+                () -> assertThatThrownBy(() -> list.add(new JsonNumber(2)))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> list.set(0, new JsonNumber(2)))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> list.getDouble(1))
+                        .isInstanceOf(IndexOutOfBoundsException.class),
+                () -> assertThatThrownBy(() -> list.get(-1))
+                        .isInstanceOf(IndexOutOfBoundsException.class)
+        );
+    }
+}
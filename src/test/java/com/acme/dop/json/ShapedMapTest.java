@@ -0,0 +1,64 @@
+package com.acme.dop.json;
+
+import static com.acme.dop.json.JsonValue.JsonNull;
+import static com.acme.dop.json.JsonValue.JsonNumber;
+import static com.acme.dop.json.JsonValue.JsonString;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+class ShapedMapTest {
+
+    private static final JsonShape SHAPE = JsonShape.root().with("b").with("a");
+
+    @Test
+    void shouldBehaveLikeAnOrderedMap() {
+        var map = new ShapedMap(SHAPE, new JsonValue[] {new JsonNumber(1), new JsonString("x")});
+        var expected = new LinkedHashMap<String, JsonValue>();
+        expected.put("b", new JsonNumber(1));
+        expected.put("a", new JsonString("x"));
+        var visited = new ArrayList<String>();
+        map.forEach((name, value) -> visited.add(name));
+
+        assertAll(
+                () -> assertThat(map).isEqualTo(expected),
+                () -> assertThat(expected).isEqualTo(map),
+                () -> assertThat(map.hashCode()).isEqualTo(expected.hashCode()),
+                () -> assertThat(map.keySet()).containsExactly("b", "a"),
+                () -> assertThat(visited).containsExactly("b", "a"),
+                () -> assertThat(map.get("a")).isEqualTo(new JsonString("x")),
+                () -> assertThat(map.get("c")).isNull(),
+                () -> assertThat(map.containsKey("b")).isTrue(),
+                () -> assertThat(map).hasSize(2).hasToString("{b=JsonNumber[d=1.0], a=JsonString[s=x]}")
+        );
+    }
+
+    @Test
+    void shouldBeReadOnly() {
+        var map = new ShapedMap(SHAPE, new JsonValue[] {new JsonNull(), new JsonNull()});
+
+        assertAll(
+                () -> assertThatThrownBy(() -> map.put("c", new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> map.entrySet().iterator().next().setValue(new JsonNull()))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThatThrownBy(() -> map.remove("a"))
+                        .isInstanceOf(UnsupportedOperationException.class),
+                () -> assertThat(new ShapedMap(JsonShape.root(), new JsonValue[0])).isEqualTo(Map.of())
+        );
+    }
+
+    @Test
+    void shouldRejectValuesThatDoNotFitTheShape() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> new ShapedMap(SHAPE, new JsonValue[] {new JsonNull()}))
+                .withMessage("expected 2 values: 1");
+    }
+}
@@ -0,0 +1,107 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.eval;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+class BatchEvaluatorTest {
+
+    // 3x^3 + 4xy - y + 10
+    private static final Node EXPR = add(
+            add(mul(val(3.0), exp(variable("x"), 3)), mul(mul(val(4.0), variable("x")), variable("y"))),
+            add(neg(variable("y")), val(10.0)));
+
+    @Test
+    void shouldMatchEvalForEveryRow() {
+        var rows = 2 * BatchEvaluator.BLOCK_SIZE + 17;
+        var columns = columns(rows);
+        var out = new double[rows];
+
+        eval(EXPR, columns, out);
+
+        assertRowsMatchEval(columns, out);
+    }
+
+    @Test
+    void shouldEvaluateConstantExpressionsForEveryRow() {
+        var out = new double[10];
+
+        eval(add(val(20), val(22)), Map.of(), out);
+
+        assertThat(out).containsOnly(42.0);
+    }
+
+    @Test
+    void shouldReadColumnsFromBuffers() {
+        var rows = BatchEvaluator.BLOCK_SIZE + 3;
+        var columns = columns(rows);
+        var x = ByteBuffer.allocateDirect(rows * Double.BYTES).asDoubleBuffer().put(columns.get("x")).flip();
+        var y = ByteBuffer.allocateDirect(rows * Double.BYTES).asDoubleBuffer().put(columns.get("y")).flip();
+        var out = new double[rows];
+
+        BatchEvaluator.of(EXPR).evalBuffers(Map.of("x", x, "y", y), out);
+
+        assertAll(
+                () -> assertRowsMatchEval(columns, out),
+                () -> assertThat(x.position()).isZero()
+        );
+    }
+
+    @Test
+    void shouldEvaluateLargeBatchesInParallel() {
+        var rows = 5 * BatchEvaluator.PARALLEL_THRESHOLD + 123;
+        var columns = columns(rows);
+        var out = new double[rows];
+
+        try (var pool = new ForkJoinPool(4)) {
+            BatchEvaluator.of(EXPR).evalParallel(columns, out, pool);
+        }
+
+        assertRowsMatchEval(columns, out);
+    }
+
+    @Test
+    void shouldValidateColumns() {
+        var evaluator = BatchEvaluator.of(EXPR);
+        var out = new double[10];
+
+        assertAll(
+                () -> assertThat(evaluator.variables()).containsExactly("x", "y"),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> evaluator.eval(Map.of("x", new double[10]), out))
+                        .withMessage("no column for variable y"),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> evaluator.eval(Map.of("x", new double[10], "y", new double[5]), out))
+                        .withMessage("column y has 5 rows but 10 are required")
+        );
+    }
+
+    private static Map<String, double[]> columns(int rows) {
+        return Map.of(
+                "x", IntStream.range(0, rows).mapToDouble(i -> (i % 101) * 0.25 - 12.0).toArray(),
+                "y", IntStream.range(0, rows).mapToDouble(i -> Math.sqrt(i)).toArray());
+    }
+
+    private static void assertRowsMatchEval(Map<String, double[]> columns, double[] out) {
+        for (var row = 0; row < out.length; row++) {
+            var x = columns.get("x")[row];
+            var y = columns.get("y")[row];
+            var expected = eval(EXPR, Map.of("x", x, "y", y)::get);
+            assertThat(out[row]).describedAs("row %d", row).isEqualTo(expected);
+        }
+    }
+}
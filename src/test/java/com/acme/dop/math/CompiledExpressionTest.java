@@ -0,0 +1,106 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.diff;
+import static com.acme.dop.math.NodeMath.eval;
+import static com.acme.dop.math.NodeMath.generate;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.stream.IntStream;
+
+class CompiledExpressionTest {
+
+    @Test
+    void shouldEvaluateConstantExpressions() {
+        var expr = add(mul(neg(val(3)), val(6)), exp(val(2), 6));
+        var compiled = generate(expr);
+
+        assertAll(
+                () -> assertThat(compiled.variables()).isEmpty(),
+                () -> assertThat(compiled.eval(new double[0])).isEqualTo(eval(expr))
+        );
+    }
+
+    @Test
+    void shouldPreserveSpecialConstants() {
+        assertAll(
+                () -> assertThat(generate(val(-0.0)).eval(new double[0])).isEqualTo(-0.0),
+                () -> assertThat(generate(val(0.0)).eval(new double[0])).isEqualTo(0.0),
+                () -> assertThat(generate(val(1.0)).eval(new double[0])).isEqualTo(1.0),
+                () -> assertThat(generate(val(Double.NaN)).eval(new double[0])).isNaN(),
+                () -> assertThat(generate(exp(val(2), -2)).eval(new double[0])).isEqualTo(0.25)
+        );
+    }
+
+    @Test
+    void shouldMatchEval() {
+        // 8t * 5t^2 + 4x^2 + x
+        var t = variable("t");
+        var x = variable("x");
+        var expr = add(
+                mul(mul(val(8.0), t), mul(val(5.0), exp(t, 2))),
+                add(mul(val(4.0), exp(x, 2)), x));
+        var compiled = generate(expr);
+        var vars = new double[2];
+
+        assertThat(compiled.variables()).containsExactly("t", "x");
+        for (var i = -5; i <= 5; i++) {
+            vars[compiled.slot("t")] = i * 0.7;
+            vars[compiled.slot("x")] = i * -1.3;
+            var values = Map.of("t", i * 0.7, "x", i * -1.3);
+
+            assertAll(
+                    () -> assertThat(compiled.eval(vars)).isEqualTo(eval(expr, values::get)),
+                    () -> assertThat(generate(diff(expr, "t")).eval(vars)).isEqualTo(eval(diff(expr, "t"), values::get))
+            );
+        }
+    }
+
+    @Test
+    void shouldHandleManyVariables() {
+        // sum of v0 ... v299, which needs iconst, bipush, and sipush slot indexes
+        Node expr = variable("v0");
+        for (var i = 1; i < 300; i++) {
+            expr = add(expr, variable("v" + i));
+        }
+        var compiled = generate(expr);
+        var vars = IntStream.range(0, 300).mapToDouble(i -> i).toArray();
+
+        assertThat(compiled.eval(vars)).isEqualTo(299.0 * 300.0 / 2.0);
+    }
+
+    @Test
+    void shouldCacheByStructuralEquality() {
+        var first = generate(add(mul(variable("cache"), val(2)), val(7)));
+        var second = generate(add(mul(variable("cache"), val(2)), val(7)));
+        var different = generate(add(mul(variable("cache"), val(3)), val(7)));
+
+        assertAll(
+                () -> assertThat(second).isSameAs(first),
+                () -> assertThat(different).isNotSameAs(first),
+                () -> assertThat(first.getClass().isHidden()).isTrue()
+        );
+    }
+
+    @Test
+    void shouldRejectExpressionsTooLargeForOneMethod() {
+        // balanced sum of 2^15 terms, each of which needs several bytes of code
+        Node expr = variable("x");
+        for (var i = 0; i < 15; i++) {
+            expr = add(expr, expr);
+        }
+        var tooLarge = expr;
+
+        assertThatIllegalArgumentException().isThrownBy(() -> generate(tooLarge));
+    }
+}
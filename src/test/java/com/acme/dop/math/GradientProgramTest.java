@@ -0,0 +1,109 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.diff;
+import static com.acme.dop.math.NodeMath.eval;
+import static com.acme.dop.math.NodeMath.gradient;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+class GradientProgramTest {
+
+    @Test
+    void shouldComputeValueAndPartials() {
+        // x^2 * y + -(3z) + 7
+        var expr = add(add(mul(exp(variable("x"), 2), variable("y")), neg(mul(val(3), variable("z")))), val(7));
+        Function<String, Double> vars = Map.of("x", 2.0, "y", 5.0, "z", -1.0)::get;
+
+        var result = gradient(expr, vars);
+
+        assertAll(
+                () -> assertThat(result.value()).isEqualTo(eval(expr, vars)),
+                () -> assertThat(result.partials()).containsExactly(
+                        Map.entry("x", 20.0), Map.entry("y", 4.0), Map.entry("z", -3.0))
+        );
+    }
+
+    @Test
+    void shouldMatchSymbolicDerivatives() {
+        // 8t * 5t^2 + 3x^3 * t + 4x^2 + x
+        var t = variable("t");
+        var x = variable("x");
+        var expr = add(
+                add(mul(mul(val(8.0), t), mul(val(5.0), exp(t, 2))), mul(mul(val(3.0), exp(x, 3)), t)),
+                add(mul(val(4.0), exp(x, 2)), x));
+        var program = GradientProgram.compile(expr);
+        var frame = program.newFrame();
+        var partials = new double[2];
+
+        for (var i = -3; i <= 3; i++) {
+            Function<String, Double> vars = Map.of("t", i * 0.75, "x", i * -1.5)::get;
+            var values = new double[] {
+                    vars.apply(program.variables().get(0)), vars.apply(program.variables().get(1)) };
+
+            var value = program.gradient(values, frame, partials);
+
+            assertAll(
+                    () -> assertThat(value).isEqualTo(eval(expr, vars)),
+                    () -> assertThat(partials[program.slot("t")]).isCloseTo(eval(diff(expr, "t"), vars), within(1e-9)),
+                    () -> assertThat(partials[program.slot("x")]).isCloseTo(eval(diff(expr, "x"), vars), within(1e-9))
+            );
+        }
+    }
+
+    @Test
+    void shouldRecordSharedNodesOnce() {
+        var in = new NodeInterner();
+        Node expr = in.variable("x");
+        for (var i = 0; i < 30; i++) {
+            expr = in.mul(expr, in.val(1.0));
+            expr = in.add(expr, expr);
+        }
+        var shared = expr;
+        var program = GradientProgram.compile(shared);
+
+        var result = program.gradient(name -> 1.5);
+
+        assertAll(
+                () -> assertThat(program.tapeLength()).isEqualTo(NodeDag.distinctNodes(shared)),
+                () -> assertThat(result.value()).isEqualTo(1.5 * Math.pow(2, 30)),
+                () -> assertThat(result.partials()).containsExactly(Map.entry("x", Math.pow(2, 30)))
+        );
+    }
+
+    @Test
+    void shouldHandleZeroAndNegativeExponents() {
+        var expr = add(exp(variable("x"), 0), exp(variable("x"), -2));
+
+        var result = gradient(expr, name -> 2.0);
+
+        assertAll(
+                () -> assertThat(result.value()).isEqualTo(1.25),
+                () -> assertThat(result.partials().get("x")).isEqualTo(-0.25)
+        );
+    }
+
+    @Test
+    void shouldRequireLargeEnoughArrays() {
+        var program = GradientProgram.compile(add(variable("a"), variable("b")));
+
+        assertAll(
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> program.gradient(new double[2], new double[2], new double[2])),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> program.gradient(new double[1], program.newFrame(), new double[2]))
+        );
+    }
+}
@@ -0,0 +1,117 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+class IncrementalEvaluatorTest {
+
+    // (a * b) + (c^2 + -d)
+    private static final Node EXPR = add(
+            mul(variable("a"), variable("b")),
+            add(exp(variable("c"), 2), neg(variable("d"))));
+
+    @Test
+    void shouldComputeEverythingFirst() {
+        var evaluator = IncrementalEvaluator.of(EXPR);
+        evaluator.setAll(name -> 2.0);
+
+        assertAll(
+                () -> assertThat(evaluator.value()).isEqualTo(NodeMath.eval(EXPR, name -> 2.0)),
+                () -> assertThat(evaluator.variables()).containsExactly("a", "b", "c", "d"),
+                () -> assertThat(evaluator.recomputed()).isEqualTo(9),
+                () -> assertThat(evaluator.reused()).isZero()
+        );
+    }
+
+    @Test
+    void shouldRecomputeOnlyTheDirtyPath() {
+        var evaluator = IncrementalEvaluator.of(EXPR);
+        evaluator.setAll(name -> 2.0);
+        evaluator.value();
+        evaluator.resetCounters();
+
+        evaluator.set("c", 3.0);
+        var value = evaluator.value();
+
+        assertAll(
+                () -> assertThat(value).isEqualTo(2.0 * 2.0 + (9.0 - 2.0)),
+                // c, c^2, the inner sum and the root
+                () -> assertThat(evaluator.recomputed()).isEqualTo(4),
+                () -> assertThat(evaluator.reused()).isEqualTo(5)
+        );
+    }
+
+    @Test
+    void shouldNotRecomputeWhenNothingChanged() {
+        var evaluator = IncrementalEvaluator.of(EXPR);
+        evaluator.value();
+        evaluator.resetCounters();
+
+        evaluator.set("a", 0.0);
+        evaluator.value();
+
+        assertAll(
+                () -> assertThat(evaluator.recomputed()).isZero(),
+                () -> assertThat(evaluator.reused()).isEqualTo(evaluator.nodeCount())
+        );
+    }
+
+    @Test
+    void shouldStoreSharedSubexpressionsOnce() {
+        var x = variable("x");
+        var square = mul(x, x);
+        var expr = add(square, mul(square, val(3)));
+
+        var evaluator = IncrementalEvaluator.of(expr);
+        evaluator.set("x", 4.0);
+
+        assertAll(
+                () -> assertThat(evaluator.nodeCount()).isEqualTo(5),
+                () -> assertThat(evaluator.value()).isEqualTo(64.0)
+        );
+    }
+
+    @Test
+    void shouldMatchFullEvaluationAcrossRandomUpdates() {
+        var random = new Random(7);
+        Node expr = val(1);
+        for (var i = 0; i < 200; i++) {
+            var term = mul(val(random.nextInt(10) - 5), exp(variable("v" + random.nextInt(50)), 1 + random.nextInt(3)));
+            expr = random.nextBoolean() ? add(expr, term) : add(term, expr);
+        }
+        var evaluator = IncrementalEvaluator.of(expr);
+        var vars = new HashMap<String, Double>();
+        evaluator.variables().forEach(name -> vars.put(name, 0.0));
+
+        for (var tick = 0; tick < 100; tick++) {
+            var name = evaluator.variables().get(random.nextInt(evaluator.variables().size()));
+            var value = random.nextDouble();
+            vars.put(name, value);
+            evaluator.set(name, value);
+
+            assertThat(evaluator.value()).isEqualTo(NodeMath.eval(expr, vars::get));
+        }
+        assertThat(evaluator.reused()).isGreaterThan(evaluator.recomputed());
+    }
+
+    @Test
+    void shouldRejectUnknownVariables() {
+        var evaluator = IncrementalEvaluator.of(EXPR);
+
+        assertThatThrownBy(() -> evaluator.set("z", 1.0))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("unknown variable z");
+    }
+}
@@ -0,0 +1,77 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+class IterativeNodeMathTest {
+
+    private static final Function<String, Double> VARS = Map.of("t", 1.5, "x", -2.0)::get;
+
+    private static final List<Node> EXPRESSIONS = List.of(
+            add(val(20), val(22)),
+            mul(neg(val(3)), val(6)),
+            exp(val(2), 6),
+            neg(mul(val(8.0), variable("t"))),
+            mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2))),
+            mul(variable("x"), val(4.0)),
+            mul(val(0.5), val(4.0)),
+            add(add(mul(val(3.0), exp(variable("x"), 3)), mul(val(4.0), exp(variable("x"), 2))),
+                    add(mul(val(5.0), variable("x")), val(10.0))),
+            mul(exp(add(variable("x"), variable("t")), -2), neg(neg(variable("t"))))
+    );
+
+    private final IterativeNodeMath iterative = new IterativeNodeMath();
+
+    @Test
+    void shouldMatchRecursiveVersions() {
+        for (var expr : EXPRESSIONS) {
+            assertAll(
+                    () -> assertThat(iterative.eval(expr, VARS)).isEqualTo(NodeMath.eval(expr, VARS)),
+                    () -> assertThat(iterative.format(expr)).isEqualTo(NodeMath.format(expr)),
+                    () -> assertThat(iterative.diff(expr, "t")).isEqualTo(NodeMath.diff(expr, "t")),
+                    () -> assertThat(iterative.diff(expr, "x")).isEqualTo(NodeMath.diff(expr, "x"))
+            );
+        }
+    }
+
+    @Test
+    void shouldHandleVeryDeepLeftChains() {
+        // x + 1 + 1 + ... which overflows the stack when processed recursively
+        var depth = 100_000;
+        Node expr = variable("x");
+        for (var i = 0; i < depth; i++) {
+            expr = add(expr, val(1));
+        }
+        var chain = expr;
+
+        var derivative = iterative.diff(chain, "x");
+
+        assertAll(
+                () -> assertThat(iterative.eval(chain, VARS)).isEqualTo(depth - 2.0),
+                () -> assertThat(iterative.format(chain)).hasSize(depth * "( + 1.0)".length() + 1),
+                () -> assertThat(iterative.eval(derivative)).isEqualTo(1.0),
+                () -> assertThat(iterative.format(derivative)).startsWith("(".repeat(depth) + "1.0 + 0.0)")
+        );
+    }
+
+    @Test
+    void shouldRecoverAfterFailedCall() {
+        var expr = add(variable("x"), val(1));
+
+        assertThatNullPointerException().isThrownBy(() -> iterative.eval(add(val(1), expr)));
+        assertThat(iterative.eval(expr, VARS)).isEqualTo(-1.0);
+    }
+}
@@ -0,0 +1,128 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+
+class NodeArchiveTest {
+
+    private static final List<Node> EXPRESSIONS = List.of(
+            add(val(20), val(22)),
+            mul(neg(variable("x")), val(6)),
+            exp(variable("x"), -2),
+            exp(variable("y"), Integer.MIN_VALUE),
+            add(mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2))), variable("θ")),
+            mul(val(Double.NaN), val(-0.0)),
+            val(Double.MIN_VALUE)
+    );
+
+    @Test
+    void shouldRoundTripExpressions() {
+        var archive = NodeArchive.of(write(EXPRESSIONS));
+
+        assertThat(archive.size()).isEqualTo(EXPRESSIONS.size());
+        for (var i = 0; i < EXPRESSIONS.size(); i++) {
+            assertThat(archive.get(i)).isEqualTo(EXPRESSIONS.get(i));
+        }
+    }
+
+    @Test
+    void shouldBeSmallerThanText() {
+        var expr = EXPRESSIONS.get(4);
+        var archive = NodeArchive.of(write(List.of(expr)));
+
+        // 9 bytes per constant, 2 per variable and exponent, 1 per operator
+        assertAll(
+                () -> assertThat(archive.encodedLength(0)).isEqualTo(2 * 9 + 3 * 2 + 2 + 4),
+                () -> assertThat(archive.encodedLength(0)).isLessThan(NodeMath.format(expr).length())
+        );
+    }
+
+    @Test
+    void shouldShareVariables() {
+        var archive = NodeArchive.of(write(List.of(variable("x"), mul(variable("x"), variable("x")))));
+
+        var product = (BinaryNode.MulNode) archive.get(1);
+        assertAll(
+                () -> assertThat(product.left()).isSameAs(product.right()),
+                () -> assertThat(archive.get(0)).isSameAs(product.left())
+        );
+    }
+
+    @Test
+    void shouldMapFiles(@TempDir Path dir) throws IOException {
+        var path = dir.resolve("expressions.bin");
+        var writer = NodeArchive.writer();
+        EXPRESSIONS.forEach(writer::add);
+        writer.writeTo(path);
+
+        var archive = NodeArchive.map(path);
+
+        assertThat(archive.get(4)).isEqualTo(EXPRESSIONS.get(4));
+    }
+
+    @Test
+    void shouldReadFromBufferPosition() {
+        var bytes = write(EXPRESSIONS);
+        var buffer = ByteBuffer.allocateDirect(bytes.length + 3).position(3);
+        buffer.put(bytes).position(3);
+
+        var archive = NodeArchive.of(buffer);
+
+        assertAll(
+                () -> assertThat(archive.get(1)).isEqualTo(EXPRESSIONS.get(1)),
+                () -> assertThat(buffer.position()).isEqualTo(3)
+        );
+    }
+
+    @Test
+    void shouldHandleDeepExpressions() {
+        Node expr = variable("x");
+        for (var i = 0; i < 50_000; i++) {
+            expr = add(expr, val(1));
+        }
+
+        var decoded = NodeArchive.of(write(List.of(expr))).get(0);
+
+        assertThat(NodeFormatter.FULL.format(decoded)).isEqualTo(NodeFormatter.FULL.format(expr));
+    }
+
+    @Test
+    void shouldRejectCorruptArchives() {
+        var bytes = write(List.of(add(variable("x"), val(1))));
+        var truncated = bytes.clone();
+        // the addition is the last byte of the only expression, so point it at an unknown tag
+        truncated[NodeArchive.HEADER_SIZE + 11] = 42;
+
+        assertAll(
+                () -> assertThatThrownBy(() -> NodeArchive.of(new byte[NodeArchive.HEADER_SIZE]))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("not a node archive"),
+                () -> assertThatThrownBy(() -> NodeArchive.of(truncated).get(0))
+                        .isInstanceOf(IllegalArgumentException.class)
+                        .hasMessage("corrupt node archive expression 0"),
+                () -> assertThatThrownBy(() -> NodeArchive.of(bytes).get(1))
+                        .isInstanceOf(IndexOutOfBoundsException.class)
+        );
+    }
+
+    private static byte[] write(List<Node> expressions) {
+        var writer = NodeArchive.writer();
+        expressions.forEach(writer::add);
+        return writer.toByteArray();
+    }
+}
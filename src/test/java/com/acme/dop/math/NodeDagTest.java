@@ -0,0 +1,78 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+class NodeDagTest {
+
+    // (8t * 5t^2) * (4t^3 + -t)
+    private static final Node EXPR = mul(
+            mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2))),
+            add(mul(val(4.0), exp(variable("t"), 3)), neg(variable("t"))));
+
+    private static final Function<String, Double> VARS = Map.of("t", 1.25)::get;
+
+    @Test
+    void shouldMatchNodeMath() {
+        var in = new NodeInterner();
+        var dag = in.intern(EXPR);
+
+        assertAll(
+                () -> assertThat(NodeDag.eval(dag, VARS)).isEqualTo(NodeMath.eval(EXPR, VARS)),
+                () -> assertThat(NodeDag.format(dag)).isEqualTo(NodeMath.format(EXPR)),
+                () -> assertThat(NodeDag.diff(EXPR, "t", in)).isEqualTo(NodeMath.diff(EXPR, "t"))
+        );
+    }
+
+    @Test
+    void shouldShareSubexpressionsInRepeatedDerivatives() {
+        var in = new NodeInterner();
+        Node tree = EXPR;
+        Node dag = EXPR;
+        for (var i = 0; i < 4; i++) {
+            tree = NodeMath.diff(tree, "t");
+            dag = NodeDag.diff(dag, "t", in);
+        }
+        var treeResult = tree;
+        var dagResult = dag;
+
+        assertAll(
+                () -> assertThat(NodeDag.distinctNodes(dagResult)).isLessThan(NodeDag.distinctNodes(treeResult) / 4),
+                () -> assertThat(NodeDag.eval(dagResult, VARS)).isEqualTo(NodeMath.eval(treeResult, VARS)),
+                () -> assertThat(NodeDag.format(dagResult)).isEqualTo(NodeMath.format(treeResult))
+        );
+    }
+
+    @Test
+    void shouldEvaluateSharedNodesOnce() {
+        var in = new NodeInterner();
+        Node expr = in.variable("x");
+        for (var i = 0; i < 64; i++) {
+            expr = in.add(expr, expr);
+        }
+        var shared = expr;
+        var calls = new int[1];
+
+        var result = NodeDag.eval(shared, name -> {
+            calls[0]++;
+            return 1.0;
+        });
+
+        assertAll(
+                () -> assertThat(result).isEqualTo(Math.pow(2, 64)),
+                () -> assertThat(calls[0]).isEqualTo(1),
+                () -> assertThat(NodeDag.distinctNodes(shared)).isEqualTo(65)
+        );
+    }
+}
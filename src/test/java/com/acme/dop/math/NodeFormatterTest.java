@@ -0,0 +1,115 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class NodeFormatterTest {
+
+    private static final List<Node> EXPRESSIONS = List.of(
+            add(val(20), val(22)),
+            mul(neg(val(3)), val(6)),
+            exp(val(2), 6),
+            exp(variable("x"), -2),
+            neg(mul(val(8.0), variable("t"))),
+            add(mul(variable("a"), variable("b")), mul(neg(val(3)), val(6))),
+            mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2))),
+            add(val(-0.0), val(0.0)),
+            add(val(0.125), val(1.0e7)),
+            add(val(-1234567.0), val(1.0e-4)),
+            mul(val(Double.NaN), val(Double.NEGATIVE_INFINITY)),
+            add(val(Long.MAX_VALUE), val(Double.MIN_VALUE))
+    );
+
+    @Test
+    void shouldMatchFormatForEveryTarget() throws IOException {
+        for (var expr : EXPRESSIONS) {
+            var expected = NodeMath.format(expr);
+            var writer = new StringWriter();
+            NodeMath.format(expr, writer);
+            var buffer = NodeFormatter.FULL.format(expr, ByteBuffer.allocate(256)).flip();
+
+            assertAll(
+                    () -> assertThat(NodeFormatter.FULL.format(expr)).isEqualTo(expected),
+                    () -> assertThat(writer.toString()).isEqualTo(expected),
+                    () -> assertThat(StandardCharsets.UTF_8.decode(buffer).toString()).isEqualTo(expected)
+            );
+        }
+    }
+
+    @Test
+    void shouldAppendToExistingContent() {
+        var sb = new StringBuilder("f = ");
+
+        NodeFormatter.FULL.format(add(variable("x"), val(1)), sb);
+
+        assertThat(sb.toString()).isEqualTo("f = (x + 1.0)");
+    }
+
+    @Test
+    void shouldWriteNonAsciiVariablesAsUtf8() {
+        var expr = mul(variable("θ"), add(variable("𝜋"), variable("naïve")));
+
+        var buffer = NodeFormatter.FULL.format(expr, ByteBuffer.allocate(64)).flip();
+
+        assertThat(StandardCharsets.UTF_8.decode(buffer).toString()).isEqualTo("(θ * (𝜋 + naïve))");
+    }
+
+    @Test
+    void shouldWriteMinimalParentheses() {
+        var a = variable("a");
+        var b = variable("b");
+        var c = variable("c");
+        var minimal = NodeFormatter.MINIMAL;
+
+        assertAll(
+                () -> assertThat(minimal.format(add(add(a, b), c))).isEqualTo("a + b + c"),
+                () -> assertThat(minimal.format(add(a, add(b, c)))).isEqualTo("a + (b + c)"),
+                () -> assertThat(minimal.format(add(mul(a, b), mul(b, c)))).isEqualTo("a * b + b * c"),
+                () -> assertThat(minimal.format(mul(add(a, b), c))).isEqualTo("(a + b) * c"),
+                () -> assertThat(minimal.format(mul(a, mul(b, c)))).isEqualTo("a * (b * c)"),
+                () -> assertThat(minimal.format(exp(add(a, b), 2))).isEqualTo("(a + b)^2"),
+                () -> assertThat(minimal.format(exp(neg(a), 2))).isEqualTo("(-a)^2"),
+                () -> assertThat(minimal.format(neg(exp(a, 2)))).isEqualTo("-a^2"),
+                () -> assertThat(minimal.format(exp(exp(a, 2), 3))).isEqualTo("a^2^3"),
+                () -> assertThat(minimal.format(exp(val(-2), 2))).isEqualTo("(-2.0)^2"),
+                () -> assertThat(minimal.format(neg(add(a, b)))).isEqualTo("-(a + b)"),
+                () -> assertThat(minimal.format(mul(neg(a), val(-3)))).isEqualTo("-a * -3.0")
+        );
+    }
+
+    @Test
+    void shouldFormatVeryDeepExpressions() {
+        var depth = 100_000;
+        Node expr = variable("x");
+        for (var i = 0; i < depth; i++) {
+            expr = add(expr, val(1));
+        }
+
+        var text = NodeFormatter.MINIMAL.format(expr);
+
+        assertThat(text).hasSize(1 + depth * " + 1.0".length()).startsWith("x + 1.0 + 1.0");
+    }
+
+    @Test
+    void shouldReturnSharedInstances() {
+        assertAll(
+                () -> assertThat(NodeFormatter.of(NodeFormatter.Parentheses.FULL)).isSameAs(NodeFormatter.FULL),
+                () -> assertThat(NodeFormatter.of(NodeFormatter.Parentheses.MINIMAL)).isSameAs(NodeFormatter.MINIMAL),
+                () -> assertThat(NodeFormatter.MINIMAL.parentheses()).isEqualTo(NodeFormatter.Parentheses.MINIMAL)
+        );
+    }
+}
@@ -0,0 +1,81 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+class NodeInternerTest {
+
+    @Test
+    void shouldReturnSameInstanceForEqualNodes() {
+        var in = new NodeInterner();
+
+        assertAll(
+                () -> assertThat(in.val(42)).isSameAs(in.val(42)),
+                () -> assertThat(in.variable("x")).isSameAs(in.variable("x")),
+                () -> assertThat(in.add(in.variable("x"), in.val(1))).isSameAs(in.add(in.variable("x"), in.val(1))),
+                () -> assertThat(in.mul(in.variable("x"), in.val(1))).isSameAs(in.mul(in.variable("x"), in.val(1))),
+                () -> assertThat(in.exp(in.variable("x"), 2)).isSameAs(in.exp(in.variable("x"), 2)),
+                () -> assertThat(in.neg(in.variable("x"))).isSameAs(in.neg(in.variable("x")))
+        );
+    }
+
+    @Test
+    void shouldDistinguishDifferentNodes() {
+        var in = new NodeInterner();
+
+        assertAll(
+                () -> assertThat(in.val(0.0)).isNotSameAs(in.val(-0.0)),
+                () -> assertThat(in.exp(in.variable("x"), 2)).isNotSameAs(in.exp(in.variable("x"), 3)),
+                () -> assertThat(in.add(in.val(1), in.val(2))).isNotSameAs(in.add(in.val(2), in.val(1))),
+                () -> assertThat((Node) in.add(in.val(1), in.val(2))).isNotSameAs(in.mul(in.val(1), in.val(2)))
+        );
+    }
+
+    @Test
+    void shouldBuildStructurallyEqualNodes() {
+        var in = new NodeInterner();
+
+        assertThat(in.add(in.mul(in.val(3), in.exp(in.variable("x"), 2)), in.neg(in.variable("y"))))
+                .isEqualTo(add(mul(val(3), exp(variable("x"), 2)), neg(variable("y"))));
+    }
+
+    @Test
+    void shouldInternExistingTrees() {
+        var in = new NodeInterner();
+        var expr = add(mul(variable("x"), variable("y")), mul(variable("x"), variable("y")));
+
+        var interned = in.intern(expr);
+
+        assertAll(
+                () -> assertThat(interned).isEqualTo(expr),
+                () -> assertThat(interned).isSameAs(in.intern(expr)),
+                () -> assertThat(((BinaryNode.AddNode) interned).left())
+                        .isSameAs(((BinaryNode.AddNode) interned).right()),
+                () -> assertThat(NodeDag.distinctNodes(expr)).isEqualTo(7),
+                () -> assertThat(NodeDag.distinctNodes(interned)).isEqualTo(4)
+        );
+    }
+
+    @Test
+    void shouldBoundTheInternTable() {
+        var in = new NodeInterner(10);
+        for (var i = 0; i < 100; i++) {
+            in.val(i);
+        }
+
+        assertAll(
+                () -> assertThat(in.size()).isEqualTo(10),
+                () -> assertThat(in.val(1).val()).isEqualTo(1.0),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> new NodeInterner(0))
+        );
+    }
+}
@@ -0,0 +1,143 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class NodeMetricsTest {
+
+    // 3x^2 + 2x
+    private static final Node POLYNOMIAL = add(mul(val(3), exp(variable("x"), 2)), mul(val(2), variable("x")));
+
+    @AfterEach
+    void tearDown() {
+        NodeMetrics.disable();
+    }
+
+    @Test
+    void shouldRecordNothingWhenDisabled() {
+        var metrics = NodeMetrics.enable();
+        NodeMetrics.disable();
+
+        NodeMath.eval(POLYNOMIAL, name -> 2.0);
+
+        assertAll(
+                () -> assertThat(NodeMetrics.isEnabled()).isFalse(),
+                () -> assertThat(metrics.snapshot()).isEmpty()
+        );
+    }
+
+    @Test
+    void shouldRecordEvalAndDiffPerExpression() {
+        var metrics = NodeMetrics.enable();
+
+        for (var i = 0; i < 5; i++) {
+            NodeMath.eval(POLYNOMIAL, name -> 2.0);
+        }
+        var derivative = NodeMath.diff(POLYNOMIAL, "x");
+        NodeMath.eval(val(42));
+
+        var snapshot = metrics.snapshot();
+        var polynomial = snapshot.stream().filter(m -> m.nodes() == 8).findFirst().orElseThrow();
+        assertAll(
+                () -> assertThat(snapshot).hasSize(2),
+                () -> assertThat(polynomial.expression()).isEqualTo("3.0 * x^2 + 2.0 * x"),
+                () -> assertThat(polynomial.eval().count()).isEqualTo(5),
+                () -> assertThat(sum(polynomial.eval().buckets())).isEqualTo(5),
+                () -> assertThat(polynomial.diff().count()).isEqualTo(1),
+                () -> assertThat(polynomial.diffBlowUp()).isEqualTo(NodeMath.size(derivative) / 8.0)
+        );
+    }
+
+    @Test
+    void shouldTrackExpressionsByIdentity() {
+        var metrics = NodeMetrics.enable();
+
+        NodeMath.eval(add(val(1), val(2)));
+        NodeMath.eval(add(val(1), val(2)));
+
+        assertThat(metrics.snapshot()).hasSize(2);
+    }
+
+    @Test
+    void shouldAggregateBeyondMaxExpressions() {
+        var metrics = NodeMetrics.enable(2);
+
+        for (var i = 0; i < 5; i++) {
+            NodeMath.eval(val(i));
+        }
+
+        var snapshot = metrics.snapshot();
+        var other = snapshot.stream().filter(m -> m.expression().equals(NodeMetrics.OTHER)).findFirst().orElseThrow();
+        assertAll(
+                () -> assertThat(snapshot).hasSize(3),
+                () -> assertThat(other.eval().count()).isEqualTo(3),
+                () -> assertThat(other.nodes()).isEqualTo(-1)
+        );
+    }
+
+    @Test
+    void shouldTruncateLongExpressions() {
+        var metrics = NodeMetrics.enable();
+        Node sum = variable("x");
+        for (var i = 0; i < 100; i++) {
+            sum = add(sum, val(i));
+        }
+
+        NodeMath.eval(sum, name -> 1.0);
+
+        var label = metrics.snapshot().getFirst().expression();
+        assertAll(
+                () -> assertThat(label).hasSize(80),
+                () -> assertThat(label).startsWith("x + 0.0 + 1.0").endsWith("...")
+        );
+    }
+
+    @Test
+    void shouldComputePercentilesFromBuckets() {
+        var buckets = new long[64];
+        buckets[0] = 1;
+        buckets[4] = 98;
+        buckets[10] = 1;
+        var latencies = new NodeMetrics.Latencies(100, 2000, buckets);
+
+        assertAll(
+                () -> assertThat(latencies.percentileNanos(0.0)).isZero(),
+                () -> assertThat(latencies.percentileNanos(0.5)).isEqualTo(15),
+                () -> assertThat(latencies.percentileNanos(1.0)).isEqualTo(1023),
+                () -> assertThat(latencies.meanNanos()).isEqualTo(20.0)
+        );
+    }
+
+    @Test
+    void shouldDumpATable() {
+        var metrics = NodeMetrics.enable();
+        NodeMath.eval(POLYNOMIAL, name -> 2.0);
+        NodeMath.diff(POLYNOMIAL, "x");
+
+        var out = new StringBuilder();
+        metrics.dump(out);
+
+        var lines = out.toString().lines().toList();
+        assertAll(
+                () -> assertThat(lines).hasSize(2),
+                () -> assertThat(lines.getFirst()).contains("evals", "p99_us", "blowup", "expression"),
+                () -> assertThat(lines.get(1)).endsWith("  3.0 * x^2 + 2.0 * x")
+        );
+    }
+
+    private static long sum(long[] buckets) {
+        var total = 0L;
+        for (var b : buckets) {
+            total += b;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,152 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+class NodeParserTest {
+
+    private static final List<Node> EXPRESSIONS = List.of(
+            add(val(20), val(22)),
+            mul(neg(variable("x")), val(6)),
+            exp(val(2), 6),
+            exp(variable("x"), -2),
+            neg(mul(val(8.0), variable("t"))),
+            add(mul(variable("a"), variable("b")), mul(val(-3), val(6))),
+            add(variable("a"), add(variable("b"), variable("c"))),
+            mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2))),
+            exp(neg(variable("a")), 2),
+            neg(exp(variable("a"), 2)),
+            exp(exp(variable("a"), 2), 3),
+            exp(val(-2), 2),
+            mul(neg(variable("a")), val(-3.0)),
+            add(val(-0.0), val(0.0)),
+            add(val(0.125), val(1.0e7)),
+            add(val(-1234567.0), val(1.0e-4)),
+            mul(val(Double.NaN), val(Double.NEGATIVE_INFINITY)),
+            add(val(Long.MAX_VALUE), val(Double.MIN_VALUE)),
+            add(variable("θ"), variable("x_1"))
+    );
+
+    @Test
+    void shouldRoundTripFormat() {
+        for (var expr : EXPRESSIONS) {
+            var text = NodeMath.format(expr);
+            assertThat(NodeMath.format(NodeParser.parse(text))).isEqualTo(text);
+        }
+    }
+
+    @Test
+    void shouldRoundTripMinimalFormatExactly() {
+        for (var expr : EXPRESSIONS) {
+            var text = NodeFormatter.MINIMAL.format(expr);
+            assertAll(
+                    () -> assertThat(NodeParser.parse(text)).isEqualTo(expr),
+                    () -> assertThat(NodeParser.parse(text.getBytes(StandardCharsets.UTF_8))).isEqualTo(expr)
+            );
+        }
+    }
+
+    @Test
+    void shouldRecoverStructureFromFullFormat() {
+        var expr = add(mul(variable("a"), variable("b")), mul(val(-3), exp(variable("x"), 2)));
+        assertThat(NodeParser.parse(NodeMath.format(expr))).isEqualTo(expr);
+    }
+
+    @Test
+    void shouldApplyPrecedenceAndAssociativity() {
+        var a = variable("a");
+        var b = variable("b");
+        var c = variable("c");
+        assertAll(
+                () -> assertThat(NodeParser.parse("a + b * c")).isEqualTo(add(a, mul(b, c))),
+                () -> assertThat(NodeParser.parse("a * b + c")).isEqualTo(add(mul(a, b), c)),
+                () -> assertThat(NodeParser.parse("a + b + c")).isEqualTo(add(add(a, b), c)),
+                () -> assertThat(NodeParser.parse("a * b * c")).isEqualTo(mul(mul(a, b), c)),
+                () -> assertThat(NodeParser.parse("-a * b")).isEqualTo(mul(neg(a), b)),
+                () -> assertThat(NodeParser.parse("-a^2")).isEqualTo(neg(exp(a, 2))),
+                () -> assertThat(NodeParser.parse("(a + b)^-1")).isEqualTo(exp(add(a, b), -1)),
+                () -> assertThat(NodeParser.parse("--a")).isEqualTo(neg(neg(a))),
+                () -> assertThat(NodeParser.parse("\t( a+b )\n* c")).isEqualTo(mul(add(a, b), c))
+        );
+    }
+
+    @Test
+    void shouldReadNegativeNumbersAsConstantsUnlessRaisedToAPower() {
+        assertAll(
+                () -> assertThat(NodeParser.parse("-3.0")).isEqualTo(val(-3.0)),
+                () -> assertThat(NodeParser.parse("- 3.0")).isEqualTo(neg(val(3.0))),
+                () -> assertThat(NodeParser.parse("-3.0^2")).isEqualTo(neg(exp(val(3.0), 2))),
+                () -> assertThat(NodeParser.parse("-Infinity")).isEqualTo(val(Double.NEGATIVE_INFINITY))
+        );
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0.1, 0.1",
+            "42, 42.0",
+            "1.0E-4, 1.0E-4",
+            "6.02214076E23, 6.02214076E23",
+            "4.9E-324, 4.9E-324",
+            "1.7976931348623157E308, 1.7976931348623157E308",
+            "9.223372036854776E18, 9.223372036854776E18",
+            "123456789012345678901234567890.0, 1.2345678901234568E29",
+            "0.30000000000000004, 0.30000000000000004",
+            ".5, 0.5"
+    })
+    void shouldParseNumbersExactly(String text, double expected) {
+        assertThat(NodeParser.parse(text)).isEqualTo(val(expected));
+    }
+
+    @Test
+    void shouldParseRangeOfBytes() {
+        var bytes = "[x * 2.0]".getBytes(StandardCharsets.UTF_8);
+        assertThat(NodeParser.parse(bytes, 1, bytes.length - 2)).isEqualTo(mul(variable("x"), val(2.0)));
+    }
+
+    @Test
+    void shouldParseDeeplyNestedText() {
+        var depth = 100_000;
+        var text = "(".repeat(depth) + "x" + ")".repeat(depth);
+        assertThat(NodeParser.parse(text)).isEqualTo(variable("x"));
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', value = {
+            "''            | 0 | expected an operand",
+            "x +           | 3 | expected an operand",
+            "x y           | 2 | expected an operator",
+            "(x + 1        | 0 | unclosed '('",
+            "x + 1)        | 5 | unbalanced ')'",
+            "x ^ y         | 4 | expected an integer exponent",
+            "x^99999999999 | 2 | exponent out of range",
+            "2.0e          | 0 | malformed number",
+            ".             | 0 | malformed number",
+            "* x           | 0 | expected an operand"
+    })
+    void shouldReportErrorPositions(String text, int position, String message) {
+        assertThatThrownBy(() -> NodeParser.parse(text))
+                .hasMessage(message + " at position " + position)
+                .isInstanceOfSatisfying(NodeParseException.class, e -> assertThat(e.position()).isEqualTo(position));
+    }
+
+    @Test
+    void shouldReportPositionsRelativeToByteOffset() {
+        var bytes = "ignored: x + ".getBytes(StandardCharsets.UTF_8);
+        assertThatThrownBy(() -> NodeParser.parse(bytes, 9, bytes.length - 9))
+                .isInstanceOfSatisfying(NodeParseException.class, e -> assertThat(e.position()).isEqualTo(4));
+    }
+}
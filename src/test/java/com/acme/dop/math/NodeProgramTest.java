@@ -0,0 +1,86 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.compile;
+import static com.acme.dop.math.NodeMath.diff;
+import static com.acme.dop.math.NodeMath.eval;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+class NodeProgramTest {
+
+    @Test
+    void shouldEvaluateConstantExpressions() {
+        var expr = add(mul(neg(val(3)), val(6)), exp(val(2), 6));
+        var program = compile(expr);
+
+        assertAll(
+                () -> assertThat(program.slotCount()).isZero(),
+                () -> assertThat(program.eval(program.newFrame())).isEqualTo(eval(expr))
+        );
+    }
+
+    @Test
+    void shouldResolveVariablesToSlots() {
+        var expr = add(mul(variable("a"), variable("b")), exp(variable("a"), 3));
+        var program = compile(expr);
+
+        assertAll(
+                () -> assertThat(program.variables()).containsExactly("a", "b"),
+                () -> assertThat(program.slot("a")).isZero(),
+                () -> assertThat(program.slot("b")).isEqualTo(1),
+                () -> assertThat(program.slot("c")).isEqualTo(-1)
+        );
+    }
+
+    @Test
+    void shouldMatchEvalWhenReusingFrame() {
+        // 8t * 5t^2 + 4x^2 + x
+        var t = variable("t");
+        var x = variable("x");
+        var expr = add(
+                mul(mul(val(8.0), t), mul(val(5.0), exp(t, 2))),
+                add(mul(val(4.0), exp(x, 2)), x));
+        var program = compile(expr);
+        var frame = program.newFrame();
+
+        for (var i = -5; i <= 5; i++) {
+            var vars = Map.of("t", i * 0.7, "x", i * -1.3);
+            frame[program.slot("t")] = vars.get("t");
+            frame[program.slot("x")] = vars.get("x");
+
+            assertThat(program.eval(frame)).isEqualTo(eval(expr, vars::get));
+        }
+    }
+
+    @Test
+    void shouldMatchEvalOfDerivatives() {
+        var expr = mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2)));
+        var derivative = diff(expr, "t");
+        var program = compile(derivative);
+        var frame = program.newFrame();
+        frame[program.slot("t")] = 1.5;
+
+        assertThat(program.eval(frame)).isEqualTo(eval(derivative, name -> 1.5));
+    }
+
+    @Test
+    void shouldRequireLargeEnoughFrame() {
+        var program = compile(add(variable("a"), variable("b")));
+
+        assertAll(
+                () -> assertThat(program.frameSize()).isEqualTo(4),
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> program.eval(new double[2]))
+        );
+    }
+}
@@ -0,0 +1,157 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.diff;
+import static com.acme.dop.math.NodeMath.eval;
+import static com.acme.dop.math.NodeMath.format;
+import static com.acme.dop.math.NodeMath.simplify;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+class SimplifierTest {
+
+    @Test
+    void shouldFoldConstants() {
+        assertAll(
+                () -> assertThat(simplify(add(val(20), val(22)))).isEqualTo(val(42)),
+                () -> assertThat(simplify(mul(val(2), val(21)))).isEqualTo(val(42)),
+                () -> assertThat(simplify(exp(val(2), 6))).isEqualTo(val(64)),
+                () -> assertThat(simplify(neg(val(42)))).isEqualTo(val(-42)),
+                () -> assertThat(simplify(add(mul(val(3), val(4)), neg(exp(val(2), 2))))).isEqualTo(val(8))
+        );
+    }
+
+    @Test
+    void shouldRemoveIdentities() {
+        var x = variable("x");
+
+        assertAll(
+                () -> assertThat(simplify(add(x, val(0)))).isEqualTo(x),
+                () -> assertThat(simplify(add(val(0), x))).isEqualTo(x),
+                () -> assertThat(simplify(mul(x, val(1)))).isEqualTo(x),
+                () -> assertThat(simplify(mul(val(1), x))).isEqualTo(x),
+                () -> assertThat(simplify(exp(x, 1))).isEqualTo(x),
+                () -> assertThat(simplify(exp(x, 0))).isEqualTo(val(1))
+        );
+    }
+
+    @Test
+    void shouldAnnihilateProductsWithZero() {
+        var x = variable("x");
+
+        assertAll(
+                () -> assertThat(simplify(mul(val(0), x))).isEqualTo(val(0)),
+                () -> assertThat(simplify(mul(add(x, x), val(0)))).isEqualTo(val(0))
+        );
+    }
+
+    @Test
+    void shouldCollapseDoubleNegation() {
+        var x = variable("x");
+
+        assertAll(
+                () -> assertThat(simplify(neg(neg(x)))).isEqualTo(x),
+                () -> assertThat(simplify(neg(neg(neg(x))))).isEqualTo(neg(x)),
+                () -> assertThat(simplify(neg(mul(val(8), x)))).isEqualTo(mul(val(-8), x))
+        );
+    }
+
+    @Test
+    void shouldMergeNestedConstants() {
+        var x = variable("x");
+        var y = variable("y");
+
+        assertAll(
+                () -> assertThat(simplify(mul(val(3), mul(val(2), x)))).isEqualTo(mul(val(6), x)),
+                () -> assertThat(simplify(mul(mul(x, val(2)), val(3)))).isEqualTo(mul(val(6), x)),
+                () -> assertThat(simplify(mul(mul(val(2), x), mul(val(5), y)))).isEqualTo(mul(val(10), mul(x, y))),
+                () -> assertThat(simplify(add(add(val(1), x), val(2)))).isEqualTo(add(x, val(3)))
+        );
+    }
+
+    @Test
+    void shouldReportRemovedNodes() {
+        var result = Simplifier.simplify(diff(mul(val(3.0), exp(variable("z"), 2)), "z"));
+
+        assertAll(
+                () -> assertThat(format(result.node())).isEqualTo("(6.0 * z)"),
+                () -> assertThat(result.nodesBefore()).isEqualTo(8),
+                () -> assertThat(result.nodesAfter()).isEqualTo(3),
+                () -> assertThat(result.removed()).isEqualTo(5),
+                () -> assertThat(result.passes()).isGreaterThan(1)
+        );
+    }
+
+    @Test
+    void shouldReachFixedPoint() {
+        var result = Simplifier.simplify(variable("x"));
+
+        assertAll(
+                () -> assertThat(result.node()).isEqualTo(variable("x")),
+                () -> assertThat(result.removed()).isZero(),
+                () -> assertThat(result.passes()).isEqualTo(1)
+        );
+    }
+
+    /**
+     * The simplified results noted in {@code NodeMathTest.SingleVariableDifferentiation}.
+     */
+    @Nested
+    class SimplifiedDerivatives {
+
+        @Test
+        void withConstantAndVar() {
+            assertThat(format(simplify(diff(mul(val(5.0), variable("y")), "y")))).isEqualTo("5.0");
+        }
+
+        @Test
+        void withNegativeConstantAndVar() {
+            assertThat(format(simplify(diff(neg(mul(val(8.0), variable("t"))), "t")))).isEqualTo("-8.0");
+        }
+
+        @Test
+        void withConstantAndVarToThirdPower() {
+            assertThat(format(simplify(diff(mul(val(2.0), exp(variable("z"), 3)), "z")))).isEqualTo("(6.0 * z^2)");
+        }
+
+        @Test
+        void withTwoMultipliedTerms() {
+            // 8t * 5t^2
+            var expr = mul(mul(val(8.0), variable("t")), mul(val(5.0), exp(variable("t"), 2)));
+
+            var result = simplify(diff(expr, "t"));
+
+            assertAll(
+                    () -> assertThat(format(result)).isEqualTo("((80.0 * (t * t)) + (40.0 * t^2))"),
+                    () -> assertThat(eval(result, name -> 3.0)).isEqualTo(120.0 * 9.0)
+            );
+        }
+
+        @Test
+        void withTwoTerms() {
+            // 4x^2 + x
+            var expr = add(mul(val(4.0), exp(variable("x"), 2)), variable("x"));
+
+            assertThat(format(simplify(diff(expr, "x")))).isEqualTo("((8.0 * x) + 1.0)");
+        }
+
+        @Test
+        void withFourTerms() {
+            // 3x^3 + 4x^2 + 5x + 10
+            var a = mul(val(3.0), exp(variable("x"), 3));
+            var b = mul(val(4.0), exp(variable("x"), 2));
+            var c = mul(val(5.0), variable("x"));
+            var expr = add(add(a, b), add(c, val(10.0)));
+
+            assertThat(format(simplify(diff(expr, "x")))).isEqualTo("(((9.0 * x^2) + (8.0 * x)) + 5.0)");
+        }
+    }
+}
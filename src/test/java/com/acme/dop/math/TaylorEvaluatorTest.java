@@ -0,0 +1,96 @@
+package com.acme.dop.math;
+
+import static com.acme.dop.math.BinaryNode.add;
+import static com.acme.dop.math.BinaryNode.mul;
+import static com.acme.dop.math.Node.exp;
+import static com.acme.dop.math.Node.neg;
+import static com.acme.dop.math.Node.val;
+import static com.acme.dop.math.Node.variable;
+import static com.acme.dop.math.NodeMath.derivatives;
+import static com.acme.dop.math.NodeMath.diff;
+import static com.acme.dop.math.NodeMath.eval;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.within;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.function.Function;
+
+class TaylorEvaluatorTest {
+
+    // 3x^3 + 4x^2 + 5x + 10
+    private static final Node CUBIC = add(
+            add(mul(val(3.0), exp(variable("x"), 3)), mul(val(4.0), exp(variable("x"), 2))),
+            add(mul(val(5.0), variable("x")), val(10.0)));
+
+    @Test
+    void shouldComputeAllDerivativesOfPolynomial() {
+        var result = derivatives(CUBIC, "x", name -> 2.0, 5);
+
+        assertThat(result).containsExactly(
+                3 * 8 + 4 * 4 + 5 * 2 + 10,  // value
+                9 * 4 + 8 * 2 + 5,           // 9x^2 + 8x + 5
+                18 * 2 + 8,                  // 18x + 8
+                18,
+                0,
+                0);
+    }
+
+    @Test
+    void shouldMatchSymbolicDerivatives() {
+        // (8t * 5t^2) * -(x * t^-2)
+        var t = variable("t");
+        var expr = mul(mul(mul(val(8.0), t), mul(val(5.0), exp(t, 2))), neg(mul(variable("x"), exp(t, -2))));
+        Function<String, Double> vars = Map.of("t", 1.5, "x", -0.5)::get;
+
+        var result = derivatives(expr, "t", vars, 2);
+
+        assertAll(
+                () -> assertThat(result[0]).isEqualTo(eval(expr, vars)),
+                () -> assertThat(result[1]).isCloseTo(eval(diff(expr, "t"), vars), within(1e-9)),
+                () -> assertThat(result[2]).isCloseTo(eval(diff(diff(expr, "t"), "t"), vars), within(1e-9))
+        );
+    }
+
+    @Test
+    void shouldHandleExponentsExactly() {
+        var x = variable("x");
+
+        assertAll(
+                () -> assertThat(derivatives(exp(x, 0), "x", name -> 3.0, 2)).containsExactly(1, 0, 0),
+                () -> assertThat(derivatives(exp(x, 5), "x", name -> 2.0, 6))
+                        .containsExactly(32, 80, 160, 240, 240, 120, 0),
+                () -> assertThat(derivatives(exp(x, -1), "x", name -> 2.0, 3))
+                        .containsExactly(0.5, -0.25, 0.25, -0.375)
+        );
+    }
+
+    @Test
+    void shouldComputeDirectionalDerivatives() {
+        // x^2 * y
+        var expr = mul(exp(variable("x"), 2), variable("y"));
+        var taylor = TaylorEvaluator.of(expr, 1);
+        var out = new double[2];
+
+        taylor.derivatives(new double[] { 3.0, 2.0 }, new double[] { 1.0, -1.0 }, out);
+
+        // gradient (2xy, x^2) = (12, 9), dotted with (1, -1)
+        assertThat(out).containsExactly(18.0, 3.0);
+    }
+
+    @Test
+    void shouldValidateArguments() {
+        var taylor = TaylorEvaluator.of(CUBIC, 2);
+
+        assertAll(
+                () -> assertThatIllegalArgumentException().isThrownBy(() -> TaylorEvaluator.of(CUBIC, -1)),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> taylor.derivatives(new double[1], new double[1], new double[2])),
+                () -> assertThatIllegalArgumentException()
+                        .isThrownBy(() -> taylor.derivatives(new double[0], new double[1], new double[3]))
+        );
+    }
+}